@@ -1,6 +1,6 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
-import { map, Observable } from 'rxjs';
+import { HttpClient, HttpParams, HttpResponse } from '@angular/common/http';
+import { EMPTY, expand, Observable, reduce } from 'rxjs';
 import { Account, Transaction } from '../models/account.model';
 
 @Injectable({ providedIn: 'root' })
@@ -18,13 +18,24 @@ export class BankingService {
     return this.http.get<Account>(`${this.accountsUrl}/${id}`);
   }
 
+  // The API returns one page per call; follow X-Next-Cursor until the last page
   getTransactions(accountId?: number): Observable<Transaction[]> {
-    const params = accountId ? `?accountId=${accountId}` : '';
-    return this.http.get<any[]>(`${this.accountsUrl}/transactions${params}`).pipe(
-      map(list => list.map(t => this.enrichTransaction(t)))
+    return this.getTransactionPage(accountId).pipe(
+      expand(res => {
+        const cursor = res.headers.get('X-Next-Cursor');
+        return cursor ? this.getTransactionPage(accountId, cursor) : EMPTY;
+      }),
+      reduce((all: Transaction[], res) => all.concat((res.body ?? []).map(t => this.enrichTransaction(t))), [])
     );
   }
 
+  private getTransactionPage(accountId?: number, cursor?: string): Observable<HttpResponse<any[]>> {
+    let params = new HttpParams();
+    if (accountId) params = params.set('accountId', accountId);
+    if (cursor) params = params.set('cursor', cursor);
+    return this.http.get<any[]>(`${this.accountsUrl}/transactions`, { params, observe: 'response' });
+  }
+
   createTransfer(data: { fromAccountId: number; toAccountId: number; amount: number; description?: string }): Observable<any> {
     const payload = {
       fromAccountId: data.fromAccountId,
@@ -0,0 +1,98 @@
+package com.training.demobank.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.training.demobank.dto.AccountDtos;
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.Customer;
+import com.training.demobank.repository.TransactionRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response mapping on the account endpoints: entity / row to DTO, and JSON for a list of
+ * {@code size} accounts with an ObjectMapper configured the way Spring Boot configures MVC's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AccountMappingJmh {
+
+    private Account account;
+    private TransactionRow row;
+
+    /** {@code size} account responses and the mapper that writes them. */
+    @State(Scope.Benchmark)
+    public static class AccountList {
+        @Param({"20", "500"})
+        public int size;
+
+        List<AccountDtos.AccountResponse> responses;
+        ObjectMapper mapper;
+
+        @Setup
+        public void setup() {
+            Account account = sampleAccount();
+            responses = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                responses.add(AccountController.toDto(account));
+            }
+            mapper = Jackson2ObjectMapperBuilder.json().build();
+        }
+    }
+
+    @Setup
+    public void setup() {
+        account = sampleAccount();
+        row = new TransactionRow(9L, 42L, "DEPOSIT", new BigDecimal("10.00"), new BigDecimal("1234.56"),
+                Instant.parse("2024-01-02T00:00:00Z"), "salary");
+    }
+
+    static Account sampleAccount() {
+        Customer c = new Customer();
+        c.setId(7L);
+        Account a = new Account();
+        a.setId(42L);
+        a.setCustomer(c);
+        a.setAccountNumber("AC1700000000000123456");
+        a.setAccountType(AccountType.SAVINGS);
+        a.setBalance(new BigDecimal("1234.56"));
+        a.setInterestRate(new BigDecimal("0.0250"));
+        a.setOpenedAt(Instant.parse("2024-01-01T00:00:00Z"));
+        return a;
+    }
+
+    @Benchmark
+    public AccountDtos.AccountResponse toDto() {
+        return AccountController.toDto(account);
+    }
+
+    @Benchmark
+    public AccountDtos.TransactionResponse toTxnDto() {
+        return AccountController.toTxnDto(row);
+    }
+
+    @Benchmark
+    public byte[] serializeAccountList(AccountList list) throws Exception {
+        return list.mapper.writeValueAsBytes(list.responses);
+    }
+}
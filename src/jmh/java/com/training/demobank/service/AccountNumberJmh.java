@@ -0,0 +1,41 @@
+package com.training.demobank.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Account number generation: the Snowflake generator against the previous
+ * {@code currentTimeMillis + Math.random + String.format} scheme. Run with {@code -t 4} (via
+ * {@code jmh.args}) to see contention: the old scheme shares one {@code Random}, the new one a CAS.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AccountNumberJmh {
+
+    private final SnowflakeAccountNumberGenerator generator = new SnowflakeAccountNumberGenerator(1);
+
+    @Benchmark
+    public String snowflake() {
+        return generator.next();
+    }
+
+    @Benchmark
+    public String previousScheme() {
+        long epochPart = System.currentTimeMillis();
+        long rand = (long) (Math.random() * 1_000_000L);
+        return "AC" + epochPart + String.format("%06d", rand);
+    }
+}
@@ -0,0 +1,90 @@
+package com.training.demobank.service;
+
+import com.training.demobank.DemobankApplication;
+import com.training.demobank.dto.AccountDtos;
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.Customer;
+import com.training.demobank.repository.CustomerRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded cost of the JPA posting paths against in-memory H2 (one transaction each,
+ * default pessimistic concurrency). Every fork boots its own non-web application context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BankingServiceJmh {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    private ConfigurableApplicationContext context;
+    private BankingService bankingService;
+    private Long from;
+    private Long to;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(DemobankApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("demobank.seed.test-user=false", "spring.jpa.show-sql=false", "logging.level.root=WARN")
+                .run();
+        bankingService = context.getBean(BankingService.class);
+        Customer c = new Customer();
+        c.setFirstName("Jmh");
+        c.setEmail("jmh-" + UUID.randomUUID() + "@test");
+        Long customerId = context.getBean(CustomerRepository.class).save(c).getId();
+        from = open(customerId).getId();
+        to = open(customerId).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    private Account open(Long customerId) {
+        AccountDtos.CreateAccountRequest r = new AccountDtos.CreateAccountRequest();
+        r.customerId = customerId;
+        r.accountType = AccountType.CURRENT;
+        r.openingBalance = new BigDecimal("1000000000.00");
+        return bankingService.createAccount(r);
+    }
+
+    @Benchmark
+    public Account deposit() {
+        return bankingService.deposit(to, AMOUNT, "jmh");
+    }
+
+    @Benchmark
+    public Account withdraw() {
+        return bankingService.withdraw(from, AMOUNT, "jmh");
+    }
+
+    @Benchmark
+    public void transfer() {
+        bankingService.transfer(from, to, AMOUNT, "jmh");
+    }
+}
@@ -13,10 +13,18 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 public class DataInitializer {
@@ -29,6 +37,31 @@ public class DataInitializer {
     @Value("${demobank.seed.demo-accounts:true}")
     private boolean seedDemoAccounts;
 
+    /**
+     * Runs before seeding so logins by email work for customers created before email_normalized existed.
+     * Emails that differ only in case or surrounding spaces would break the unique index; those rows
+     * are logged and left NULL (they cannot log in) until an operator merges or corrects them.
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    ApplicationRunner normalizeCustomerEmails(CustomerRepository customerRepository,
+                                              PlatformTransactionManager transactionManager) {
+        return args -> {
+            Integer updated = new TransactionTemplate(transactionManager).execute(status -> {
+                Map<String, List<Long>> collisions = new LinkedHashMap<>();
+                for (Customer c : customerRepository.findEmailCollisions()) {
+                    collisions.computeIfAbsent(Customer.normalizeEmail(c.getEmail()), k -> new ArrayList<>()).add(c.getId());
+                }
+                collisions.forEach((email, ids) -> log.warn(
+                        "Customers {} share the email '{}' once trimmed and lower-cased; rows without email_normalized are left NULL", ids, email));
+                return customerRepository.backfillEmailNormalized();
+            });
+            if (updated != null && updated > 0) {
+                log.info("Backfilled email_normalized for {} customers", updated);
+            }
+        };
+    }
+
     @Bean
     @Transactional
     ApplicationRunner seedDefaultUser(CustomerRepository customerRepository,
@@ -81,6 +114,7 @@ public class DataInitializer {
                     t1.setAccount(savings);
                     t1.setTxnType("DEPOSIT");
                     t1.setAmount(new BigDecimal("1000.00"));
+                    t1.setBalanceAfter(savings.getBalance());
                     t1.setNote("Initial seed");
                     txRepository.save(t1);
 
@@ -88,6 +122,7 @@ public class DataInitializer {
                     t2.setAccount(current);
                     t2.setTxnType("DEPOSIT");
                     t2.setAmount(new BigDecimal("250.00"));
+                    t2.setBalanceAfter(current.getBalance());
                     t2.setNote("Initial seed");
                     txRepository.save(t2);
 
@@ -0,0 +1,19 @@
+package com.training.demobank.config;
+
+import com.training.demobank.controller.ResponseSizeFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /** Response size per GET route; see {@link ResponseSizeFilter}. */
+    @Bean
+    public FilterRegistrationBean<ResponseSizeFilter> responseSizeFilter(MeterRegistry registry) {
+        FilterRegistrationBean<ResponseSizeFilter> registration = new FilterRegistrationBean<>(new ResponseSizeFilter(registry));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -1,5 +1,9 @@
 package com.training.demobank.config;
 
+import com.training.demobank.security.AccessTokenFilter;
+import com.training.demobank.security.AccessTokens;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -7,9 +11,18 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 @Configuration
 public class SecurityBeansConfig {
 
+    /** Cost factor 4..31; every +1 doubles the time per hash. Existing hashes keep their own cost. */
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BCryptPasswordEncoder passwordEncoder(@Value("${demobank.security.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
-}
 
+    /** Bearer token check for the API; {@code demobank.security.token.enforce=true} makes a token mandatory. */
+    @Bean
+    public FilterRegistrationBean<AccessTokenFilter> accessTokenFilter(AccessTokens tokens,
+                                                                       @Value("${demobank.security.token.enforce:false}") boolean enforce) {
+        FilterRegistrationBean<AccessTokenFilter> registration = new FilterRegistrationBean<>(new AccessTokenFilter(tokens, enforce));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
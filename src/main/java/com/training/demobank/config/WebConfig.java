@@ -13,13 +13,17 @@ import java.util.Arrays;
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    // With credentials allowed, browsers take "*" as a literal header name, so every header the
+    // frontend reads is listed
+    private static final String[] EXPOSED_HEADERS = {"X-Next-Cursor", "Retry-After", "Content-Disposition"};
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/api/**")
                 .allowedOrigins("http://localhost:4200", "http://localhost:4201", "http://127.0.0.1:4201")
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
-                .exposedHeaders("*")
+                .exposedHeaders(EXPOSED_HEADERS)
                 .allowCredentials(true)
                 .maxAge(3600);
     }
@@ -30,7 +34,7 @@ public class WebConfig implements WebMvcConfigurer {
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:4200", "http://localhost:4201", "http://127.0.0.1:4201"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
-        configuration.setExposedHeaders(Arrays.asList("*"));
+        configuration.setExposedHeaders(Arrays.asList(EXPOSED_HEADERS));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
@@ -2,30 +2,69 @@ package com.training.demobank.controller;
 
 import com.training.demobank.dto.AccountDtos;
 import com.training.demobank.model.Account;
-import com.training.demobank.model.BankTransaction;
+import com.training.demobank.repository.AccountSummary;
+import com.training.demobank.repository.TransactionFilter;
+import com.training.demobank.repository.TransactionRow;
 import com.training.demobank.service.BankingService;
+import com.training.demobank.service.IdempotencyService;
+import com.training.demobank.service.TransactionExportService;
+import com.training.demobank.service.TransactionPage;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/accounts")
 @CrossOrigin(origins = "http://localhost:4201")
 public class AccountController {
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final String NEXT_CURSOR = "X-Next-Cursor";
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
     private final BankingService bankingService;
+    private final IdempotencyService idempotency;
+    private final TransactionExportService exportService;
+    private final long exportTimeoutMillis;
 
-    public AccountController(BankingService bankingService) {
+    public AccountController(BankingService bankingService, IdempotencyService idempotency,
+                             TransactionExportService exportService,
+                             @Value("${demobank.export.timeout-ms:-1}") long exportTimeoutMillis) {
         this.bankingService = bankingService;
+        this.idempotency = idempotency;
+        this.exportService = exportService;
+        this.exportTimeoutMillis = exportTimeoutMillis;
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public AccountDtos.AccountResponse create(@RequestBody @Valid AccountDtos.CreateAccountRequest req) {
-        return toDto(bankingService.createAccount(req));
+    public AccountDtos.AccountResponse create(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                              @RequestBody @Valid AccountDtos.CreateAccountRequest req) {
+        return idempotent(idempotencyKey, "POST /api/accounts", req, AccountDtos.AccountResponse.class,
+                () -> toDto(bankingService.createAccount(req)));
+    }
+
+    /** Opens up to 10,000 accounts in one transaction; failing items are reported, the rest are opened. */
+    @PostMapping("/bulk")
+    public AccountDtos.BulkCreateAccountsResponse createBulk(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                             @RequestBody @Valid AccountDtos.BulkCreateAccountsRequest req) {
+        return idempotent(idempotencyKey, "POST /api/accounts/bulk", req, AccountDtos.BulkCreateAccountsResponse.class,
+                () -> bankingService.createAccounts(req.accounts));
     }
 
     @GetMapping("/{id}")
@@ -34,18 +73,22 @@ public class AccountController {
     }
 
     @PostMapping("/{id}/deposit")
-    public AccountDtos.AccountResponse deposit(@PathVariable Long id, @RequestBody @Valid AccountDtos.MoneyRequest req) {
-        return toDto(bankingService.deposit(id, req.amount, req.note));
+    public AccountDtos.AccountResponse deposit(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                               @PathVariable Long id, @RequestBody @Valid AccountDtos.MoneyRequest req) {
+        return idempotent(idempotencyKey, "POST /api/accounts/" + id + "/deposit", req, AccountDtos.AccountResponse.class,
+                () -> toDto(bankingService.deposit(id, req.amount, req.note)));
     }
 
     @PostMapping("/{id}/withdraw")
-    public AccountDtos.AccountResponse withdraw(@PathVariable Long id, @RequestBody @Valid AccountDtos.MoneyRequest req) {
-        return toDto(bankingService.withdraw(id, req.amount, req.note));
+    public AccountDtos.AccountResponse withdraw(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                @PathVariable Long id, @RequestBody @Valid AccountDtos.MoneyRequest req) {
+        return idempotent(idempotencyKey, "POST /api/accounts/" + id + "/withdraw", req, AccountDtos.AccountResponse.class,
+                () -> toDto(bankingService.withdraw(id, req.amount, req.note)));
     }
 
     @GetMapping
     public List<AccountDtos.AccountResponse> getAllAccounts(@RequestParam(required = false) Long customerId) {
-        List<Account> accounts;
+        List<AccountSummary> accounts;
         if (customerId != null) {
             accounts = bankingService.getAccountsByCustomerId(customerId);
         } else {
@@ -54,50 +97,146 @@ public class AccountController {
         return accounts.stream().map(AccountController::toDto).toList();
     }
 
+    /**
+     * Newest first, {@code limit} rows per call. When more rows exist the response carries an
+     * opaque {@code X-Next-Cursor} header; send it back as {@code cursor} for the next page.
+     * {@code from} (inclusive) and {@code to} (exclusive) are ISO-8601 instants.
+     */
     @GetMapping("/transactions")
-    public List<AccountDtos.TransactionResponse> getAllTransactions(@RequestParam(required = false) Long accountId) {
-        List<BankTransaction> txns;
-        if (accountId != null) {
-            txns = bankingService.listTransactions(accountId);
-        } else {
-            txns = bankingService.getAllTransactions();
+    public ResponseEntity<List<AccountDtos.TransactionResponse>> getAllTransactions(
+            @RequestParam(required = false) Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String txnType,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return toPageResponse(bankingService.listTransactions(new TransactionFilter(accountId, from, to, txnType), cursor, limit));
+    }
+
+    /**
+     * Full transaction dump in id order as NDJSON ({@code format=ndjson}, default) or CSV, streamed
+     * row by row and gzip-compressed when the client accepts it. To resume an interrupted export,
+     * pass the last received id as {@code afterId}. The stream has its own async timeout
+     * ({@code demobank.export.timeout-ms}, none by default); other async requests keep the MVC default.
+     */
+    @GetMapping("/transactions/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(required = false) Long accountId,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletRequest request) {
+        TransactionExportService.Format f = switch (format.toLowerCase()) {
+            case "ndjson" -> TransactionExportService.Format.NDJSON;
+            case "csv" -> TransactionExportService.Format.CSV;
+            default -> throw new IllegalArgumentException("format must be ndjson or csv");
+        };
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        ResponseEntity.BodyBuilder res = ResponseEntity.ok()
+                .contentType(f == TransactionExportService.Format.CSV ? TEXT_CSV : APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions." + format.toLowerCase() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            res.header(HttpHeaders.CONTENT_ENCODING, "gzip");
         }
-        return txns.stream().map(this::toTxnDto).toList();
+        // applied when the body starts streaming; a full dump can outlast any fixed timeout
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeoutMillis);
+        return res.body(out -> {
+            if (gzip) {
+                GZIPOutputStream zipped = new GZIPOutputStream(out, 64 * 1024);
+                exportService.export(accountId, afterId, f, zipped);
+                zipped.finish();
+            } else {
+                exportService.export(accountId, afterId, f, out);
+            }
+        });
     }
 
     @GetMapping("/{id}/transactions")
-    public List<AccountDtos.TransactionResponse> getTransactionsForAccount(@PathVariable Long id) {
-        return bankingService.listTransactions(id).stream().map(this::toTxnDto).toList();
+    public ResponseEntity<List<AccountDtos.TransactionResponse>> getTransactionsForAccount(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String txnType,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return toPageResponse(bankingService.listTransactions(new TransactionFilter(id, from, to, txnType), cursor, limit));
     }
 
     @PostMapping("/transfer")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void transfer(@RequestBody @Valid AccountDtos.TransferRequest req) {
-        bankingService.transfer(req.fromAccountId, req.toAccountId, req.amount, req.note);
+    public void transfer(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                         @RequestBody @Valid AccountDtos.TransferRequest req) {
+        idempotent(idempotencyKey, "POST /api/accounts/transfer", req, Void.class, () -> {
+            bankingService.transfer(req.fromAccountId, req.toAccountId, req.amount, req.note);
+            return null;
+        });
+    }
+
+    @PutMapping("/{id}/stripes")
+    public AccountDtos.AccountResponse configureStripes(@PathVariable Long id, @RequestBody @Valid AccountDtos.StripeConfigRequest req) {
+        return toDto(bankingService.configureStripes(id, req.stripes));
+    }
+
+    @PostMapping("/transfers/batch")
+    public AccountDtos.BatchTransferResponse transferBatch(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                           @RequestBody @Valid AccountDtos.BatchTransferRequest req) {
+        return idempotent(idempotencyKey, "POST /api/accounts/transfers/batch", req, AccountDtos.BatchTransferResponse.class,
+                () -> bankingService.transferBatch(req.transfers, req.atomic));
     }
 
-    private static AccountDtos.AccountResponse toDto(Account a) {
+    // Without the header a POST behaves as before: every call is applied
+    private <T> T idempotent(String key, String scope, Object req, Class<T> type, Supplier<T> action) {
+        return key == null ? action.get() : idempotency.execute(key, scope, req, type, action);
+    }
+
+    private ResponseEntity<List<AccountDtos.TransactionResponse>> toPageResponse(TransactionPage page) {
+        ResponseEntity.BodyBuilder res = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            res.header(NEXT_CURSOR, page.nextCursor());
+        }
+        return res.body(page.items().stream().map(AccountController::toTxnDto).toList());
+    }
+
+    static AccountDtos.AccountResponse toDto(Account a) {
         AccountDtos.AccountResponse dto = new AccountDtos.AccountResponse();
         dto.id = a.getId();
         dto.accountNumber = a.getAccountNumber();
         dto.customerId = a.getCustomer() != null ? a.getCustomer().getId() : null;
         dto.accountType = a.getAccountType();
-        dto.balance = a.getBalance();
+        dto.balance = a.getTotalBalance();
         dto.openedAt = a.getOpenedAt();
         dto.interestRate = a.getInterestRate();
         dto.overdraftLimit = a.getOverdraftLimit();
         dto.status = a.getStatus();
+        dto.stripeCount = a.getStripeCount() == null ? 0 : a.getStripeCount();
+        return dto;
+    }
+
+    private static AccountDtos.AccountResponse toDto(AccountSummary a) {
+        AccountDtos.AccountResponse dto = new AccountDtos.AccountResponse();
+        dto.id = a.id();
+        dto.accountNumber = a.accountNumber();
+        dto.customerId = a.customerId();
+        dto.accountType = a.accountType();
+        dto.balance = a.balance();
+        dto.openedAt = a.openedAt();
+        dto.interestRate = a.interestRate();
+        dto.overdraftLimit = a.overdraftLimit();
+        dto.status = a.status();
+        dto.stripeCount = a.stripeCount() == null ? 0 : a.stripeCount();
         return dto;
     }
 
-    private AccountDtos.TransactionResponse toTxnDto(BankTransaction t) {
+    static AccountDtos.TransactionResponse toTxnDto(TransactionRow t) {
         AccountDtos.TransactionResponse dto = new AccountDtos.TransactionResponse();
-        dto.id = t.getId();
-        dto.accountId = t.getAccount() != null ? t.getAccount().getId() : null;
-        dto.txnType = t.getTxnType();
-        dto.amount = t.getAmount();
-        dto.txnDate = t.getTxnDate();
-        dto.note = t.getNote();
+        dto.id = t.id();
+        dto.accountId = t.accountId();
+        dto.txnType = t.txnType();
+        dto.amount = t.amount();
+        dto.balanceAfter = t.balanceAfter();
+        dto.txnDate = t.txnDate();
+        dto.note = t.note();
         return dto;
     }
 }
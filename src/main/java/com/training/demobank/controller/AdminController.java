@@ -0,0 +1,98 @@
+package com.training.demobank.controller;
+
+import com.training.demobank.ledger.LedgerJournal;
+import com.training.demobank.model.InterestRun;
+import com.training.demobank.service.BalanceAfterBackfill;
+import com.training.demobank.service.InterestBatchService;
+import com.training.demobank.service.LookupCache;
+import com.training.demobank.service.PasswordHasher;
+import com.training.demobank.service.PostingExecutor;
+import com.training.demobank.service.ReconciliationService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin(origins = "http://localhost:4201")
+public class AdminController {
+    private final PostingExecutor postingExecutor;
+    private final LedgerJournal journal; // null unless the ledger journal is enabled
+    private final BalanceAfterBackfill balanceAfterBackfill;
+    private final InterestBatchService interestBatch;
+    private final ReconciliationService reconciliation;
+    private final LookupCache lookupCache;
+    private final PasswordHasher passwordHasher;
+
+    public AdminController(PostingExecutor postingExecutor,
+                           ObjectProvider<LedgerJournal> journal,
+                           BalanceAfterBackfill balanceAfterBackfill,
+                           InterestBatchService interestBatch,
+                           ReconciliationService reconciliation,
+                           LookupCache lookupCache,
+                           PasswordHasher passwordHasher) {
+        this.postingExecutor = postingExecutor;
+        this.journal = journal.getIfAvailable();
+        this.balanceAfterBackfill = balanceAfterBackfill;
+        this.interestBatch = interestBatch;
+        this.reconciliation = reconciliation;
+        this.lookupCache = lookupCache;
+        this.passwordHasher = passwordHasher;
+    }
+
+    @GetMapping("/postings/stats")
+    public Map<String, Object> postingStats() {
+        return postingExecutor.stats();
+    }
+
+    @GetMapping("/cache/stats")
+    public Map<String, Object> cacheStats() {
+        return lookupCache.stats();
+    }
+
+    @GetMapping("/hashing/stats")
+    public Map<String, Object> hashingStats() {
+        return passwordHasher.stats();
+    }
+
+    @GetMapping("/journal/stats")
+    public Map<String, Object> journalStats() {
+        if (journal == null) {
+            throw new IllegalArgumentException("Ledger journal is not enabled");
+        }
+        return journal.stats();
+    }
+
+    @PostMapping("/backfill/balance-after")
+    public BalanceAfterBackfill.Result backfillBalanceAfter() {
+        return balanceAfterBackfill.run();
+    }
+
+    /** Runs (or resumes) interest accrual for {@code date}, default yesterday (UTC). */
+    @PostMapping("/interest/accrual")
+    public InterestBatchService.Result accrueInterest(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return interestBatch.run(InterestRun.Type.ACCRUAL, date != null ? date : yesterday());
+    }
+
+    /** Capitalizes accrued interest as of {@code date}, normally the last day of a month. */
+    @PostMapping("/interest/capitalization")
+    public InterestBatchService.Result capitalizeInterest(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return interestBatch.run(InterestRun.Type.CAPITALIZATION, date != null ? date : yesterday());
+    }
+
+    /** Checks balances against transactions added since the last run ({@code full=true}: all of them). */
+    @PostMapping("/reconciliation")
+    public ReconciliationService.Result reconcile(@RequestParam(defaultValue = "false") boolean full) {
+        return reconciliation.run(full);
+    }
+
+    private static LocalDate yesterday() {
+        return LocalDate.now(ZoneOffset.UTC).minusDays(1);
+    }
+}
@@ -1,25 +1,30 @@
 package com.training.demobank.controller;
 
 import com.training.demobank.model.Customer;
+import com.training.demobank.security.AccessTokens;
 import com.training.demobank.service.BankingService;
+import com.training.demobank.service.PasswordHasher;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = "http://localhost:4201")
 public class AuthController {
     private final BankingService bankingService;
-    private final BCryptPasswordEncoder passwordEncoder; // now mandatory
+    private final PasswordHasher passwordHasher; // BCrypt on its own bounded pool, not on request threads
+    private final AccessTokens accessTokens;
     private static final String INVALID_MESSAGE = "Invalid credentials"; // Unified failure message
 
-    public AuthController(BankingService bankingService, BCryptPasswordEncoder passwordEncoder) {
+    public AuthController(BankingService bankingService, PasswordHasher passwordHasher, AccessTokens accessTokens) {
         this.bankingService = bankingService;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
+        this.accessTokens = accessTokens;
     }
 
     @PostMapping("/login")
@@ -33,13 +38,15 @@ public class AuthController {
         try {
             Customer customer = bankingService.getCustomerByEmail(request.getEmail().trim());
             String stored = customer.getPasswordHash();
-            if (stored == null || stored.isBlank() || !passwordEncoder.matches(request.getPassword(), stored)) {
+            if (stored == null || stored.isBlank() || !passwordHasher.matches(request.getPassword(), stored)) {
                 throw new IllegalArgumentException("Password mismatch");
             }
             response.put("success", true);
             response.put("message", "Login successful");
-            response.put("token", generatePseudoToken(customer.getId()));
+            response.put("token", accessTokens.issue(customer.getId()));
             response.put("user", toUserMap(customer));
+        } catch (RejectedExecutionException e) {
+            throw e; // hashing pool saturated: 503, not a credentials failure
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", INVALID_MESSAGE);
@@ -63,15 +70,15 @@ public class AuthController {
             req.email = request.getEmail();
             req.phone = request.getPhone();
             req.dob = request.getDob();
-            Customer c = bankingService.createCustomer(req);
-            if (!isBlank(request.getPassword())) {
-                String hash = passwordEncoder.encode(request.getPassword());
-                c = bankingService.updatePasswordHash(c.getId(), hash);
-            }
+            // hash first: a 503 from the hashing pool must not leave a customer without a password
+            String hash = isBlank(request.getPassword()) ? null : passwordHasher.encode(request.getPassword());
+            Customer c = bankingService.createCustomer(req, hash);
             response.put("success", true);
             response.put("message", "Registration successful");
-            response.put("token", generatePseudoToken(c.getId()));
+            response.put("token", accessTokens.issue(c.getId()));
             response.put("user", toUserMap(c));
+        } catch (RejectedExecutionException e) {
+            throw e;
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", INVALID_MESSAGE);
@@ -79,9 +86,19 @@ public class AuthController {
         return response;
     }
 
+    /** Revokes the bearer token until it would have expired. */
+    @PostMapping("/logout")
+    public Map<String, Object> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        Map<String, Object> response = new HashMap<>();
+        boolean revoked = authorization != null && authorization.startsWith("Bearer ")
+                && accessTokens.revoke(authorization.substring("Bearer ".length()));
+        response.put("success", revoked);
+        response.put("message", revoked ? "Logged out" : INVALID_MESSAGE);
+        return response;
+    }
+
     // Helper methods
     private boolean isBlank(String s){ return s == null || s.trim().isEmpty(); }
-    private String generatePseudoToken(Long id){ return "demo-token-"+id+"-"+System.currentTimeMillis(); }
 
     private Map<String,Object> toUserMap(Customer c) {
         Map<String,Object> m = new HashMap<>();
@@ -3,18 +3,32 @@ package com.training.demobank.controller;
 import com.training.demobank.dto.CustomerDtos;
 import com.training.demobank.model.Customer;
 import com.training.demobank.service.BankingService;
+import com.training.demobank.service.CustomerImportService;
 import jakarta.validation.Valid;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/customers")
 @CrossOrigin(origins = "http://localhost:4201")
 public class CustomerController {
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
     private final BankingService bankingService;
+    private final CustomerImportService importService;
 
-    public CustomerController(BankingService bankingService) {
+    public CustomerController(BankingService bankingService, CustomerImportService importService) {
         this.bankingService = bankingService;
+        this.importService = importService;
     }
 
     @PostMapping
@@ -29,6 +43,37 @@ public class CustomerController {
         return toDto(bankingService.getCustomer(id));
     }
 
+    /**
+     * Bulk import from a CSV request body with a header row ({@code firstName,lastName,email,phone,dob}).
+     * The body is read as a stream, so send it raw ({@code curl --data-binary @customers.csv}), not as
+     * multipart. Answers when the file is done; poll {@code /imports/{id}} from another client meanwhile.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public CustomerImportService.Progress importCsv(InputStream body) {
+        return importService.importCsv(body);
+    }
+
+    @GetMapping("/imports")
+    public List<CustomerImportService.Progress> imports() {
+        return importService.recent();
+    }
+
+    @GetMapping("/imports/{id}")
+    public CustomerImportService.Progress importProgress(@PathVariable String id) {
+        return importService.progress(id);
+    }
+
+    /** Rejected rows as CSV: source line, reason, then the row's values. */
+    @GetMapping("/imports/{id}/rejects")
+    public ResponseEntity<Resource> importRejects(@PathVariable String id) throws IOException {
+        FileSystemResource file = new FileSystemResource(importService.rejectsFile(id));
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .contentLength(file.contentLength())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + id + "-rejects.csv\"")
+                .body(file);
+    }
+
     private static CustomerDtos.CustomerResponse toDto(Customer c) {
         CustomerDtos.CustomerResponse dto = new CustomerDtos.CustomerResponse();
         dto.id = c.getId();
@@ -1,13 +1,17 @@
 package com.training.demobank.controller;
 
+import com.training.demobank.ledger.PostingOutcomeUnknownException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -36,4 +40,24 @@ public class GlobalExceptionHandler {
         body.put("message", ex.getMessage());
         return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
     }
+
+    /** Hashing pool full, or no database connection within Hikari's connection-timeout. */
+    @ExceptionHandler({RejectedExecutionException.class, CannotCreateTransactionException.class})
+    public ResponseEntity<Map<String, Object>> overloaded(RuntimeException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "overloaded");
+        body.put("message", ex instanceof RejectedExecutionException ? ex.getMessage() : "Service busy, please retry");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(body);
+    }
+
+    /** Engine mode: the journal did not confirm the posting in time. No Retry-After, since a retry may post twice. */
+    @ExceptionHandler(PostingOutcomeUnknownException.class)
+    public ResponseEntity<Map<String, Object>> outcomeUnknown(PostingOutcomeUnknownException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "outcome_unknown");
+        body.put("message", ex.getMessage() + "; check the account's transactions before retrying");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(body);
+    }
 }
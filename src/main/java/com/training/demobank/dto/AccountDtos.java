@@ -1,11 +1,17 @@
 package com.training.demobank.dto;
 
 import com.training.demobank.model.AccountType;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
 
 public class AccountDtos {
     public static class CreateAccountRequest {
@@ -19,6 +25,26 @@ public class AccountDtos {
         public String accountNumber; // optional custom number
     }
 
+    public static class BulkCreateAccountsRequest {
+        @NotEmpty
+        @Size(max = 10000)
+        public List<@Valid @NotNull CreateAccountRequest> accounts;
+    }
+
+    public static class BulkCreateAccountItemResult {
+        public int index;
+        public boolean success;
+        public String message; // failure reason
+        public Long accountId;
+        public String accountNumber;
+    }
+
+    public static class BulkCreateAccountsResponse {
+        public int succeeded;
+        public int failed;
+        public List<BulkCreateAccountItemResult> results;
+    }
+
     public static class AccountResponse {
         public Long id;
         public String accountNumber;
@@ -29,6 +55,14 @@ public class AccountDtos {
         public BigDecimal interestRate;
         public BigDecimal overdraftLimit;
         public String status;
+        public int stripeCount; // > 0 for hot accounts whose credits are striped
+    }
+
+    public static class StripeConfigRequest {
+        @NotNull
+        @Min(0)
+        @Max(64)
+        public Integer stripes;
     }
 
     public static class BalanceResponse {
@@ -54,11 +88,33 @@ public class AccountDtos {
         public String note;
     }
 
+    public static class BatchTransferRequest {
+        @NotEmpty
+        @Size(max = 10000)
+        public List<@Valid @NotNull TransferRequest> transfers;
+        public Boolean atomic; // all-or-nothing; null uses demobank.transfers.batch.atomic
+    }
+
+    public static class BatchTransferItemResult {
+        public int index;
+        public boolean success;
+        public String message; // failure reason, or "not applied" when an atomic batch was rolled back
+    }
+
+    public static class BatchTransferResponse {
+        public boolean atomic;
+        public boolean applied;
+        public int succeeded;
+        public int failed;
+        public List<BatchTransferItemResult> results;
+    }
+
     public static class TransactionResponse {
         public Long id;
         public Long accountId;
         public String txnType;
         public BigDecimal amount;
+        public BigDecimal balanceAfter; // null only for rows not yet backfilled
         public Instant txnDate;
         public String note;
     }
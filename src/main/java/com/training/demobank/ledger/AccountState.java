@@ -0,0 +1,54 @@
+package com.training.demobank.ledger;
+
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.Customer;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * In-memory copy of an account owned by exactly one shard thread; never shared.
+ */
+final class AccountState {
+    final Long id;
+    final String accountNumber;
+    final Long customerId;
+    final AccountType accountType;
+    final Instant openedAt;
+    final BigDecimal interestRate;
+    final BigDecimal overdraftLimit;
+    final String status;
+    BigDecimal balance;
+
+    AccountState(Account a) {
+        this.id = a.getId();
+        this.accountNumber = a.getAccountNumber();
+        this.customerId = a.getCustomer() != null ? a.getCustomer().getId() : null;
+        this.accountType = a.getAccountType();
+        this.openedAt = a.getOpenedAt();
+        this.interestRate = a.getInterestRate();
+        this.overdraftLimit = a.getOverdraftLimit();
+        this.status = a.getStatus();
+        this.balance = a.getBalance() == null ? BigDecimal.ZERO : a.getBalance();
+    }
+
+    /** Detached view handed back to callers; not attached to any persistence context. */
+    Account snapshot() {
+        Account a = new Account();
+        a.setId(id);
+        a.setAccountNumber(accountNumber);
+        if (customerId != null) {
+            Customer c = new Customer();
+            c.setId(customerId);
+            a.setCustomer(c);
+        }
+        a.setAccountType(accountType);
+        a.setBalance(balance);
+        a.setOpenedAt(openedAt);
+        a.setInterestRate(interestRate);
+        a.setOverdraftLimit(overdraftLimit);
+        a.setStatus(status);
+        return a;
+    }
+}
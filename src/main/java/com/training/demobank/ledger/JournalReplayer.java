@@ -0,0 +1,184 @@
+package com.training.demobank.ledger;
+
+import com.training.demobank.model.Account;
+import com.training.demobank.model.BankTransaction;
+import com.training.demobank.model.LedgerCheckpoint;
+import com.training.demobank.repository.AccountLastPosting;
+import com.training.demobank.repository.AccountRepository;
+import com.training.demobank.repository.BankTransactionRepository;
+import com.training.demobank.repository.LedgerCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Restores the postings that were durable in a {@link LedgerJournal} but not yet written by
+ * {@link LedgerWriter} when the process stopped, i.e. the records after the {@link LedgerCheckpoint}.
+ * <p>
+ * {@link LedgerEngine} runs {@link #recover} before loading balances. Every replayed record becomes
+ * a {@code transactions} row, and each account's balance is set from its last record (every
+ * record carries the balance right after its posting). The rows, the balances and the move of the
+ * checkpoint to the end of the journal commit in one transaction, so the journal segments deleted
+ * behind the checkpoint never hold the only copy of a posting. Replay holds the records in memory;
+ * there are at most as many as the writer had queued.
+ * <p>
+ * A {@code TRANSFER_OUT} whose closing leg never reached the journal belongs to a transfer that
+ * was interrupted before it was acknowledged. Every later record of its account includes the
+ * debit, so the amount is credited back with a {@code TRANSFER_REVERSAL} row after that account's
+ * last record.
+ * <p>
+ * An account whose latest {@code transactions} row is newer than its last replayed record was
+ * changed outside the engine since (e.g. a run in {@code jpa} mode); its records are skipped with
+ * a warning and it keeps its database balance and history.
+ */
+@Component
+@ConditionalOnExpression("'${demobank.ledger.mode:jpa}' == 'engine' and ${demobank.journal.enabled:false}")
+public class JournalReplayer {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalReplayer.class);
+    private static final int CHUNK_SIZE = 1000;
+
+    private final AccountRepository accountRepository;
+    private final BankTransactionRepository transactionRepository;
+    private final LedgerCheckpointRepository checkpointRepository;
+    private final TransactionTemplate tx;
+    private final boolean onStartup;
+
+    public JournalReplayer(AccountRepository accountRepository,
+                           BankTransactionRepository transactionRepository,
+                           LedgerCheckpointRepository checkpointRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${demobank.journal.replay-on-startup:true}") boolean onStartup) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.onStartup = onStartup;
+    }
+
+    /**
+     * Replays the records after the checkpoint (when {@code demobank.journal.replay-on-startup})
+     * and returns the checkpoint the journal can delete segments up to.
+     */
+    public long recover(LedgerJournal journal) {
+        long stored = checkpoint();
+        long last = journal.lastSeq();
+        if (stored > last) {
+            // The writer committed past the end of this journal, so its records cannot be matched to the database
+            log.error("Ledger checkpoint {} is beyond the journal at {} (last sequence {}); not replaying it",
+                    stored, journal.dir(), last);
+            tx.executeWithoutResult(status -> checkpointRepository.reset(last, Instant.now()));
+            return last;
+        }
+        if (!onStartup || last == stored) {
+            return stored;
+        }
+        replay(journal.dir(), stored, last);
+        return last;
+    }
+
+    /** The stored checkpoint, creating the row on first use. */
+    long checkpoint() {
+        return tx.execute(status -> checkpointRepository.findById(LedgerCheckpoint.ID)
+                .orElseGet(() -> checkpointRepository.save(new LedgerCheckpoint()))
+                .getJournalSeq());
+    }
+
+    /**
+     * Writes the records in {@code (afterSeq, toSeq]} and advances the checkpoint to {@code toSeq},
+     * in one transaction; returns the number of account rows whose balance was changed.
+     */
+    public int replay(Path journalDir, long afterSeq, long toSeq) {
+        List<LedgerJournal.Record> records = new ArrayList<>();
+        Map<Long, LedgerEntry> last = new HashMap<>();
+        Map<Long, LedgerEntry> openTransfers = new LinkedHashMap<>(); // TRANSFER_OUT by sequence
+        LedgerJournal.read(journalDir, afterSeq, r -> {
+            if (r.seq() > toSeq) return;
+            LedgerEntry e = r.entry();
+            records.add(r);
+            last.put(e.accountId(), e);
+            if (e.transferDelta() > 0) {
+                openTransfers.put(r.seq(), e);
+            } else if (e.transferDelta() < 0 && e.transferOf() > 0) {
+                openTransfers.remove(e.transferOf());
+            }
+        });
+        List<Long> ids = new ArrayList<>(last.keySet());
+        int[] counts = tx.execute(status -> {
+            Map<Long, Account> accounts = new HashMap<>();
+            Map<Long, Instant> lastPosted = new HashMap<>();
+            for (int i = 0; i < ids.size(); i += CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(i, Math.min(i + CHUNK_SIZE, ids.size()));
+                for (AccountLastPosting p : transactionRepository.findLastPostings(chunk)) {
+                    lastPosted.put(p.accountId(), p.lastTxnDate());
+                }
+                for (Account a : accountRepository.findAllWithLockingByIdIn(chunk)) {
+                    Instant posted = lastPosted.get(a.getId());
+                    LedgerEntry entry = last.get(a.getId());
+                    if (posted != null && posted.isAfter(entry.txnDate())) {
+                        log.warn("Account {} was posted to at {}, after its last journal record ({}); keeping the database balance and history",
+                                a.getId(), posted, entry.txnDate());
+                    } else {
+                        accounts.put(a.getId(), a);
+                    }
+                }
+            }
+            List<BankTransaction> rows = new ArrayList<>(records.size() + openTransfers.size());
+            Map<Long, BigDecimal> balances = new HashMap<>();
+            for (LedgerJournal.Record r : records) {
+                Account a = accounts.get(r.entry().accountId());
+                if (a == null) continue;
+                rows.add(row(a, r.entry()));
+                balances.put(a.getId(), r.entry().balanceAfter());
+            }
+            Instant now = Instant.now();
+            openTransfers.forEach((seq, debit) -> {
+                Account a = accounts.get(debit.accountId());
+                if (a == null) return;
+                log.warn("Journal record {} debits {} from account {} for a transfer that was never credited; reversing it",
+                        seq, debit.amount(), debit.accountId());
+                BigDecimal balance = balances.get(a.getId()).add(debit.amount());
+                balances.put(a.getId(), balance);
+                rows.add(row(a, new LedgerEntry(a.getId(), "TRANSFER_REVERSAL", debit.amount(), balance, debit.note(), now, seq)));
+            });
+            int changed = 0;
+            for (Account a : accounts.values()) {
+                BigDecimal balance = balances.get(a.getId());
+                if (a.getBalance() == null || a.getBalance().compareTo(balance) != 0) {
+                    a.setBalance(balance);
+                    changed++;
+                }
+            }
+            transactionRepository.saveAll(rows);
+            checkpointRepository.advance(toSeq, now);
+            return new int[] {changed, rows.size(), ids.size() - accounts.size()};
+        });
+        log.info("Replayed {} journal records after sequence {} over {} accounts: {} transactions written, {} balances corrected, {} accounts skipped",
+                records.size(), afterSeq, ids.size(), counts[1], counts[0], counts[2]);
+        return counts[0];
+    }
+
+    private static BankTransaction row(Account account, LedgerEntry e) {
+        BankTransaction t = new BankTransaction();
+        t.setAccount(account);
+        t.setTxnType(e.txnType());
+        t.setAmount(e.amount());
+        t.setBalanceAfter(e.balanceAfter());
+        t.setNote(e.note());
+        t.setTxnDate(e.txnDate());
+        return t;
+    }
+}
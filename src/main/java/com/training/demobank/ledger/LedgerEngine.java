@@ -0,0 +1,272 @@
+package com.training.demobank.ledger;
+
+import com.training.demobank.model.Account;
+import com.training.demobank.repository.AccountRepository;
+import com.training.demobank.repository.AccountStripeRepository;
+import com.training.demobank.service.BalanceRules;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * In-memory ledger used when {@code demobank.ledger.mode=engine}.
+ * <p>
+ * Balances live in single-writer shards keyed by account id, so deposits, withdrawals and
+ * transfers never take a database row lock. Postings are handed to {@link LedgerWriter}, which
+ * persists them asynchronously; the database is therefore eventually consistent with the engine,
+ * and this mode assumes it is the only writer of {@code accounts.balance}.
+ * <p>
+ * With {@code demobank.journal.enabled=true} every posting is also appended to the
+ * {@link LedgerJournal}, and a call returns only once its records are on disk. If that takes longer
+ * than the fsync timeout the posting has still been applied, so the call fails with
+ * {@link PostingOutcomeUnknownException} rather than a retryable error.
+ */
+@Component
+@ConditionalOnProperty(name = "demobank.ledger.mode", havingValue = "engine")
+public class LedgerEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerEngine.class);
+    private static final int RECOVERY_PAGE_SIZE = 1000;
+
+    private final AccountRepository accountRepository;
+    private final AccountStripeRepository stripeRepository;
+    private final LedgerWriter writer;
+    private final LedgerJournal journal; // null unless demobank.journal.enabled=true
+    private final JournalReplayer replayer;
+    private final LedgerShard[] shards;
+    private final Object journalOrder = new Object();
+
+    @Autowired
+    public LedgerEngine(AccountRepository accountRepository,
+                        AccountStripeRepository stripeRepository,
+                        LedgerWriter writer,
+                        ObjectProvider<LedgerJournal> journal,
+                        ObjectProvider<JournalReplayer> replayer,
+                        @Value("${demobank.ledger.shards:0}") int shardCount) {
+        this(accountRepository, stripeRepository, writer, journal.getIfAvailable(), replayer.getIfAvailable(), shardCount);
+    }
+
+    LedgerEngine(AccountRepository accountRepository,
+                 AccountStripeRepository stripeRepository,
+                 LedgerWriter writer,
+                 LedgerJournal journal,
+                 JournalReplayer replayer,
+                 int shardCount) {
+        this.accountRepository = accountRepository;
+        this.stripeRepository = stripeRepository;
+        this.writer = writer;
+        this.journal = journal;
+        this.replayer = replayer;
+        int n = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new LedgerShard[n];
+        for (int i = 0; i < n; i++) {
+            shards[i] = new LedgerShard(i, accountRepository);
+        }
+    }
+
+    /** Loads every account balance from the database before the engine takes traffic. */
+    @PostConstruct
+    void recover() {
+        // The engine owns accounts.balance outright; hot-account stripes would be counted twice
+        if (stripeRepository.countWithBalance() > 0) {
+            throw new IllegalStateException("Striped accounts hold unswept credits; set their stripe count to 0 before enabling the ledger engine");
+        }
+        if (journal != null && replayer != null) {
+            journal.checkpoint(replayer.recover(journal));
+            int deleted = journal.deleteCheckpointedSegments();
+            if (deleted > 0) log.info("Deleted {} checkpointed journal segments", deleted);
+            writer.onCheckpoint(journal::checkpoint);
+        }
+        long loaded = 0;
+        PageRequest pageRequest = PageRequest.of(0, RECOVERY_PAGE_SIZE, Sort.by("id"));
+        Page<Account> page;
+        do {
+            page = accountRepository.findAll(pageRequest);
+            List<List<AccountState>> perShard = new ArrayList<>(shards.length);
+            for (int i = 0; i < shards.length; i++) perShard.add(new ArrayList<>());
+            for (Account a : page) {
+                perShard.get(shardIndex(a.getId())).add(new AccountState(a));
+            }
+            for (int i = 0; i < shards.length; i++) {
+                shards[i].load(perShard.get(i)).join();
+            }
+            loaded += page.getNumberOfElements();
+            pageRequest = pageRequest.next();
+        } while (page.hasNext());
+        log.info("Ledger engine recovered {} accounts into {} shards", loaded, shards.length);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        for (LedgerShard s : shards) s.shutdown();
+        writer.shutdown();
+    }
+
+    public Account deposit(Long accountId, BigDecimal amount, String note) {
+        BalanceRules.requirePositive(amount);
+        Posted posted = await(shardFor(accountId).submit(shard -> {
+            AccountState s = shard.state(accountId);
+            BalanceRules.ensureActive(s.status);
+            long seq = credit(s, "DEPOSIT", amount, note);
+            return new Posted(s.snapshot(), seq);
+        }));
+        awaitDurable(posted.seq());
+        return posted.account();
+    }
+
+    public Account withdraw(Long accountId, BigDecimal amount, String note) {
+        BalanceRules.requirePositive(amount);
+        Posted posted = await(shardFor(accountId).submit(shard -> {
+            AccountState s = shard.state(accountId);
+            BalanceRules.ensureActive(s.status);
+            long seq = debit(s, "WITHDRAWAL", amount, note);
+            return new Posted(s.snapshot(), seq);
+        }));
+        awaitDurable(posted.seq());
+        return posted.account();
+    }
+
+    /**
+     * Validates the destination on its shard, debits the source on its shard, then credits the
+     * destination. {@link LedgerWriter} holds the debit until the credit arrives and commits both
+     * in one batch. If the credit fails the debit is reversed on the source, and the writer
+     * commits the debit with its reversal instead.
+     */
+    public void transfer(Long fromAccountId, Long toAccountId, BigDecimal amount, String note) {
+        if (fromAccountId.equals(toAccountId)) {
+            throw new IllegalArgumentException("Cannot transfer to the same account");
+        }
+        BalanceRules.requirePositive(amount);
+        LedgerShard toShard = shardFor(toAccountId);
+        await(toShard.submit(shard -> {
+            BalanceRules.ensureActive(shard.state(toAccountId).status);
+            return null;
+        }));
+        long debitSeq = await(shardFor(fromAccountId).submit(shard -> {
+            AccountState from = shard.state(fromAccountId);
+            BalanceRules.ensureActive(from.status);
+            return debit(from, "TRANSFER_OUT", amount, note);
+        }));
+        long seq;
+        try {
+            seq = await(toShard.submit(shard -> credit(shard.state(toAccountId), "TRANSFER_IN", amount, note, debitSeq)));
+        } catch (RuntimeException e) {
+            reverse(fromAccountId, amount, note, debitSeq);
+            throw e;
+        }
+        // journal durability is prefix-ordered, so waiting for the credit covers the debit too
+        awaitDurable(seq);
+    }
+
+    /**
+     * Credits a failed transfer back to its source. The reversal is queued even if it cannot be
+     * journaled, so the writer is never left holding the debit; replay then sees a debit with no
+     * closing leg and credits it back as well.
+     */
+    private void reverse(Long fromAccountId, BigDecimal amount, String note, long debitSeq) {
+        try {
+            await(shardFor(fromAccountId).submit(shard -> {
+                AccountState from = shard.state(fromAccountId);
+                BigDecimal newBalance = from.balance.add(amount);
+                LedgerEntry entry = new LedgerEntry(from.id, "TRANSFER_REVERSAL", amount, newBalance, note, Instant.now(), debitSeq);
+                synchronized (journalOrder) {
+                    long seq = 0;
+                    if (journal != null) {
+                        try {
+                            seq = journal.append(entry);
+                        } catch (RuntimeException e) {
+                            log.error("Could not journal the reversal of transfer leg {} on account {}", debitSeq, from.id, e);
+                        }
+                    }
+                    writer.append(entry, seq);
+                }
+                from.balance = newBalance;
+                return null;
+            }));
+        } catch (RuntimeException e) {
+            log.error("Could not reverse the debit of a failed transfer from account {} ({})", fromAccountId, amount, e);
+        }
+    }
+
+    public LedgerWriter writer() {
+        return writer;
+    }
+
+    public LedgerJournal journal() {
+        return journal;
+    }
+
+    // Both post before they apply, so a posting that cannot be journaled leaves the balance alone
+
+    private long credit(AccountState s, String type, BigDecimal amount, String note) {
+        return credit(s, type, amount, note, 0);
+    }
+
+    private long credit(AccountState s, String type, BigDecimal amount, String note, long transferOf) {
+        BigDecimal newBalance = s.balance.add(amount);
+        long seq = post(new LedgerEntry(s.id, type, amount, newBalance, note, Instant.now(), transferOf));
+        s.balance = newBalance;
+        return seq;
+    }
+
+    private long debit(AccountState s, String type, BigDecimal amount, String note) {
+        BigDecimal newBalance = s.balance.subtract(amount);
+        BalanceRules.checkDebit(s.accountType, s.overdraftLimit, newBalance);
+        long seq = post(new LedgerEntry(s.id, type, amount, newBalance, note, Instant.now()));
+        s.balance = newBalance;
+        return seq;
+    }
+
+    /** Journals the entry (if enabled) before queueing it for the database; returns its journal sequence. */
+    private long post(LedgerEntry entry) {
+        if (journal == null) {
+            writer.append(entry, 0);
+            return 0;
+        }
+        // Queue in journal order, so the writer's checkpoint never passes a posting it has not written
+        synchronized (journalOrder) {
+            long seq = journal.append(entry);
+            writer.append(entry, seq);
+            return seq;
+        }
+    }
+
+    private void awaitDurable(long seq) {
+        if (journal != null) journal.awaitDurable(seq);
+    }
+
+    private LedgerShard shardFor(Long accountId) {
+        return shards[shardIndex(accountId)];
+    }
+
+    private int shardIndex(Long accountId) {
+        return Math.floorMod(Long.hashCode(accountId), shards.length);
+    }
+
+    private record Posted(Account account, long seq) { }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.training.demobank.ledger;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A posting applied by a {@link LedgerShard} and waiting to be written to the database.
+ * {@code balanceAfter} is the account balance right after this posting.
+ * <p>
+ * A transfer is a {@code TRANSFER_OUT} closed by either its {@code TRANSFER_IN} or, when the credit
+ * fails, a {@code TRANSFER_REVERSAL} on the source account. The closing leg carries the journal
+ * sequence of its {@code TRANSFER_OUT} in {@code transferOf} (0 without a journal, and on every
+ * other posting).
+ */
+public record LedgerEntry(Long accountId,
+                          String txnType,
+                          BigDecimal amount,
+                          BigDecimal balanceAfter,
+                          String note,
+                          Instant txnDate,
+                          long transferOf) {
+
+    public LedgerEntry(Long accountId, String txnType, BigDecimal amount, BigDecimal balanceAfter, String note, Instant txnDate) {
+        this(accountId, txnType, amount, balanceAfter, note, txnDate, 0);
+    }
+
+    /** +1 for a leg that opens a transfer, -1 for one that closes it, 0 otherwise. */
+    int transferDelta() {
+        return switch (txnType) {
+            case "TRANSFER_OUT" -> 1;
+            case "TRANSFER_IN", "TRANSFER_REVERSAL" -> -1;
+            default -> 0;
+        };
+    }
+}
@@ -0,0 +1,456 @@
+package com.training.demobank.ledger;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of ledger postings in memory-mapped segment files, enabled with
+ * {@code demobank.journal.enabled=true} in engine mode.
+ * <p>
+ * Shards append each posting before it is queued for {@link LedgerWriter}; the request thread then
+ * waits in {@link #awaitDurable(long)} until a background flusher has forced the segment to disk.
+ * The flusher forces once per group of appends, so concurrent postings share one fsync.
+ * Durability is prefix-ordered: once sequence {@code n} is durable, every earlier record is too.
+ * <p>
+ * Record layout: {@code int length, int crc32c, body}; the body holds the sequence number and the
+ * {@link LedgerEntry}. A zero length marks the end of a segment. Each start opens a new segment, so
+ * a torn record at the tail of the previous one is never appended after; readers stop at the
+ * first record whose length or CRC does not check out.
+ * <p>
+ * Segment files are named after their first sequence. Once {@link #checkpoint(long)} reports that
+ * every record of a closed segment has been committed to the database, the flusher deletes it.
+ */
+@Component
+@ConditionalOnExpression("'${demobank.ledger.mode:jpa}' == 'engine' and ${demobank.journal.enabled:false}")
+public class LedgerJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerJournal.class);
+    private static final String SUFFIX = ".seg";
+    private static final int HEADER_BYTES = 8;
+
+    /** A journal record as read back by {@link #read(Path, Consumer)}. */
+    public record Record(long seq, LedgerEntry entry) { }
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final long groupCommitNanos;
+    private final long fsyncTimeoutMillis;
+
+    // append side, guarded by appendLock
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Condition appended = appendLock.newCondition();
+    private final List<MappedByteBuffer> unforced = new ArrayList<>();
+    private final Deque<Long> closedSegments = new ArrayDeque<>(); // first sequences, oldest first
+    private MappedByteBuffer segment;
+    private long segmentFirstSeq;
+    private long nextSeq;
+
+    // durable side, guarded by durableLock
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durable = durableLock.newCondition();
+    private volatile long durableSeq;
+
+    // highest sequence committed by the writer; segments at or below it are deleted by the flusher
+    private volatile long checkpointSeq;
+    private long deletedThrough;
+
+    private final AtomicLong appends = new AtomicLong();
+    private final AtomicLong fsyncs = new AtomicLong();
+    private final AtomicLong fsyncNanos = new AtomicLong();
+    private final AtomicLong segmentsRolled = new AtomicLong();
+    private final AtomicLong segmentsDeleted = new AtomicLong();
+
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public LedgerJournal(@Value("${demobank.journal.dir:./data/journal}") String dir,
+                         @Value("${demobank.journal.segment-bytes:67108864}") int segmentBytes,
+                         @Value("${demobank.journal.group-commit-micros:200}") long groupCommitMicros,
+                         @Value("${demobank.journal.fsync-timeout-ms:5000}") long fsyncTimeoutMillis) {
+        this.dir = Path.of(dir);
+        this.segmentBytes = segmentBytes;
+        this.groupCommitNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitMicros);
+        this.fsyncTimeoutMillis = fsyncTimeoutMillis;
+        try {
+            Files.createDirectories(this.dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal directory " + this.dir, e);
+        }
+        List<Path> existing = segmentFiles(this.dir);
+        for (Path file : existing) {
+            closedSegments.add(firstSeq(file));
+        }
+        // the newest segment decides where the sequence continues, even when it holds no records
+        long lastSeq = existing.isEmpty() ? 0 : firstSeq(existing.get(existing.size() - 1)) - 1;
+        long[] last = {lastSeq};
+        read(this.dir, lastSeq, r -> last[0] = r.seq());
+        lastSeq = last[0];
+        this.nextSeq = lastSeq + 1;
+        if (!existing.isEmpty() && closedSegments.peekLast() == nextSeq) {
+            // the previous start appended nothing; reuse its sequence with a fresh segment
+            try {
+                Files.delete(segmentFile(closedSegments.pollLast()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot replace empty journal segment in " + this.dir, e);
+            }
+        }
+        this.durableSeq = lastSeq;
+        this.segmentFirstSeq = nextSeq;
+        this.segment = openSegment(nextSeq);
+        this.flusher = new Thread(this::flushLoop, "ledger-journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+        log.info("Ledger journal at {} continues from sequence {}", this.dir, nextSeq);
+    }
+
+    public Path dir() {
+        return dir;
+    }
+
+    /** The sequence of the last record appended, 0 for a new journal. */
+    public long lastSeq() {
+        appendLock.lock();
+        try {
+            return nextSeq - 1;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /** Every record up to {@code seq} is in the database; segments wholly at or below it may go. */
+    public void checkpoint(long seq) {
+        if (seq > checkpointSeq) checkpointSeq = seq;
+    }
+
+    /** Appends an entry and returns its sequence number; the entry is not yet durable. */
+    public long append(LedgerEntry entry) {
+        byte[] body = encode(entry);
+        if (HEADER_BYTES + Long.BYTES + body.length + Integer.BYTES > segmentBytes) {
+            throw new IllegalArgumentException("Ledger entry too large for a journal segment");
+        }
+        CRC32C crc = new CRC32C();
+        appendLock.lock();
+        try {
+            long seq = nextSeq;
+            // the sequence number is part of the checksummed body
+            ByteBuffer seqBytes = ByteBuffer.allocate(Long.BYTES).putLong(0, seq);
+            crc.update(seqBytes.array());
+            crc.update(body);
+            // keep room for the zero length that terminates the segment
+            if (segment.remaining() < HEADER_BYTES + Long.BYTES + body.length + Integer.BYTES) {
+                unforced.add(segment);
+                closedSegments.add(segmentFirstSeq);
+                segment = openSegment(seq);
+                segmentFirstSeq = seq;
+                segmentsRolled.incrementAndGet();
+            }
+            segment.putInt(Long.BYTES + body.length);
+            segment.putInt((int) crc.getValue());
+            segment.putLong(seq);
+            segment.put(body);
+            nextSeq = seq + 1;
+            appends.incrementAndGet();
+            appended.signal();
+            return seq;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until {@code seq} and everything before it has been forced to disk. On timeout the
+     * record is already appended (and its posting applied), so the outcome is reported as unknown
+     * rather than as a failure the client could retry.
+     */
+    public void awaitDurable(long seq) {
+        if (durableSeq >= seq) return;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(fsyncTimeoutMillis);
+        durableLock.lock();
+        try {
+            while (durableSeq < seq) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    throw new PostingOutcomeUnknownException("Ledger journal fsync timed out; the posting may have been applied");
+                }
+                durable.awaitNanos(left);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PostingOutcomeUnknownException("Interrupted while waiting for ledger journal; the posting may have been applied", e);
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long f = fsyncs.get();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("appends", appends.get());
+        m.put("fsyncs", f);
+        m.put("appendsPerFsync", f == 0 ? 0.0 : (double) appends.get() / f);
+        m.put("avgFsyncMicros", f == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(fsyncNanos.get() / f));
+        m.put("durableSeq", durableSeq);
+        m.put("segmentsRolled", segmentsRolled.get());
+        m.put("checkpointSeq", checkpointSeq);
+        m.put("segmentsDeleted", segmentsDeleted.get());
+        return m;
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        appendLock.lock();
+        try {
+            appended.signal();
+        } finally {
+            appendLock.unlock();
+        }
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long target;
+            List<MappedByteBuffer> toForce;
+            appendLock.lock();
+            try {
+                while (running && nextSeq - 1 == durableSeq) {
+                    appended.await();
+                }
+                if (!running && nextSeq - 1 == durableSeq) return;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                appendLock.unlock();
+            }
+            // let concurrent postings join this fsync
+            if (groupCommitNanos > 0 && running) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(groupCommitNanos);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            appendLock.lock();
+            try {
+                target = nextSeq - 1;
+                toForce = new ArrayList<>(unforced);
+                toForce.add(segment);
+                unforced.clear();
+            } finally {
+                appendLock.unlock();
+            }
+            long start = System.nanoTime();
+            for (MappedByteBuffer b : toForce) {
+                b.force();
+            }
+            fsyncNanos.addAndGet(System.nanoTime() - start);
+            fsyncs.incrementAndGet();
+            durableLock.lock();
+            try {
+                durableSeq = target;
+                durable.signalAll();
+            } finally {
+                durableLock.unlock();
+            }
+            if (checkpointSeq > deletedThrough) {
+                deleteCheckpointedSegments();
+            }
+        }
+    }
+
+    /**
+     * Deletes closed segments whose records are all at or below the checkpoint. Called by the
+     * flusher, and by the engine at startup before the flusher has anything to do.
+     */
+    int deleteCheckpointedSegments() {
+        long upTo = checkpointSeq;
+        int deleted = 0;
+        while (true) {
+            long first;
+            long next;
+            appendLock.lock();
+            try {
+                if (closedSegments.isEmpty()) break;
+                Iterator<Long> it = closedSegments.iterator();
+                first = it.next();
+                next = it.hasNext() ? it.next() : segmentFirstSeq;
+            } finally {
+                appendLock.unlock();
+            }
+            if (next - 1 > upTo) break;
+            Path file = segmentFile(first);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Cannot delete checkpointed journal segment {}", file, e);
+                break;
+            }
+            appendLock.lock();
+            try {
+                closedSegments.pollFirst();
+            } finally {
+                appendLock.unlock();
+            }
+            deleted++;
+        }
+        deletedThrough = upTo;
+        segmentsDeleted.addAndGet(deleted);
+        return deleted;
+    }
+
+    private Path segmentFile(long firstSeq) {
+        return dir.resolve(String.format("%020d%s", firstSeq, SUFFIX));
+    }
+
+    private static long firstSeq(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private static List<Path> segmentFiles(Path dir) {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list journal directory " + dir, e);
+        }
+    }
+
+    private MappedByteBuffer openSegment(long firstSeq) {
+        Path file = segmentFile(firstSeq);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open journal segment " + file, e);
+        }
+    }
+
+    /**
+     * Reads every valid record in sequence order. A segment is read up to its terminating zero
+     * length or the first record that fails its CRC.
+     */
+    public static void read(Path dir, Consumer<Record> consumer) {
+        read(dir, 0, consumer);
+    }
+
+    /** As {@link #read(Path, Consumer)}, for the records after {@code afterSeq}; earlier segments are skipped unread. */
+    public static void read(Path dir, long afterSeq, Consumer<Record> consumer) {
+        List<Path> files = segmentFiles(dir);
+        for (int i = 0; i < files.size(); i++) {
+            if (i + 1 < files.size() && firstSeq(files.get(i + 1)) - 1 <= afterSeq) continue;
+            Path file = files.get(i);
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                readSegment(file, ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()), r -> {
+                    if (r.seq() > afterSeq) consumer.accept(r);
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read journal segment " + file, e);
+            }
+        }
+    }
+
+    private static void readSegment(Path file, ByteBuffer buf, Consumer<Record> consumer) {
+        CRC32C crc = new CRC32C();
+        while (buf.remaining() >= HEADER_BYTES) {
+            int length = buf.getInt();
+            if (length == 0) return;
+            int expected = buf.getInt();
+            if (length < Long.BYTES || length > buf.remaining()) {
+                log.warn("Journal segment {} has a torn record at offset {}", file, buf.position() - HEADER_BYTES);
+                return;
+            }
+            ByteBuffer body = buf.slice(buf.position(), length);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != expected) {
+                log.warn("Journal segment {} has a bad checksum at offset {}", file, buf.position() - HEADER_BYTES);
+                return;
+            }
+            buf.position(buf.position() + length);
+            long seq = body.getLong();
+            consumer.accept(new Record(seq, decode(body)));
+        }
+    }
+
+    static byte[] encode(LedgerEntry e) {
+        byte[] type = e.txnType().getBytes(StandardCharsets.UTF_8);
+        byte[] amount = e.amount().unscaledValue().toByteArray();
+        byte[] balance = e.balanceAfter().unscaledValue().toByteArray();
+        byte[] note = e.note() == null ? null : e.note().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer b = ByteBuffer.allocate(Long.BYTES * 2 + Integer.BYTES
+                + 2 + type.length
+                + Integer.BYTES * 2 + amount.length
+                + Integer.BYTES * 2 + balance.length
+                + Integer.BYTES + (note == null ? 0 : note.length)
+                + Long.BYTES);
+        b.putLong(e.accountId());
+        b.putLong(e.txnDate().getEpochSecond()).putInt(e.txnDate().getNano());
+        b.putShort((short) type.length).put(type);
+        b.putInt(e.amount().scale()).putInt(amount.length).put(amount);
+        b.putInt(e.balanceAfter().scale()).putInt(balance.length).put(balance);
+        if (note == null) {
+            b.putInt(-1);
+        } else {
+            b.putInt(note.length).put(note);
+        }
+        b.putLong(e.transferOf());
+        return b.array();
+    }
+
+    private static LedgerEntry decode(ByteBuffer b) {
+        long accountId = b.getLong();
+        Instant txnDate = Instant.ofEpochSecond(b.getLong(), b.getInt());
+        byte[] type = new byte[b.getShort()];
+        b.get(type);
+        BigDecimal amount = decimal(b);
+        BigDecimal balanceAfter = decimal(b);
+        int noteLength = b.getInt();
+        String note = null;
+        if (noteLength >= 0) {
+            byte[] bytes = new byte[noteLength];
+            b.get(bytes);
+            note = new String(bytes, StandardCharsets.UTF_8);
+        }
+        long transferOf = b.getLong();
+        return new LedgerEntry(accountId, new String(type, StandardCharsets.UTF_8), amount, balanceAfter, note, txnDate, transferOf);
+    }
+
+    private static BigDecimal decimal(ByteBuffer b) {
+        int scale = b.getInt();
+        byte[] unscaled = new byte[b.getInt()];
+        b.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+}
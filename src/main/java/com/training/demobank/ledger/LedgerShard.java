@@ -0,0 +1,57 @@
+package com.training.demobank.ledger;
+
+import com.training.demobank.model.Account;
+import com.training.demobank.repository.AccountRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Single-writer partition of the ledger. All reads and writes of the accounts it owns
+ * run on its one thread, so balance checks need no locks.
+ */
+final class LedgerShard {
+    private final ExecutorService executor;
+    private final Map<Long, AccountState> accounts = new HashMap<>();
+    private final AccountRepository accountRepository;
+
+    LedgerShard(int index, AccountRepository accountRepository) {
+        this.accountRepository = accountRepository;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "ledger-shard-" + index);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    <T> CompletableFuture<T> submit(Function<LedgerShard, T> work) {
+        return CompletableFuture.supplyAsync(() -> work.apply(this), executor);
+    }
+
+    CompletableFuture<Void> load(List<AccountState> states) {
+        return CompletableFuture.runAsync(() -> states.forEach(s -> accounts.put(s.id, s)), executor);
+    }
+
+    /** Only call from the shard thread. Accounts opened after recovery are loaded on first use. */
+    AccountState state(Long accountId) {
+        AccountState s = accounts.get(accountId);
+        if (s == null) {
+            Account a = accountRepository.findById(accountId)
+                    .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountId));
+            s = new AccountState(a);
+            accounts.put(accountId, s);
+        }
+        return s;
+    }
+
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,245 @@
+package com.training.demobank.ledger;
+
+import com.training.demobank.model.Account;
+import com.training.demobank.model.BankTransaction;
+import com.training.demobank.model.LedgerCheckpoint;
+import com.training.demobank.repository.AccountRepository;
+import com.training.demobank.repository.BankTransactionRepository;
+import com.training.demobank.repository.LedgerCheckpointRepository;
+import com.training.demobank.service.LookupCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Drains postings from the shards and writes them to {@code accounts} / {@code transactions}
+ * in FIFO batches on a single thread, so per-account ordering is preserved.
+ * Each batch is one DB transaction; only the last balance per account is written. A batch never
+ * ends between a {@code TRANSFER_OUT} and the leg that closes it, so both sides of a transfer
+ * commit together even though the shards queue them separately. With the
+ * journal enabled, postings arrive in journal order and each batch also advances the
+ * {@link LedgerCheckpoint} to its last journal sequence, in the same transaction.
+ */
+@Component
+@ConditionalOnProperty(name = "demobank.ledger.mode", havingValue = "engine")
+public class LedgerWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerWriter.class);
+    private static final long OPEN_TRANSFER_WARN_MILLIS = 5_000;
+
+    private final AccountRepository accountRepository;
+    private final BankTransactionRepository transactionRepository;
+    private final LedgerCheckpointRepository checkpointRepository;
+    private final LookupCache lookups;
+    private final TransactionTemplate tx;
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong persisted = new AtomicLong();
+    private final ReentrantLock progressLock = new ReentrantLock();
+    private final Condition progress = progressLock.newCondition();
+
+    private final Thread worker;
+    private volatile boolean running = true;
+    private volatile LongConsumer onCheckpoint = seq -> { };
+
+    /** A posting and its journal sequence (0 without a journal). */
+    private record Pending(LedgerEntry entry, long seq) { }
+
+    public LedgerWriter(AccountRepository accountRepository,
+                        BankTransactionRepository transactionRepository,
+                        LedgerCheckpointRepository checkpointRepository,
+                        LookupCache lookups,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${demobank.ledger.queue-capacity:65536}") int queueCapacity,
+                        @Value("${demobank.ledger.batch-size:500}") int batchSize) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.lookups = lookups;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.worker = new Thread(this::run, "ledger-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /** Called with the checkpoint after each batch commits (the journal deletes segments behind it). */
+    void onCheckpoint(LongConsumer listener) {
+        this.onCheckpoint = listener;
+    }
+
+    /**
+     * Blocks when the queue is full, pushing back on the shards instead of growing the heap.
+     * Journaled postings must be appended in sequence order.
+     */
+    void append(LedgerEntry entry, long seq) {
+        try {
+            queue.put(new Pending(entry, seq));
+            enqueued.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing ledger entry", e);
+        }
+    }
+
+    /** Waits until everything queued before this call has been committed. */
+    public void awaitPersisted(long timeoutMillis) throws InterruptedException {
+        long target = enqueued.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        progressLock.lock();
+        try {
+            while (persisted.get() < target) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    throw new IllegalStateException("Ledger writer still behind: " + persisted.get() + "/" + target);
+                }
+                progress.awaitNanos(left);
+            }
+        } finally {
+            progressLock.unlock();
+        }
+    }
+
+    public long backlog() {
+        return enqueued.get() - persisted.get();
+    }
+
+    void shutdown() throws InterruptedException {
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                closeTransfers(batch);
+                if (batch.isEmpty()) continue;
+                writeWithRetry(batch);
+                persisted.addAndGet(batch.size());
+                long seq = lastSeq(batch);
+                if (seq > 0) onCheckpoint.accept(seq);
+                batch.clear();
+                progressLock.lock();
+                try {
+                    progress.signalAll();
+                } finally {
+                    progressLock.unlock();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Extends the batch until every transfer it opens is closed. The closing leg is normally a
+     * shard hop away; at shutdown, legs that can no longer be closed are dropped instead of
+     * committing half a transfer.
+     */
+    private void closeTransfers(List<Pending> batch) throws InterruptedException {
+        int open = 0;
+        int closedAt = 0; // batch prefix with no open transfer
+        for (int i = 0; i < batch.size(); i++) {
+            open += batch.get(i).entry().transferDelta();
+            if (open == 0) closedAt = i + 1;
+        }
+        long waitingSince = System.nanoTime();
+        boolean warned = false;
+        while (open > 0) {
+            Pending next = queue.poll(100, TimeUnit.MILLISECONDS);
+            if (next != null) {
+                batch.add(next);
+                open += next.entry().transferDelta();
+                if (open == 0) closedAt = batch.size();
+            } else if (!running) {
+                List<Pending> dropped = batch.subList(closedAt, batch.size());
+                log.error("Dropping {} ledger entries behind a transfer that was never closed: {}", dropped.size(), dropped);
+                persisted.addAndGet(dropped.size());
+                dropped.clear();
+                return;
+            } else if (!warned && System.nanoTime() - waitingSince > TimeUnit.MILLISECONDS.toNanos(OPEN_TRANSFER_WARN_MILLIS)) {
+                log.warn("Ledger batch of {} entries still waiting for the other leg of {} transfers", batch.size(), open);
+                warned = true;
+            }
+        }
+    }
+
+    /** The highest journal sequence in the batch; unjournaled entries carry 0. */
+    private static long lastSeq(List<Pending> batch) {
+        long seq = 0;
+        for (Pending p : batch) seq = Math.max(seq, p.seq());
+        return seq;
+    }
+
+    private void writeWithRetry(List<Pending> batch) throws InterruptedException {
+        long backoff = 50;
+        while (true) {
+            try {
+                tx.executeWithoutResult(status -> write(batch));
+                return;
+            } catch (RuntimeException e) {
+                // The in-memory state is already ahead; keep the batch and retry rather than drop postings.
+                log.error("Ledger batch of {} entries failed, retrying in {} ms", batch.size(), backoff, e);
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, 5_000);
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        Map<Long, BigDecimal> lastBalance = new LinkedHashMap<>();
+        for (Pending p : batch) {
+            lastBalance.put(p.entry().accountId(), p.entry().balanceAfter());
+        }
+        Map<Long, Account> accounts = new LinkedHashMap<>();
+        for (Account a : accountRepository.findAllById(lastBalance.keySet())) {
+            a.setBalance(lastBalance.get(a.getId()));
+            accounts.put(a.getId(), a);
+            lookups.evictAccount(a.getId()); // after this batch commits
+        }
+        List<BankTransaction> rows = new ArrayList<>(batch.size());
+        for (Pending p : batch) {
+            LedgerEntry e = p.entry();
+            BankTransaction t = new BankTransaction();
+            t.setAccount(accounts.get(e.accountId()));
+            t.setTxnType(e.txnType());
+            t.setAmount(e.amount());
+            t.setBalanceAfter(e.balanceAfter());
+            t.setNote(e.note());
+            t.setTxnDate(e.txnDate());
+            rows.add(t);
+        }
+        transactionRepository.saveAll(rows);
+        long seq = lastSeq(batch);
+        if (seq > 0) {
+            checkpointRepository.advance(seq, Instant.now());
+        }
+    }
+}
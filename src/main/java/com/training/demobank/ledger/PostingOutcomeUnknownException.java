@@ -0,0 +1,18 @@
+package com.training.demobank.ledger;
+
+/**
+ * The posting was applied in memory and journaled, but the journal could not confirm it durable in
+ * time. It may or may not survive a crash, and {@link LedgerWriter} will still persist it if the
+ * process keeps running, so the client must check the account before trying again; a blind retry
+ * can post twice. Answered with 503 and no {@code Retry-After}.
+ */
+public class PostingOutcomeUnknownException extends RuntimeException {
+
+    public PostingOutcomeUnknownException(String message) {
+        super(message);
+    }
+
+    public PostingOutcomeUnknownException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
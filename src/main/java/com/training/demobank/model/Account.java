@@ -9,13 +9,14 @@ import java.time.Instant;
 @Table(name = "accounts")
 public class Account {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_seq")
+    @SequenceGenerator(name = "accounts_seq", sequenceName = "accounts_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "account_number", nullable = false, unique = true, length = 32)
     private String accountNumber;
 
-    @ManyToOne(fetch = FetchType.EAGER, optional = false)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "customer_id", nullable = false)
     private Customer customer;
 
@@ -35,13 +36,32 @@ public class Account {
     @Column(name = "overdraft_limit", precision = 18, scale = 2)
     private BigDecimal overdraftLimit;
 
+    // Daily interest accrued but not yet capitalized into balance (sub-cent precision).
+    // The DB default lets ddl-auto=update add the column to a populated accounts table.
+    @Column(name = "accrued_interest", nullable = false, precision = 18, scale = 6,
+            columnDefinition = "numeric(18,6) default 0 not null")
+    private BigDecimal accruedInterest = BigDecimal.ZERO;
+
     @Column(name = "status", nullable = false, length = 20)
     private String status = "ACTIVE";
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    // > 0 marks a hot account whose credits land on that many AccountStripe rows
+    @Column(name = "stripe_count")
+    private Integer stripeCount;
+
+    // balance + stripe balances, read in one statement; only set for striped accounts
+    @Transient
+    private BigDecimal totalBalance;
+
     @PrePersist
     void prePersist() {
         if (openedAt == null) openedAt = Instant.now();
         if (balance == null) balance = BigDecimal.ZERO;
+        if (accruedInterest == null) accruedInterest = BigDecimal.ZERO;
         if (status == null) status = "ACTIVE";
     }
 
@@ -69,6 +89,21 @@ public class Account {
     public BigDecimal getOverdraftLimit() { return overdraftLimit; }
     public void setOverdraftLimit(BigDecimal overdraftLimit) { this.overdraftLimit = overdraftLimit; }
 
+    public BigDecimal getAccruedInterest() { return accruedInterest; }
+    public void setAccruedInterest(BigDecimal accruedInterest) { this.accruedInterest = accruedInterest; }
+
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public Integer getStripeCount() { return stripeCount; }
+    public void setStripeCount(Integer stripeCount) { this.stripeCount = stripeCount; }
+
+    public boolean isStriped() { return stripeCount != null && stripeCount > 0; }
+
+    /** The balance callers should see: includes unswept stripe credits for hot accounts. */
+    public BigDecimal getTotalBalance() { return totalBalance != null ? totalBalance : balance; }
+    public void setTotalBalance(BigDecimal totalBalance) { this.totalBalance = totalBalance; }
 }
@@ -0,0 +1,43 @@
+package com.training.demobank.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+/**
+ * One sub-balance of a hot account. Credits land on a random stripe so they do not all
+ * queue on the {@code accounts} row; debits fold every stripe back into the account balance.
+ * Stripe balances are never negative.
+ */
+@Entity
+@Table(name = "account_stripes", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stripe_account_no", columnNames = {"account_id", "stripe_no"})
+})
+public class AccountStripe {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_stripes_seq")
+    @SequenceGenerator(name = "account_stripes_seq", sequenceName = "account_stripes_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    @Column(name = "stripe_no", nullable = false)
+    private int stripeNo;
+
+    @Column(name = "balance", nullable = false, precision = 18, scale = 2)
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Account getAccount() { return account; }
+    public void setAccount(Account account) { this.account = account; }
+
+    public int getStripeNo() { return stripeNo; }
+    public void setStripeNo(int stripeNo) { this.stripeNo = stripeNo; }
+
+    public BigDecimal getBalance() { return balance; }
+    public void setBalance(BigDecimal balance) { this.balance = balance; }
+}
@@ -7,23 +7,32 @@ import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_txn_account_date_id", columnList = "account_id, txn_date desc, id desc"),
+        @Index(name = "idx_txn_date_id", columnList = "txn_date desc, id desc"),
+        @Index(name = "idx_txn_account_id", columnList = "account_id, id")
+})
 public class BankTransaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER, optional = false)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "account_id", nullable = false)
     @JsonIgnore
     private Account account;
 
     @Column(name = "txn_type", nullable = false, length = 20)
-    private String txnType; // e.g., DEPOSIT, WITHDRAWAL, TRANSFER_IN, TRANSFER_OUT
+    private String txnType; // e.g., DEPOSIT, WITHDRAWAL, TRANSFER_IN, TRANSFER_OUT, TRANSFER_REVERSAL, INTEREST
 
     @Column(name = "amount", nullable = false, precision = 18, scale = 2)
     private BigDecimal amount;
 
+    // Account balance right after this posting; null until backfilled for older and striped-credit rows
+    @Column(name = "balance_after", precision = 18, scale = 2)
+    private BigDecimal balanceAfter;
+
     @Column(name = "txn_date")
     private Instant txnDate;
 
@@ -47,6 +56,9 @@ public class BankTransaction {
     public BigDecimal getAmount() { return amount; }
     public void setAmount(BigDecimal amount) { this.amount = amount; }
 
+    public BigDecimal getBalanceAfter() { return balanceAfter; }
+    public void setBalanceAfter(BigDecimal balanceAfter) { this.balanceAfter = balanceAfter; }
+
     public Instant getTxnDate() { return txnDate; }
     public void setTxnDate(Instant txnDate) { this.txnDate = txnDate; }
 
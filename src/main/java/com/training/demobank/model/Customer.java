@@ -3,12 +3,14 @@ package com.training.demobank.model;
 import jakarta.persistence.*;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Locale;
 
 @Entity
 @Table(name = "customers")
 public class Customer {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customers_seq")
+    @SequenceGenerator(name = "customers_seq", sequenceName = "customers_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "first_name", nullable = false, length = 100)
@@ -20,6 +22,10 @@ public class Customer {
     @Column(name = "email", length = 255, unique = true)
     private String email;
 
+    /** Login key: {@link #normalizeEmail} of {@code email}, kept in sync on every write. */
+    @Column(name = "email_normalized", length = 255, unique = true)
+    private String emailNormalized;
+
     @Column(name = "phone", length = 20)
     private String phone;
 
@@ -37,6 +43,17 @@ public class Customer {
         if (createdAt == null) {
             createdAt = Instant.now();
         }
+        emailNormalized = normalizeEmail(email);
+    }
+
+    @PreUpdate
+    void preUpdate() {
+        emailNormalized = normalizeEmail(email);
+    }
+
+    /** Trimmed and lower-cased (root locale); null stays null. */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
     }
 
     public Long getId() { return id; }
@@ -51,6 +68,8 @@ public class Customer {
     public String getEmail() { return email; }
     public void setEmail(String email) { this.email = email; }
 
+    public String getEmailNormalized() { return emailNormalized; }
+
     public String getPhone() { return phone; }
     public void setPhone(String phone) { this.phone = phone; }
 
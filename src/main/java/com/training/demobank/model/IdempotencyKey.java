@@ -0,0 +1,76 @@
+package com.training.demobank.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * A client-supplied {@code Idempotency-Key} and the response it produced. The row is inserted
+ * before the request runs (reserving the key) and completed with the serialized response after.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idem_created", columnList = "created_at")
+})
+public class IdempotencyKey implements Persistable<String> {
+    @Id
+    @Column(name = "idem_key", length = 100)
+    private String key;
+
+    // SHA-256 of the request the key was first used with
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(name = "response_body", columnDefinition = "text")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+
+    // Keys are assigned, so save() must persist rather than merge for a duplicate to fail on insert
+    @Transient
+    private boolean isNew = true;
+
+    protected IdempotencyKey() { }
+
+    public IdempotencyKey(String key, String fingerprint) {
+        this.key = key;
+        this.fingerprint = fingerprint;
+    }
+
+    /** A key stored already completed, for a reservation that was purged while its request ran. */
+    public static IdempotencyKey completed(String key, String fingerprint, String responseBody, Instant completedAt) {
+        IdempotencyKey k = new IdempotencyKey(key, fingerprint);
+        k.responseBody = responseBody;
+        k.completedAt = completedAt;
+        return k;
+    }
+
+    @PrePersist
+    void prePersist() {
+        if (createdAt == null) createdAt = Instant.now();
+    }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        isNew = false;
+    }
+
+    @Override
+    public String getId() { return key; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    public String getKey() { return key; }
+    public String getFingerprint() { return fingerprint; }
+    public String getResponseBody() { return responseBody; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getCompletedAt() { return completedAt; }
+    public boolean isCompleted() { return completedAt != null; }
+}
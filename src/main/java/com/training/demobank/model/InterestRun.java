@@ -0,0 +1,67 @@
+package com.training.demobank.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/** One accrual or capitalization run for a business date; its chunks are the resume checkpoints. */
+@Entity
+@Table(name = "interest_runs", uniqueConstraints =
+        @UniqueConstraint(name = "uk_interest_run_type_date", columnNames = {"run_type", "business_date"}))
+public class InterestRun {
+
+    public enum Type { ACCRUAL, CAPITALIZATION }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "interest_runs_seq")
+    @SequenceGenerator(name = "interest_runs_seq", sequenceName = "interest_runs_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "run_type", nullable = false, length = 20)
+    private Type runType;
+
+    @Column(name = "business_date", nullable = false)
+    private LocalDate businessDate;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status = "RUNNING"; // RUNNING, COMPLETED
+
+    @Column(name = "started_at", nullable = false)
+    private Instant startedAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+
+    @Column(name = "accounts_processed", nullable = false)
+    private long accountsProcessed;
+
+    @PrePersist
+    void prePersist() {
+        if (startedAt == null) startedAt = Instant.now();
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Type getRunType() { return runType; }
+    public void setRunType(Type runType) { this.runType = runType; }
+
+    public LocalDate getBusinessDate() { return businessDate; }
+    public void setBusinessDate(LocalDate businessDate) { this.businessDate = businessDate; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Instant getStartedAt() { return startedAt; }
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+
+    public Instant getCompletedAt() { return completedAt; }
+    public void setCompletedAt(Instant completedAt) { this.completedAt = completedAt; }
+
+    public long getAccountsProcessed() { return accountsProcessed; }
+    public void setAccountsProcessed(long accountsProcessed) { this.accountsProcessed = accountsProcessed; }
+
+    public boolean isCompleted() { return "COMPLETED".equals(status); }
+}
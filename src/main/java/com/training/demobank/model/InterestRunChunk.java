@@ -0,0 +1,53 @@
+package com.training.demobank.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * The account id range {@code [fromId, toId)} of an {@link InterestRun}. {@code completedAt} is set
+ * in the same transaction that applies the chunk, so a crashed run redoes exactly the unset chunks.
+ */
+@Entity
+@Table(name = "interest_run_chunks", indexes =
+        @Index(name = "idx_irc_run_from", columnList = "run_id, from_id"))
+public class InterestRunChunk {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "interest_run_chunks_seq")
+    @SequenceGenerator(name = "interest_run_chunks_seq", sequenceName = "interest_run_chunks_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "run_id", nullable = false)
+    private InterestRun run;
+
+    @Column(name = "from_id", nullable = false)
+    private long fromId;
+
+    @Column(name = "to_id", nullable = false)
+    private long toId;
+
+    @Column(name = "accounts", nullable = false)
+    private int accounts;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public InterestRun getRun() { return run; }
+    public void setRun(InterestRun run) { this.run = run; }
+
+    public long getFromId() { return fromId; }
+    public void setFromId(long fromId) { this.fromId = fromId; }
+
+    public long getToId() { return toId; }
+    public void setToId(long toId) { this.toId = toId; }
+
+    public int getAccounts() { return accounts; }
+    public void setAccounts(int accounts) { this.accounts = accounts; }
+
+    public Instant getCompletedAt() { return completedAt; }
+    public void setCompletedAt(Instant completedAt) { this.completedAt = completedAt; }
+}
@@ -0,0 +1,50 @@
+package com.training.demobank.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * The highest ledger journal sequence whose posting the engine's writer has committed; advanced in
+ * the same transaction as that batch. Startup replay reads only the records after it, and journal
+ * segments wholly at or below it are deleted. A single row with id {@link #ID}.
+ */
+@Entity
+@Table(name = "ledger_checkpoint")
+public class LedgerCheckpoint implements Persistable<Long> {
+    public static final long ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(name = "journal_seq", nullable = false)
+    private long journalSeq;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    // The id is fixed, so save() must persist rather than merge
+    @Transient
+    private boolean isNew = true;
+
+    public LedgerCheckpoint() {
+        this.id = ID;
+        this.updatedAt = Instant.now();
+    }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        isNew = false;
+    }
+
+    @Override
+    public Long getId() { return id; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    public long getJournalSeq() { return journalSeq; }
+    public Instant getUpdatedAt() { return updatedAt; }
+}
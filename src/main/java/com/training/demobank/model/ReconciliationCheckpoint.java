@@ -0,0 +1,68 @@
+package com.training.demobank.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * The last reconciled state of one account: the signed sum of its transactions up to and
+ * including {@code lastTxnId}, which matched the account balance at {@code checkedAt}.
+ * The next reconciliation only reads transactions after {@code lastTxnId}.
+ */
+@Entity
+@Table(name = "reconciliation_checkpoints")
+public class ReconciliationCheckpoint implements Persistable<Long> {
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+
+    @Column(name = "last_txn_id", nullable = false)
+    private long lastTxnId;
+
+    @Column(name = "txn_count", nullable = false)
+    private long txnCount;
+
+    @Column(name = "running_sum", nullable = false, precision = 18, scale = 2)
+    private BigDecimal runningSum = BigDecimal.ZERO;
+
+    @Column(name = "checked_at", nullable = false)
+    private Instant checkedAt;
+
+    // Ids are account ids, so save() must persist new rows rather than merge (which selects first)
+    @Transient
+    private boolean isNew = true;
+
+    protected ReconciliationCheckpoint() { }
+
+    public ReconciliationCheckpoint(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        isNew = false;
+    }
+
+    @Override
+    public Long getId() { return accountId; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    public Long getAccountId() { return accountId; }
+
+    public long getLastTxnId() { return lastTxnId; }
+    public void setLastTxnId(long lastTxnId) { this.lastTxnId = lastTxnId; }
+
+    public long getTxnCount() { return txnCount; }
+    public void setTxnCount(long txnCount) { this.txnCount = txnCount; }
+
+    public BigDecimal getRunningSum() { return runningSum; }
+    public void setRunningSum(BigDecimal runningSum) { this.runningSum = runningSum; }
+
+    public Instant getCheckedAt() { return checkedAt; }
+    public void setCheckedAt(Instant checkedAt) { this.checkedAt = checkedAt; }
+}
@@ -0,0 +1,6 @@
+package com.training.demobank.repository;
+
+import java.math.BigDecimal;
+
+/** An account id with its total balance (base row plus stripes), as reconciliation compares it. */
+public record AccountBalance(Long id, BigDecimal balance) { }
@@ -0,0 +1,6 @@
+package com.training.demobank.repository;
+
+import java.time.Instant;
+
+/** An account id with the date of its latest transaction row, as journal replay compares it. */
+public record AccountLastPosting(Long accountId, Instant lastTxnDate) { }
@@ -1,18 +1,83 @@
 package com.training.demobank.repository;
 
 import com.training.demobank.model.Account;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface AccountRepository extends JpaRepository<Account, Long> {
+public interface AccountRepository extends JpaRepository<Account, Long>, AccountRepositoryCustom {
     Optional<Account> findByAccountNumber(String accountNumber);
 
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     Optional<Account> findWithLockingById(Long id);
 
+    // Rows are locked in id order, so concurrent multi-account lockers cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.id in :ids order by a.id")
+    List<Account> findAllWithLockingByIdIn(@Param("ids") Collection<Long> ids);
+
     List<Account> findByCustomer_Id(Long customerId);
+
+    @Query("select a.accountNumber from Account a where a.accountNumber in :numbers")
+    List<String> findExistingAccountNumbers(@Param("numbers") Collection<String> numbers);
+
+    String SUMMARY = "select new com.training.demobank.repository.AccountSummary(a.id, a.accountNumber, a.customer.id, " +
+            "a.accountType, a.balance + coalesce((select sum(s.balance) from AccountStripe s where s.account = a), 0), " +
+            "a.openedAt, a.interestRate, a.overdraftLimit, a.status, a.stripeCount) from Account a ";
+
+    @Query(SUMMARY + "order by a.id")
+    List<AccountSummary> findAllSummaries();
+
+    @Query(SUMMARY + "where a.customer.id = :customerId order by a.id")
+    List<AccountSummary> findSummariesByCustomerId(@Param("customerId") Long customerId);
+
+    // Interest batch: id bounds of the SAVINGS accounts, then one id-range chunk locked in id order
+    @Query("select min(a.id) from Account a where a.accountType = com.training.demobank.model.AccountType.SAVINGS")
+    Long findMinSavingsId();
+
+    @Query("select max(a.id) from Account a where a.accountType = com.training.demobank.model.AccountType.SAVINGS")
+    Long findMaxSavingsId();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.accountType = com.training.demobank.model.AccountType.SAVINGS " +
+            "and upper(a.status) = 'ACTIVE' and a.id >= :fromId and a.id < :toId order by a.id")
+    List<Account> findSavingsForInterest(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query("select min(a.id) from Account a")
+    Long findMinId();
+
+    @Query("select max(a.id) from Account a")
+    Long findMaxId();
+
+    // Reconciliation: one id range of total balances, streamed in id order
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.training.demobank.repository.AccountBalance(a.id, " +
+            "a.balance + coalesce((select sum(s.balance) from AccountStripe s where s.account = a), 0)) " +
+            "from Account a where a.id >= :fromId and a.id < :toId order by a.id")
+    Stream<AccountBalance> streamBalances(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query("select a.id from Account a where a.stripeCount > 0")
+    List<Long> findStripedIds();
+
+    // Guarded single-statement credit: the row count says whether the account was active.
+    // The atomic postings use the returning variants in AccountRepositoryCustom instead.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance + :amount, a.version = coalesce(a.version, 0) + 1 " +
+            "where a.id = :id and upper(a.status) = 'ACTIVE'")
+    int creditIfActive(@Param("id") Long id, @Param("amount") BigDecimal amount);
 }
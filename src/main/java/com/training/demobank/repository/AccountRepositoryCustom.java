@@ -0,0 +1,18 @@
+package com.training.demobank.repository;
+
+import com.training.demobank.model.Account;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+public interface AccountRepositoryCustom {
+
+    /**
+     * Debits the account in one guarded statement if it is active and the balance rules still hold,
+     * and returns the updated row; empty when no row qualified.
+     */
+    Optional<Account> debitIfAllowedReturning(Long id, BigDecimal amount);
+
+    /** Credits the account in one statement if it is active and returns the updated row. */
+    Optional<Account> creditIfActiveReturning(Long id, BigDecimal amount);
+}
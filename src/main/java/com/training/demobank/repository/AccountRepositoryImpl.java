@@ -0,0 +1,59 @@
+package com.training.demobank.repository;
+
+import com.training.demobank.model.Account;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Guarded postings that hand back the row they changed, so the caller needs no read before or
+ * after the write: {@code UPDATE ... RETURNING} on Postgres, and H2's equivalent
+ * {@code SELECT ... FROM FINAL TABLE (UPDATE ...)}.
+ * <p>
+ * The persistence context is flushed and cleared first, like {@code @Modifying(clearAutomatically)},
+ * because a native result never overwrites an account that is already managed.
+ */
+class AccountRepositoryImpl implements AccountRepositoryCustom {
+
+    // Same rules as BalanceRules: SAVINGS floor is 0, CURRENT floor is -overdraftLimit.
+    private static final String DEBIT = "update accounts set balance = balance - :amount, " +
+            "version = coalesce(version, 0) + 1 " +
+            "where id = :id and upper(status) = 'ACTIVE' and balance - :amount >= " +
+            "case when account_type = 'SAVINGS' then 0 else -coalesce(overdraft_limit, 0) end";
+
+    private static final String CREDIT = "update accounts set balance = balance + :amount, " +
+            "version = coalesce(version, 0) + 1 " +
+            "where id = :id and upper(status) = 'ACTIVE'";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public Optional<Account> debitIfAllowedReturning(Long id, BigDecimal amount) {
+        return updateReturning(DEBIT, id, amount);
+    }
+
+    @Override
+    public Optional<Account> creditIfActiveReturning(Long id, BigDecimal amount) {
+        return updateReturning(CREDIT, id, amount);
+    }
+
+    private Optional<Account> updateReturning(String update, Long id, BigDecimal amount) {
+        em.flush();
+        em.clear();
+        String sql = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof H2Dialect
+                ? "select * from final table (" + update + ")"
+                : update + " returning *";
+        return em.createNativeQuery(sql, Account.class)
+                .setParameter("id", id)
+                .setParameter("amount", amount)
+                .getResultList().stream()
+                .map(Account.class::cast)
+                .findFirst();
+    }
+}
@@ -0,0 +1,32 @@
+package com.training.demobank.repository;
+
+import com.training.demobank.model.AccountStripe;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface AccountStripeRepository extends JpaRepository<AccountStripe, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from AccountStripe s where s.account.id = :accountId order by s.stripeNo")
+    List<AccountStripe> findAllWithLockingByAccountId(@Param("accountId") Long accountId);
+
+    // flushAutomatically writes the pending transaction row first, so the stripe lock is the last one taken
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update AccountStripe s set s.balance = s.balance + :amount where s.account.id = :accountId and s.stripeNo = :stripeNo")
+    int credit(@Param("accountId") Long accountId, @Param("stripeNo") int stripeNo, @Param("amount") BigDecimal amount);
+
+    // One statement, so base and stripes come from the same snapshot
+    @Query("select a.balance + coalesce((select sum(s.balance) from AccountStripe s where s.account = a), 0) " +
+            "from Account a where a.id = :accountId")
+    BigDecimal totalBalance(@Param("accountId") Long accountId);
+
+    @Query("select count(s) from AccountStripe s where s.balance <> 0")
+    long countWithBalance();
+}
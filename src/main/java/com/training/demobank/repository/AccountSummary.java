@@ -0,0 +1,23 @@
+package com.training.demobank.repository;
+
+import com.training.demobank.model.AccountType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * The columns an account listing needs, selected as a constructor projection. {@code balance}
+ * already includes any hot-account stripes; {@code customerId} is read from the foreign key
+ * without touching {@code customers}.
+ */
+public record AccountSummary(Long id,
+                             String accountNumber,
+                             Long customerId,
+                             AccountType accountType,
+                             BigDecimal balance,
+                             Instant openedAt,
+                             BigDecimal interestRate,
+                             BigDecimal overdraftLimit,
+                             String status,
+                             Integer stripeCount) {
+}
@@ -1,11 +1,75 @@
 package com.training.demobank.repository;
 
 import com.training.demobank.model.BankTransaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface BankTransactionRepository extends JpaRepository<BankTransaction, Long> {
+public interface BankTransactionRepository extends JpaRepository<BankTransaction, Long>, BankTransactionRepositoryCustom {
     List<BankTransaction> findByAccount_IdOrderByTxnDateDesc(Long accountId);
-    List<BankTransaction> findAllByOrderByTxnDateDesc();
+
+    // Journal replay: whether an account was posted to after its last journaled record
+    @Query("select new com.training.demobank.repository.AccountLastPosting(t.account.id, max(t.txnDate)) " +
+            "from BankTransaction t where t.account.id in :ids group by t.account.id")
+    List<AccountLastPosting> findLastPostings(@Param("ids") Collection<Long> ids);
+
+    // balance_after backfill: accounts with unfilled rows, then each account's rows in posting order
+    @Query("select distinct t.account.id from BankTransaction t where t.balanceAfter is null order by t.account.id")
+    List<Long> findAccountIdsMissingBalanceAfter();
+
+    @Query("select t from BankTransaction t where t.account.id = :accountId order by t.txnDate, t.id")
+    List<BankTransaction> findPostingOrder(@Param("accountId") Long accountId, Pageable page);
+
+    @Query("select t from BankTransaction t where t.account.id = :accountId " +
+            "and (t.txnDate > :afterDate or (t.txnDate = :afterDate and t.id > :afterId)) order by t.txnDate, t.id")
+    List<BankTransaction> findPostingOrderAfter(@Param("accountId") Long accountId,
+                                                @Param("afterDate") Instant afterDate,
+                                                @Param("afterId") Long afterId,
+                                                Pageable page);
+
+    // Export streams: DTO rows in id order, fetched from a server-side cursor 1000 rows at a time.
+    // Must be consumed inside a transaction (Postgres only honours the fetch size with autocommit off).
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.training.demobank.repository.TransactionRow(t.id, t.account.id, t.txnType, t.amount, t.balanceAfter, t.txnDate, t.note) " +
+            "from BankTransaction t where t.id > :afterId order by t.id")
+    Stream<TransactionRow> streamForExport(@Param("afterId") long afterId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.training.demobank.repository.TransactionRow(t.id, t.account.id, t.txnType, t.amount, t.balanceAfter, t.txnDate, t.note) " +
+            "from BankTransaction t where t.account.id = :accountId and t.id > :afterId order by t.id")
+    Stream<TransactionRow> streamForExport(@Param("accountId") Long accountId, @Param("afterId") long afterId);
+
+    // Reconciliation: rows of one account id range not yet covered by a checkpoint, in (account, id) order
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.training.demobank.repository.TransactionRow(t.id, t.account.id, t.txnType, t.amount, t.balanceAfter, t.txnDate, t.note) " +
+            "from BankTransaction t left join ReconciliationCheckpoint c on c.accountId = t.account.id " +
+            "where t.account.id >= :fromId and t.account.id < :toId and (c.accountId is null or t.id > c.lastTxnId) " +
+            "order by t.account.id, t.id")
+    Stream<TransactionRow> streamUnreconciled(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.training.demobank.repository.TransactionRow(t.id, t.account.id, t.txnType, t.amount, t.balanceAfter, t.txnDate, t.note) " +
+            "from BankTransaction t where t.account.id >= :fromId and t.account.id < :toId order by t.account.id, t.id")
+    Stream<TransactionRow> streamAccountRange(@Param("fromId") long fromId, @Param("toId") long toId);
 }
@@ -0,0 +1,12 @@
+package com.training.demobank.repository;
+
+import java.util.List;
+
+public interface BankTransactionRepositoryCustom {
+
+    /**
+     * Up to {@code limit} transactions matching {@code filter}, newest first by
+     * {@code (txn_date, id)}, starting after {@code after} (or from the newest when {@code null}).
+     */
+    List<TransactionRow> findPage(TransactionFilter filter, TransactionCursor after, int limit);
+}
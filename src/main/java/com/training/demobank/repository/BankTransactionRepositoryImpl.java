@@ -0,0 +1,50 @@
+package com.training.demobank.repository;
+
+import com.training.demobank.model.BankTransaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyset pagination: the cursor becomes a {@code (txn_date, id) < (?, ?)} predicate, so each page
+ * is an index range scan on {@code idx_txn_account_date_id} / {@code idx_txn_date_id} no matter
+ * how deep the client has paged. Rows are projected, so the account is never loaded.
+ */
+class BankTransactionRepositoryImpl implements BankTransactionRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<TransactionRow> findPage(TransactionFilter filter, TransactionCursor after, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<TransactionRow> q = cb.createQuery(TransactionRow.class);
+        Root<BankTransaction> t = q.from(BankTransaction.class);
+        Path<Instant> txnDate = t.get("txnDate");
+        Path<Long> id = t.get("id");
+        Path<Long> accountId = t.get("account").get("id");
+
+        List<Predicate> where = new ArrayList<>();
+        if (filter.accountId() != null) where.add(cb.equal(accountId, filter.accountId()));
+        if (filter.from() != null) where.add(cb.greaterThanOrEqualTo(txnDate, filter.from()));
+        if (filter.to() != null) where.add(cb.lessThan(txnDate, filter.to()));
+        if (filter.txnType() != null) where.add(cb.equal(t.get("txnType"), filter.txnType()));
+        if (after != null) {
+            where.add(cb.or(
+                    cb.lessThan(txnDate, after.txnDate()),
+                    cb.and(cb.equal(txnDate, after.txnDate()), cb.lessThan(id, after.id()))));
+        }
+        q.select(cb.construct(TransactionRow.class, id, accountId, t.get("txnType"), t.get("amount"),
+                        t.get("balanceAfter"), txnDate, t.get("note")))
+                .where(where.toArray(Predicate[]::new)).orderBy(cb.desc(txnDate), cb.desc(id));
+        return em.createQuery(q).setMaxResults(limit).getResultList();
+    }
+}
@@ -2,10 +2,35 @@ package com.training.demobank.repository;
 
 import com.training.demobank.model.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
     Optional<Customer> findByEmail(String email);
-    Optional<Customer> findByEmailIgnoreCase(String email);
+
+    /** Exact match on the unique {@code email_normalized} index; pass {@link Customer#normalizeEmail} output. */
+    Optional<Customer> findByEmailNormalized(String emailNormalized);
+
+    /** The subset of {@code emails} (normalized) that already belong to a customer; one IN query. */
+    @Query("select c.emailNormalized from Customer c where c.emailNormalized in :emails")
+    List<String> findExistingEmailsNormalized(@Param("emails") Collection<String> emails);
+
+    /** Customers whose email equals another customer's once trimmed and lower-cased, grouped by that value. */
+    @Query("select c from Customer c where c.email is not null and exists (select d.id from Customer d " +
+            "where d.id <> c.id and lower(trim(d.email)) = lower(trim(c.email))) order by lower(trim(c.email)), c.id")
+    List<Customer> findEmailCollisions();
+
+    /**
+     * Fills {@code email_normalized} for rows written before the column existed. Rows that would
+     * collide with another customer on the unique index are left NULL (see {@link #findEmailCollisions}).
+     */
+    @Modifying
+    @Query("update Customer c set c.emailNormalized = lower(trim(c.email)) where c.emailNormalized is null and c.email is not null " +
+            "and not exists (select d.id from Customer d where d.id <> c.id and lower(trim(d.email)) = lower(trim(c.email)))")
+    int backfillEmailNormalized();
 }
@@ -0,0 +1,30 @@
+package com.training.demobank.repository;
+
+import com.training.demobank.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyKey k set k.responseBody = :body, k.completedAt = :completedAt " +
+            "where k.key = :key and k.completedAt is null")
+    int complete(@Param("key") String key, @Param("body") String body, @Param("completedAt") Instant completedAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") Instant cutoff);
+
+    /** Reservations whose request never completed: the process died, or its outcome was unknown. */
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.completedAt is null and k.createdAt < :cutoff")
+    int deleteReservationsCreatedBefore(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,25 @@
+package com.training.demobank.repository;
+
+import com.training.demobank.model.InterestRunChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+
+public interface InterestRunChunkRepository extends JpaRepository<InterestRunChunk, Long> {
+    @Query("select c.id from InterestRunChunk c where c.run.id = :runId and c.completedAt is null order by c.fromId")
+    List<Long> findPendingIds(@Param("runId") Long runId);
+
+    long countByRun_Id(Long runId);
+
+    @Query("select coalesce(sum(c.accounts), 0) from InterestRunChunk c where c.run.id = :runId")
+    long sumAccounts(@Param("runId") Long runId);
+
+    // A worker claims its chunk by locking it, so two nodes resuming the same run never apply it twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<InterestRunChunk> findWithLockingById(Long id);
+}
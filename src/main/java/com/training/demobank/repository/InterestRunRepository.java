@@ -0,0 +1,11 @@
+package com.training.demobank.repository;
+
+import com.training.demobank.model.InterestRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface InterestRunRepository extends JpaRepository<InterestRun, Long> {
+    Optional<InterestRun> findByRunTypeAndBusinessDate(InterestRun.Type runType, LocalDate businessDate);
+}
@@ -0,0 +1,22 @@
+package com.training.demobank.repository;
+
+import com.training.demobank.model.LedgerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface LedgerCheckpointRepository extends JpaRepository<LedgerCheckpoint, Long> {
+
+    // Forward only; runs inside the caller's transaction (the writer's batch)
+    @Modifying
+    @Query("update LedgerCheckpoint c set c.journalSeq = :seq, c.updatedAt = :now where c.id = 1 and c.journalSeq < :seq")
+    int advance(@Param("seq") long seq, @Param("now") Instant now);
+
+    // Only for a journal that restarted below the checkpoint (directory replaced)
+    @Modifying
+    @Query("update LedgerCheckpoint c set c.journalSeq = :seq, c.updatedAt = :now where c.id = 1")
+    int reset(@Param("seq") long seq, @Param("now") Instant now);
+}
@@ -0,0 +1,20 @@
+package com.training.demobank.repository;
+
+import com.training.demobank.model.ReconciliationCheckpoint;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.stream.Stream;
+
+public interface ReconciliationCheckpointRepository extends JpaRepository<ReconciliationCheckpoint, Long> {
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select c from ReconciliationCheckpoint c where c.accountId >= :fromId and c.accountId < :toId order by c.accountId")
+    Stream<ReconciliationCheckpoint> streamRange(@Param("fromId") long fromId, @Param("toId") long toId);
+}
@@ -0,0 +1,28 @@
+package com.training.demobank.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Keyset position in a transaction history ordered by {@code txn_date desc, id desc}: the next
+ * page starts strictly after this row. Clients only see the opaque {@link #encode()} form.
+ */
+public record TransactionCursor(Instant txnDate, long id) {
+
+    public String encode() {
+        String raw = txnDate.getEpochSecond() + ":" + txnDate.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 3) throw new IllegalArgumentException();
+            return new TransactionCursor(Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1])),
+                    Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
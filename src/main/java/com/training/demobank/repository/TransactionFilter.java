@@ -0,0 +1,17 @@
+package com.training.demobank.repository;
+
+import java.time.Instant;
+
+/**
+ * Optional filters for a transaction history page; {@code null} means "no filter".
+ * {@code from} is inclusive and {@code to} exclusive.
+ */
+public record TransactionFilter(Long accountId, Instant from, Instant to, String txnType) {
+
+    public TransactionFilter {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        txnType = txnType == null || txnType.isBlank() ? null : txnType.trim().toUpperCase();
+    }
+}
@@ -0,0 +1,17 @@
+package com.training.demobank.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Flat, unmanaged view of a transaction for history pages and exports. Selected as a constructor
+ * projection, so reading it never loads the account and never enters the persistence context.
+ */
+public record TransactionRow(Long id,
+                             Long accountId,
+                             String txnType,
+                             BigDecimal amount,
+                             BigDecimal balanceAfter,
+                             Instant txnDate,
+                             String note) {
+}
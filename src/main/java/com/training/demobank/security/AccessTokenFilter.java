@@ -0,0 +1,67 @@
+package com.training.demobank.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Verifies {@code Authorization: Bearer <token>} on {@code /api/**} (see {@link AccessTokens}).
+ * A valid token puts the customer id in the {@link #CUSTOMER_ID} request attribute; a present but
+ * invalid one is answered with 401. Requests without a token pass through unless
+ * {@code demobank.security.token.enforce=true}. Login, register and CORS preflights are never checked.
+ */
+public class AccessTokenFilter extends OncePerRequestFilter {
+
+    public static final String CUSTOMER_ID = "demobank.customerId";
+    private static final String BEARER = "Bearer ";
+
+    private final AccessTokens tokens;
+    private final boolean enforce;
+
+    public AccessTokenFilter(AccessTokens tokens, boolean enforce) {
+        this.tokens = tokens;
+        this.enforce = enforce;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return "OPTIONS".equals(request.getMethod())
+                || path.equals("/api/auth/login")
+                || path.equals("/api/auth/register");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            if (enforce) {
+                reject(response, "Missing access token");
+                return;
+            }
+            chain.doFilter(request, response);
+            return;
+        }
+        long customerId = tokens.verify(header, BEARER.length());
+        if (customerId == AccessTokens.INVALID) {
+            reject(response, "Invalid or expired access token");
+            return;
+        }
+        request.setAttribute(CUSTOMER_ID, customerId);
+        chain.doFilter(request, response);
+    }
+
+    private static void reject(HttpServletResponse response, String message) throws IOException {
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"unauthorized\",\"message\":\"" + message + "\"}");
+    }
+}
@@ -0,0 +1,211 @@
+package com.training.demobank.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Stateless access tokens: {@code base64url(customerId | expiresAt | nonce) "." base64url(hmac)}.
+ * The payload is three big-endian longs (expiry in epoch seconds, a random nonce for revocation)
+ * and the signature is HMAC-SHA256 truncated to 128 bits, so a token is always 55 characters.
+ * <p>
+ * {@link #verify} does no I/O and no parsing garbage: the token is decoded into pooled buffers and
+ * signed with a pooled {@link Mac}. The only allocation left is the 32-byte array the JDK's
+ * {@code Mac.doFinal} creates internally. The pool is shared rather than thread-local because with
+ * virtual threads every request runs on a new thread and a thread-local would never be reused. Revoked tokens are checked through
+ * {@link TokenRevocations}, whose bloom filter answers almost every lookup without touching the set.
+ * <p>
+ * The key comes from {@code demobank.security.token.secret} (base64, at least 32 bytes). Without
+ * one a random key is generated, so tokens do not survive a restart and are not valid on other nodes.
+ */
+@Component
+public class AccessTokens {
+
+    /** Returned by {@link #verify} for a malformed, forged, expired or revoked token. */
+    public static final long INVALID = -1;
+
+    static final int TOKEN_LENGTH = 55;
+    private static final int PAYLOAD_BYTES = 24;
+    private static final int PAYLOAD_CHARS = 32;
+    private static final int SIGNATURE_BYTES = 16;
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Logger log = LoggerFactory.getLogger(AccessTokens.class);
+
+    private static final byte[] DECODE = new byte[128];
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) DECODE[alphabet.charAt(i)] = (byte) i;
+    }
+
+    /** Reusable buffers and Mac, so verification does not allocate its own. */
+    private static final class Scratch {
+        final Mac mac;
+        final byte[] payload = new byte[PAYLOAD_BYTES];
+        final byte[] signature = new byte[SIGNATURE_BYTES]; // 22 chars: 16 bytes plus 4 zero bits
+        final byte[] expected = new byte[32];
+
+        Scratch(SecretKeySpec key) {
+            try {
+                mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+            }
+        }
+    }
+
+    private final SecretKeySpec key;
+    private final BlockingQueue<Scratch> scratchPool;
+    private final TokenRevocations revocations;
+    private final long ttlSeconds;
+    private final SecureRandom random = new SecureRandom();
+
+    public AccessTokens(TokenRevocations revocations,
+                        @Value("${demobank.security.token.secret:}") String secret,
+                        @Value("${demobank.security.token.ttl:PT1H}") Duration ttl) {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            random.nextBytes(keyBytes);
+            log.warn("demobank.security.token.secret not set; using a random key (tokens end with this process)");
+        } else {
+            keyBytes = Base64.getDecoder().decode(secret.trim());
+            if (keyBytes.length < 32) {
+                throw new IllegalArgumentException("demobank.security.token.secret must decode to at least 32 bytes");
+            }
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.scratchPool = new ArrayBlockingQueue<>(4 * Runtime.getRuntime().availableProcessors());
+        this.revocations = revocations;
+        this.ttlSeconds = ttl.toSeconds();
+    }
+
+    public String issue(Long customerId) {
+        ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_BYTES)
+                .putLong(customerId)
+                .putLong(nowSeconds() + ttlSeconds)
+                .putLong(random.nextLong());
+        byte[] mac;
+        Scratch s = borrow();
+        try {
+            mac = s.mac.doFinal(payload.array());
+        } finally {
+            scratchPool.offer(s);
+        }
+        Base64.Encoder enc = Base64.getUrlEncoder().withoutPadding();
+        return enc.encodeToString(payload.array()) + "." + enc.encodeToString(Arrays.copyOf(mac, SIGNATURE_BYTES));
+    }
+
+    /** The customer id of a valid token, or {@link #INVALID}. */
+    public long verify(CharSequence token) {
+        return verify(token, 0);
+    }
+
+    /** As {@link #verify(CharSequence)} for the token at {@code text[offset..]}, e.g. after "Bearer ". */
+    public long verify(CharSequence text, int offset) {
+        Scratch s = borrow();
+        try {
+            if (!decodeAndCheck(text, offset, s)) {
+                return INVALID;
+            }
+            if (getLong(s.payload, 8) <= nowSeconds() || revocations.isRevoked(getLong(s.payload, 16))) {
+                return INVALID;
+            }
+            return getLong(s.payload, 0);
+        } finally {
+            scratchPool.offer(s);
+        }
+    }
+
+    /** Revokes a valid token until it expires; false if it was invalid or already revoked. */
+    public boolean revoke(CharSequence token) {
+        long expiresAt;
+        long nonce;
+        Scratch s = borrow();
+        try {
+            if (!decodeAndCheck(token, 0, s)) {
+                return false;
+            }
+            expiresAt = getLong(s.payload, 8);
+            nonce = getLong(s.payload, 16);
+        } finally {
+            scratchPool.offer(s);
+        }
+        if (expiresAt <= nowSeconds() || revocations.isRevoked(nonce)) {
+            return false;
+        }
+        revocations.revoke(nonce, expiresAt);
+        return true;
+    }
+
+    /** A pooled scratch, or a new one under a burst; {@code offer} drops extras beyond the pool size. */
+    private Scratch borrow() {
+        Scratch s = scratchPool.poll();
+        return s != null ? s : new Scratch(key);
+    }
+
+    private boolean decodeAndCheck(CharSequence text, int offset, Scratch s) {
+        if (text == null || text.length() - offset != TOKEN_LENGTH || text.charAt(offset + PAYLOAD_CHARS) != '.') {
+            return false;
+        }
+        if (!decode(text, offset, offset + PAYLOAD_CHARS, s.payload)
+                || !decode(text, offset + PAYLOAD_CHARS + 1, offset + TOKEN_LENGTH, s.signature)) {
+            return false;
+        }
+        s.mac.update(s.payload, 0, PAYLOAD_BYTES);
+        try {
+            s.mac.doFinal(s.expected, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        return constantTimeEquals(s.expected, s.signature, SIGNATURE_BYTES);
+    }
+
+    /** Unpadded base64url of {@code token[from, to)} into {@code out}; false unless canonical. */
+    private static boolean decode(CharSequence token, int from, int to, byte[] out) {
+        int bits = 0;
+        int buffered = 0;
+        int o = 0;
+        for (int i = from; i < to; i++) {
+            char c = token.charAt(i);
+            int v = c < 128 ? DECODE[c] : -1;
+            if (v < 0) return false;
+            bits = (bits << 6) | v;
+            buffered += 6;
+            if (buffered >= 8) {
+                buffered -= 8;
+                out[o++] = (byte) (bits >> buffered);
+            }
+        }
+        return (bits & ((1 << buffered) - 1)) == 0; // unused trailing bits must be zero
+    }
+
+    private static boolean constantTimeEquals(byte[] a, byte[] b, int length) {
+        int diff = 0;
+        for (int i = 0; i < length; i++) diff |= a[i] ^ b[i];
+        return diff == 0;
+    }
+
+    private static long getLong(byte[] b, int offset) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) v = (v << 8) | (b[offset + i] & 0xFF);
+        return v;
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
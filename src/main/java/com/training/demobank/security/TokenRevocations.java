@@ -0,0 +1,78 @@
+package com.training.demobank.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Nonces of tokens revoked by logout, kept until the token would have expired anyway.
+ * <p>
+ * Every authenticated request asks {@link #isRevoked}, and almost all of them carry a token that
+ * was never revoked, so a bloom filter ({@code demobank.security.token.revocation-bloom-bits},
+ * three probes) sits in front of the set: a clear bit answers "not revoked" from a few array reads.
+ * Bloom filters cannot drop entries, so {@link #purge} removes expired nonces and rebuilds the
+ * filter from what is left. Revocations are per node and in memory; they are lost on restart.
+ */
+@Component
+public class TokenRevocations {
+
+    private final Map<Long, Long> revoked = new ConcurrentHashMap<>(); // nonce -> expiresAt (epoch s)
+    private final int bits;
+    private volatile AtomicLongArray bloom;
+
+    public TokenRevocations(@Value("${demobank.security.token.revocation-bloom-bits:1048576}") int bits) {
+        this.bits = Math.max(64, Integer.highestOneBit(bits));
+        this.bloom = new AtomicLongArray(this.bits / 64);
+    }
+
+    public boolean isRevoked(long nonce) {
+        AtomicLongArray b = bloom;
+        long h = mix(nonce);
+        for (int i = 0; i < 3; i++) {
+            int bit = (int) (h >>> (i * 21)) & (bits - 1);
+            if ((b.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return revoked.containsKey(nonce);
+    }
+
+    /** Synchronized with {@link #purge} so a revocation cannot fall between rebuild and swap. */
+    public synchronized void revoke(long nonce, long expiresAtEpochSecond) {
+        revoked.put(nonce, expiresAtEpochSecond);
+        set(bloom, nonce);
+    }
+
+    @Scheduled(fixedDelayString = "${demobank.security.token.revocation-purge-ms:60000}")
+    public synchronized void purge() {
+        long now = System.currentTimeMillis() / 1000;
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        AtomicLongArray rebuilt = new AtomicLongArray(bits / 64);
+        for (Long nonce : revoked.keySet()) set(rebuilt, nonce);
+        bloom = rebuilt;
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    /** Callers hold the monitor; the array only publishes the bits to lock-free readers. */
+    private void set(AtomicLongArray b, long nonce) {
+        long h = mix(nonce);
+        for (int i = 0; i < 3; i++) {
+            int bit = (int) (h >>> (i * 21)) & (bits - 1);
+            b.set(bit >>> 6, b.get(bit >>> 6) | (1L << bit));
+        }
+    }
+
+    /** Nonces are random already; the finalizer just keeps forged low-entropy ones from clustering. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
@@ -0,0 +1,21 @@
+package com.training.demobank.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Source of new account numbers for {@link BankingService#createAccount}. The default is
+ * {@link SnowflakeAccountNumberGenerator}; declare another bean as {@code @Primary} to replace it.
+ * Implementations must be thread-safe and must never return the same number twice.
+ */
+public interface AccountNumberGenerator {
+
+    String next();
+
+    /** {@code count} new numbers at once, for bulk account opening. */
+    default List<String> next(int count) {
+        List<String> numbers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) numbers.add(next());
+        return numbers;
+    }
+}
@@ -0,0 +1,138 @@
+package com.training.demobank.service;
+
+import com.training.demobank.model.BankTransaction;
+import com.training.demobank.repository.BankTransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fills {@code transactions.balance_after} for rows written before the column existed and for
+ * striped credits, which are posted without a running balance.
+ * <p>
+ * Accounts with unfilled rows are split into chunks that run in parallel; within an account the
+ * rows are walked in posting order ({@code txn_date, id}) keeping a running balance from zero.
+ * A row that already has a balance is an anchor: the running balance restarts from it, and a
+ * disagreement is counted as a gap (a striped credit that committed after a later debit folded
+ * the stripes, or history that does not start at zero). Each page is its own short transaction,
+ * so postings are never blocked behind a long backfill.
+ */
+@Component
+public class BalanceAfterBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceAfterBackfill.class);
+
+    public record Result(int accounts, long rowsUpdated, long gaps) { }
+
+    private final BankTransactionRepository transactionRepository;
+    private final TransactionTemplate tx;
+    private final int threads;
+    private final int accountsPerChunk;
+    private final int pageSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public BalanceAfterBackfill(BankTransactionRepository transactionRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${demobank.backfill.threads:4}") int threads,
+                                @Value("${demobank.backfill.accounts-per-chunk:100}") int accountsPerChunk,
+                                @Value("${demobank.backfill.page-size:1000}") int pageSize) {
+        this.transactionRepository = transactionRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.threads = Math.max(1, threads);
+        this.accountsPerChunk = Math.max(1, accountsPerChunk);
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    public Result run() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("balance_after backfill already running");
+        }
+        try {
+            List<Long> accountIds = transactionRepository.findAccountIdsMissingBalanceAfter();
+            LongAdder rows = new LongAdder();
+            LongAdder gaps = new LongAdder();
+            AtomicInteger threadNo = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "balance-backfill-" + threadNo.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                List<Future<?>> chunks = new ArrayList<>();
+                for (int i = 0; i < accountIds.size(); i += accountsPerChunk) {
+                    List<Long> chunk = accountIds.subList(i, Math.min(i + accountsPerChunk, accountIds.size()));
+                    chunks.add(pool.submit(() -> {
+                        for (Long id : chunk) backfillAccount(id, rows, gaps);
+                    }));
+                }
+                for (Future<?> f : chunks) await(f);
+            } finally {
+                pool.shutdownNow();
+            }
+            Result result = new Result(accountIds.size(), rows.sum(), gaps.sum());
+            log.info("balance_after backfill: {}", result);
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void backfillAccount(Long accountId, LongAdder rows, LongAdder gaps) {
+        BigDecimal[] running = {BigDecimal.ZERO};
+        Instant afterDate = null;
+        Long afterId = null;
+        while (true) {
+            Instant fromDate = afterDate;
+            Long fromId = afterId;
+            List<BankTransaction> page = tx.execute(status -> {
+                List<BankTransaction> p = fromId == null
+                        ? transactionRepository.findPostingOrder(accountId, PageRequest.ofSize(pageSize))
+                        : transactionRepository.findPostingOrderAfter(accountId, fromDate, fromId, PageRequest.ofSize(pageSize));
+                for (BankTransaction t : p) {
+                    BigDecimal expected = running[0].add(BalanceRules.signedAmount(t.getTxnType(), t.getAmount()));
+                    if (t.getBalanceAfter() == null) {
+                        t.setBalanceAfter(expected);
+                        rows.increment();
+                    } else if (t.getBalanceAfter().compareTo(expected) != 0) {
+                        gaps.increment();
+                    }
+                    running[0] = t.getBalanceAfter();
+                }
+                return p;
+            });
+            if (page.size() < pageSize) return;
+            BankTransaction last = page.get(page.size() - 1);
+            afterDate = last.getTxnDate();
+            afterId = last.getId();
+        }
+    }
+
+    private static void await(Future<?> f) {
+        try {
+            f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during balance_after backfill", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new CompletionException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.training.demobank.service;
+
+import com.training.demobank.model.AccountType;
+
+import java.math.BigDecimal;
+
+/**
+ * Balance rules shared by every posting path (JPA and in-memory ledger engine).
+ * SAVINGS accounts may not go below zero; CURRENT accounts may go down to -overdraftLimit.
+ */
+public final class BalanceRules {
+
+    public static final String NOT_ACTIVE = "Account not active";
+    public static final String INSUFFICIENT_FUNDS = "Insufficient funds for savings account";
+    public static final String OVERDRAFT_EXCEEDED = "Overdraft limit exceeded";
+
+    private BalanceRules() { }
+
+    public static void requirePositive(BigDecimal amount) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+    }
+
+    public static void ensureActive(String status) {
+        if (!"ACTIVE".equalsIgnoreCase(status)) {
+            throw new IllegalStateException(NOT_ACTIVE);
+        }
+    }
+
+    /** The effect of a posting on the balance: credits are positive, debits negative. */
+    public static BigDecimal signedAmount(String txnType, BigDecimal amount) {
+        return switch (txnType) {
+            case "DEPOSIT", "TRANSFER_IN", "TRANSFER_REVERSAL", "INTEREST" -> amount;
+            case "WITHDRAWAL", "TRANSFER_OUT" -> amount.negate();
+            default -> throw new IllegalArgumentException("Unknown transaction type: " + txnType);
+        };
+    }
+
+    public static void checkDebit(AccountType type, BigDecimal overdraftLimit, BigDecimal newBalance) {
+        if (type == AccountType.SAVINGS) {
+            if (newBalance.compareTo(BigDecimal.ZERO) < 0) {
+                throw new IllegalStateException(INSUFFICIENT_FUNDS);
+            }
+        } else {
+            BigDecimal limit = overdraftLimit == null ? BigDecimal.ZERO : overdraftLimit;
+            if (newBalance.compareTo(limit.negate()) < 0) {
+                throw new IllegalStateException(OVERDRAFT_EXCEEDED);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.training.demobank.service;
+
+import com.training.demobank.ledger.PostingOutcomeUnknownException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters for the banking hot paths, exported at {@code /actuator/prometheus}:
+ * <ul>
+ *   <li>{@code demobank.operations} - timer per {@link BankingService} operation, tagged with the
+ *       {@link Outcome} (business rejections are outcomes, not errors)</li>
+ *   <li>{@code demobank.account.lock} - time to acquire account row locks ({@code scope=single|batch})</li>
+ *   <li>{@code demobank.query.rows} - rows returned by the list queries, per {@code query}</li>
+ * </ul>
+ * Postings run their own transactions and are timed including the commit; the {@code @Transactional}
+ * methods (account opening, batches) are timed inside theirs, without it.
+ * <p>
+ * Meters are created once per tag combination and cached, so recording costs a map lookup and a
+ * clock read. Without a registry bean (slice tests) the meters go to a private simple registry.
+ */
+@Component
+public class BankingMetrics {
+
+    public enum Outcome {
+        SUCCESS, INSUFFICIENT_FUNDS, OVERDRAFT_EXCEEDED, NOT_ACTIVE, CONFLICT, INVALID, OVERLOADED, OUTCOME_UNKNOWN, ERROR;
+
+        final String tag = name().toLowerCase(Locale.ROOT);
+
+        static Outcome of(Throwable e) {
+            if (e instanceof IllegalStateException) {
+                String message = e.getMessage() == null ? "" : e.getMessage();
+                return switch (message) {
+                    case BalanceRules.INSUFFICIENT_FUNDS -> INSUFFICIENT_FUNDS;
+                    case BalanceRules.OVERDRAFT_EXCEEDED -> OVERDRAFT_EXCEEDED;
+                    case BalanceRules.NOT_ACTIVE -> NOT_ACTIVE;
+                    default -> CONFLICT;
+                };
+            }
+            if (e instanceof IllegalArgumentException) return INVALID;
+            if (e instanceof PostingOutcomeUnknownException) return OUTCOME_UNKNOWN;
+            if (e instanceof RejectedExecutionException || e instanceof CannotCreateTransactionException) return OVERLOADED;
+            return ERROR;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer[]> operations = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> rows = new ConcurrentHashMap<>();
+    private final Timer singleLock;
+    private final Timer batchLock;
+
+    @Autowired
+    public BankingMetrics(ObjectProvider<MeterRegistry> registry) {
+        this(registry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    public BankingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.singleLock = lockTimer("single");
+        this.batchLock = lockTimer("batch");
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+
+    /** Times {@code work} as {@code operation}; exceptions are tagged with their outcome and rethrown. */
+    public <T> T record(String operation, Supplier<T> work) {
+        long start = registry.config().clock().monotonicTime();
+        Outcome outcome = Outcome.SUCCESS;
+        try {
+            return work.get();
+        } catch (RuntimeException e) {
+            outcome = Outcome.of(e);
+            throw e;
+        } finally {
+            operationTimer(operation, outcome).record(registry.config().clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Time spent waiting for one account row lock ({@code SELECT ... FOR UPDATE}). */
+    public <T> T lock(Supplier<T> acquire) {
+        return singleLock.record(acquire);
+    }
+
+    /** Time spent locking every account a transfer batch touches. */
+    public <T> T lockBatch(Supplier<T> acquire) {
+        return batchLock.record(acquire);
+    }
+
+    public void rows(String query, int count) {
+        rows.computeIfAbsent(query, q -> DistributionSummary.builder("demobank.query.rows")
+                .description("Rows returned by list queries")
+                .tag("query", q)
+                .register(registry)).record(count);
+    }
+
+    private Timer operationTimer(String operation, Outcome outcome) {
+        Timer[] byOutcome = operations.computeIfAbsent(operation, op -> new Timer[Outcome.values().length]);
+        Timer timer = byOutcome[outcome.ordinal()];
+        if (timer == null) {
+            // Racing threads get the same meter back from the registry
+            timer = Timer.builder("demobank.operations")
+                    .description("BankingService operations by outcome")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome.tag)
+                    .register(registry);
+            byOutcome[outcome.ordinal()] = timer;
+        }
+        return timer;
+    }
+
+    private Timer lockTimer(String scope) {
+        return Timer.builder("demobank.account.lock")
+                .description("Time to acquire account row locks")
+                .tag("scope", scope)
+                .register(registry);
+    }
+}
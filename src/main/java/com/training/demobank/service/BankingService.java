@@ -2,216 +2,670 @@ package com.training.demobank.service;
 
 import com.training.demobank.dto.AccountDtos;
 import com.training.demobank.dto.CustomerDtos;
+import com.training.demobank.ledger.LedgerEngine;
 import com.training.demobank.model.*;
 import com.training.demobank.repository.AccountRepository;
+import com.training.demobank.repository.AccountSummary;
 import com.training.demobank.repository.BankTransactionRepository;
 import com.training.demobank.repository.CustomerRepository;
+import com.training.demobank.repository.TransactionCursor;
+import com.training.demobank.repository.TransactionFilter;
+import com.training.demobank.repository.TransactionRow;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Service
 public class BankingService {
+    private static final int LOCK_CHUNK_SIZE = 1000;
+
     private final CustomerRepository customerRepository;
     private final AccountRepository accountRepository;
     private final BankTransactionRepository transactionRepository;
+    private final PostingExecutor postings;
+    private final StripedBalanceService stripes;
+    private final LookupCache lookups;
+    private final BankingMetrics metrics;
+    private final AccountNumberGenerator accountNumbers;
+    private final LedgerEngine ledgerEngine; // null unless demobank.ledger.mode=engine
+
+    @Value("${demobank.transfers.batch.atomic:false}")
+    private boolean batchAtomicByDefault;
+
+    @Value("${demobank.transactions.default-limit:100}")
+    private int defaultPageLimit;
+
+    @Value("${demobank.transactions.max-limit:1000}")
+    private int maxPageLimit;
 
     public BankingService(CustomerRepository customerRepository,
                           AccountRepository accountRepository,
-                          BankTransactionRepository transactionRepository) {
+                          BankTransactionRepository transactionRepository,
+                          PostingExecutor postings,
+                          StripedBalanceService stripes,
+                          LookupCache lookups,
+                          BankingMetrics metrics,
+                          AccountNumberGenerator accountNumbers,
+                          ObjectProvider<LedgerEngine> ledgerEngine) {
         this.customerRepository = customerRepository;
         this.accountRepository = accountRepository;
         this.transactionRepository = transactionRepository;
+        this.postings = postings;
+        this.stripes = stripes;
+        this.lookups = lookups;
+        this.metrics = metrics;
+        this.accountNumbers = accountNumbers;
+        this.ledgerEngine = ledgerEngine.getIfAvailable();
     }
 
     public Customer createCustomer(CustomerDtos.CreateCustomerRequest req) {
+        return createCustomer(req, null);
+    }
+
+    /** Creates the customer with its password hash (may be null) in one insert. */
+    public Customer createCustomer(CustomerDtos.CreateCustomerRequest req, String passwordHash) {
+        return metrics.record("create_customer", () -> insertCustomer(req, passwordHash));
+    }
+
+    private Customer insertCustomer(CustomerDtos.CreateCustomerRequest req, String passwordHash) {
+        Customer c = newCustomer(req);
+        c.setPasswordHash(passwordHash);
+        Customer saved = customerRepository.save(c);
+        if (saved.getEmail() != null) {
+            lookups.evictUnknownEmail(saved.getEmail());
+        }
+        return saved;
+    }
+
+    static Customer newCustomer(CustomerDtos.CreateCustomerRequest req) {
         Customer c = new Customer();
         c.setFirstName(req.firstName);
         c.setLastName(req.lastName);
         c.setEmail(req.email);
         c.setPhone(req.phone);
         c.setDob(req.dob);
-        return customerRepository.save(c);
+        return c;
     }
 
+    /** Cached (see {@link LookupCache}); the returned entity is shared and must not be modified. */
     public Customer getCustomer(Long id) {
-        return customerRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Customer not found: " + id));
+        return metrics.record("get_customer", () -> lookups.customer(id, () -> findCustomer(id)));
     }
 
     public Customer getCustomerByEmail(String email) {
+        return metrics.record("get_customer_by_email", () -> lookupCustomerByEmail(email));
+    }
+
+    private Customer lookupCustomerByEmail(String email) {
         String normalized = email == null ? null : email.trim();
         if (normalized == null || normalized.isEmpty()) {
             throw new IllegalArgumentException("Email required");
         }
-        return customerRepository.findByEmailIgnoreCase(normalized)
-                .orElseThrow(() -> new IllegalArgumentException("Customer not found with email: " + normalized));
+        Long id = lookups.customerId(normalized);
+        if (id != null) {
+            return lookups.customer(id, () -> findCustomer(id));
+        }
+        if (lookups.isUnknownEmail(normalized)) {
+            throw new IllegalArgumentException("Customer not found with email: " + normalized);
+        }
+        long seen = lookups.epoch();
+        Customer c = customerRepository.findByEmailNormalized(Customer.normalizeEmail(normalized)).orElse(null);
+        if (c == null) {
+            lookups.markUnknownEmail(normalized, seen);
+            throw new IllegalArgumentException("Customer not found with email: " + normalized);
+        }
+        lookups.putCustomerId(normalized, c.getId());
+        return lookups.putCustomer(c.getId(), c, seen);
     }
 
+    /** Cached (see {@link LookupCache}); the returned entity is shared and must not be modified. */
     public Account getAccount(Long id) {
-        return accountRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + id));
+        return metrics.record("get_account", () -> cachedAccount(id));
+    }
+
+    private Account cachedAccount(Long id) {
+        return lookups.account(id, () -> stripes.withTotal(findAccount(id)));
     }
 
     public Account getAccountByNumber(String accountNumber) {
-        return accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountNumber));
+        return metrics.record("get_account_by_number", () -> lookupAccountByNumber(accountNumber));
+    }
+
+    private Account lookupAccountByNumber(String accountNumber) {
+        Long id = lookups.accountId(accountNumber);
+        if (id != null) {
+            return cachedAccount(id);
+        }
+        long seen = lookups.epoch();
+        Account a = stripes.withTotal(accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountNumber)));
+        lookups.putAccountId(accountNumber, a.getId());
+        return lookups.putAccount(a.getId(), a, seen);
+    }
+
+    private Customer findCustomer(Long id) {
+        return customerRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Customer not found: " + id));
     }
 
     @Transactional
     public Account createAccount(AccountDtos.CreateAccountRequest req) {
-        Customer customer = getCustomer(req.customerId);
+        return metrics.record("create_account", () -> openAccount(req));
+    }
 
+    private Account openAccount(AccountDtos.CreateAccountRequest req) {
+        Customer customer = findCustomer(req.customerId);
+        Account saved = accountRepository.save(newAccount(customer, req,
+                hasCustomNumber(req) ? req.accountNumber : accountNumbers.next()));
+
+        if (saved.getBalance().compareTo(BigDecimal.ZERO) > 0) {
+            recordTransaction(saved, "DEPOSIT", saved.getBalance(), saved.getBalance(), "Opening balance");
+        }
+
+        return saved;
+    }
+
+    /**
+     * Opens many accounts in one transaction. The customers come from one IN query, generated
+     * numbers are reserved in one call, and the accounts and their opening DEPOSIT rows are
+     * inserted as JDBC batches (pooled sequence ids, {@code hibernate.jdbc.batch_size}). An item
+     * with an unknown customer or a taken account number fails on its own; the others are opened.
+     */
+    @Transactional
+    public AccountDtos.BulkCreateAccountsResponse createAccounts(List<AccountDtos.CreateAccountRequest> requests) {
+        return metrics.record("create_accounts", () -> openAccounts(requests));
+    }
+
+    private AccountDtos.BulkCreateAccountsResponse openAccounts(List<AccountDtos.CreateAccountRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("At least one account is required");
+        }
+        Set<Long> customerIds = new HashSet<>();
+        Set<String> customNumbers = new HashSet<>();
+        int generated = 0;
+        for (AccountDtos.CreateAccountRequest r : requests) {
+            if (r == null) continue;
+            if (r.customerId != null) customerIds.add(r.customerId);
+            if (hasCustomNumber(r)) customNumbers.add(r.accountNumber);
+            else generated++;
+        }
+        Map<Long, Customer> customers = new HashMap<>();
+        customerRepository.findAllById(customerIds).forEach(c -> customers.put(c.getId(), c));
+        Set<String> taken = customNumbers.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(accountRepository.findExistingAccountNumbers(customNumbers));
+        Iterator<String> numbers = accountNumbers.next(generated).iterator();
+
+        List<AccountDtos.BulkCreateAccountItemResult> results = new ArrayList<>(requests.size());
+        List<AccountDtos.BulkCreateAccountItemResult> opened = new ArrayList<>(requests.size());
+        List<Account> accounts = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            AccountDtos.CreateAccountRequest r = requests.get(i);
+            AccountDtos.BulkCreateAccountItemResult item = new AccountDtos.BulkCreateAccountItemResult();
+            item.index = i;
+            results.add(item);
+            try {
+                if (r == null || r.customerId == null || r.accountType == null) {
+                    throw new IllegalArgumentException("customerId and accountType are required");
+                }
+                Customer customer = customers.get(r.customerId);
+                if (customer == null) {
+                    throw new IllegalArgumentException("Customer not found: " + r.customerId);
+                }
+                String number = hasCustomNumber(r) ? r.accountNumber : numbers.next();
+                if (hasCustomNumber(r) && !taken.add(number)) {
+                    throw new IllegalArgumentException("Account number already exists: " + number);
+                }
+                accounts.add(newAccount(customer, r, number));
+                opened.add(item);
+                item.success = true;
+            } catch (IllegalArgumentException e) {
+                item.message = e.getMessage();
+            }
+        }
+
+        accountRepository.saveAll(accounts);
+        List<BankTransaction> deposits = new ArrayList<>();
+        for (int i = 0; i < accounts.size(); i++) {
+            Account a = accounts.get(i);
+            opened.get(i).accountId = a.getId();
+            opened.get(i).accountNumber = a.getAccountNumber();
+            if (a.getBalance().compareTo(BigDecimal.ZERO) > 0) {
+                deposits.add(newTransaction(a, "DEPOSIT", a.getBalance(), a.getBalance(), "Opening balance"));
+            }
+        }
+        transactionRepository.saveAll(deposits);
+
+        AccountDtos.BulkCreateAccountsResponse response = new AccountDtos.BulkCreateAccountsResponse();
+        response.results = results;
+        response.succeeded = accounts.size();
+        response.failed = results.size() - accounts.size();
+        return response;
+    }
+
+    private static boolean hasCustomNumber(AccountDtos.CreateAccountRequest req) {
+        return req.accountNumber != null && !req.accountNumber.isBlank();
+    }
+
+    private static Account newAccount(Customer customer, AccountDtos.CreateAccountRequest req, String accountNumber) {
         Account a = new Account();
         a.setCustomer(customer);
         a.setAccountType(req.accountType);
         a.setInterestRate(req.interestRate);
         a.setOverdraftLimit(req.overdraftLimit);
         a.setStatus("ACTIVE");
-
-        if (req.accountNumber != null && !req.accountNumber.isBlank()) {
-            a.setAccountNumber(req.accountNumber);
-        } else {
-            a.setAccountNumber(generateAccountNumber());
-        }
-
+        a.setAccountNumber(accountNumber);
         if (req.openingBalance != null && req.openingBalance.compareTo(BigDecimal.ZERO) > 0) {
             a.setBalance(req.openingBalance);
         } else {
             a.setBalance(BigDecimal.ZERO);
         }
+        return a;
+    }
 
-        Account saved = accountRepository.save(a);
+    public Account deposit(Long accountId, BigDecimal amount, String note) {
+        Account result = metrics.record("deposit", () -> applyDeposit(accountId, amount, note));
+        lookups.evictAccount(accountId);
+        return result;
+    }
 
-        if (saved.getBalance().compareTo(BigDecimal.ZERO) > 0) {
-            recordTransaction(saved, "DEPOSIT", saved.getBalance(), "Opening balance");
+    private Account applyDeposit(Long accountId, BigDecimal amount, String note) {
+        if (ledgerEngine != null) {
+            return ledgerEngine.deposit(accountId, amount, note);
         }
+        BalanceRules.requirePositive(amount);
+        if (stripes.isStriped(accountId)) {
+            return postings.execute(() -> {
+                Account acc = findAccount(accountId);
+                ensureActive(acc);
+                // Stripe credits are unordered, so they carry no running balance (see BalanceAfterBackfill)
+                recordTransaction(acc, "DEPOSIT", amount, null, note);
+                if (acc.isStriped()) {
+                    stripes.credit(acc, amount);
+                    return acc;
+                }
+                // Striping was turned off on another node; a guarded update still needs no read lock
+                if (accountRepository.creditIfActive(accountId, amount) == 0) {
+                    throw new IllegalStateException(BalanceRules.NOT_ACTIVE);
+                }
+                return findAccount(accountId);
+            });
+        }
+        if (postings.atomic()) {
+            return postings.execute(() -> {
+                // The update returns the row it changed, so the posting is one UPDATE and one INSERT
+                Account saved = accountRepository.creditIfActiveReturning(accountId, amount).orElseThrow(() -> {
+                    ensureActive(findAccount(accountId));
+                    return new IllegalStateException("Concurrent update conflict, please retry");
+                });
+                recordTransaction(saved, "DEPOSIT", amount, saved.getBalance(), note);
+                return saved;
+            });
+        }
+        return postings.execute(() -> {
+            Account acc = loadForPosting(accountId);
+            ensureActive(acc);
+            acc.setBalance(acc.getBalance().add(amount));
+            Account saved = accountRepository.save(acc);
+            recordTransaction(saved, "DEPOSIT", amount, saved.getBalance(), note);
+            return saved;
+        });
+    }
 
-        return saved;
+    public Account withdraw(Long accountId, BigDecimal amount, String note) {
+        Account result = metrics.record("withdraw", () -> applyWithdrawal(accountId, amount, note));
+        lookups.evictAccount(accountId);
+        return result;
     }
 
-    @Transactional
-    public Account deposit(Long accountId, BigDecimal amount, String note) {
-        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Amount must be positive");
+    private Account applyWithdrawal(Long accountId, BigDecimal amount, String note) {
+        if (ledgerEngine != null) {
+            return ledgerEngine.withdraw(accountId, amount, note);
         }
-        Account acc = accountRepository.findWithLockingById(accountId)
-                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountId));
-        ensureActive(acc);
-        acc.setBalance(acc.getBalance().add(amount));
-        Account saved = accountRepository.save(acc);
-        recordTransaction(saved, "DEPOSIT", amount, note);
-        return saved;
+        BalanceRules.requirePositive(amount);
+        // The guarded UPDATE only sees the base balance, so striped accounts take the locking path
+        if (postings.atomic() && !stripes.isStriped(accountId)) {
+            return postings.execute(() -> {
+                Account saved = guardedDebit(accountId, amount);
+                recordTransaction(saved, "WITHDRAWAL", amount, saved.getBalance(), note);
+                return saved;
+            });
+        }
+        return postings.execute(() -> {
+            Account acc = loadForPosting(accountId);
+            ensureActive(acc);
+            stripes.fold(acc);
+
+            BigDecimal newBalance = acc.getBalance().subtract(amount);
+            BalanceRules.checkDebit(acc.getAccountType(), acc.getOverdraftLimit(), newBalance);
+
+            acc.setBalance(newBalance);
+            Account saved = accountRepository.save(acc);
+            recordTransaction(saved, "WITHDRAWAL", amount, saved.getBalance(), note);
+            return saved;
+        });
     }
 
-    @Transactional
-    public Account withdraw(Long accountId, BigDecimal amount, String note) {
-        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Amount must be positive");
+    public void transfer(Long fromAccountId, Long toAccountId, BigDecimal amount, String note) {
+        metrics.record("transfer", () -> {
+            applyTransfer(fromAccountId, toAccountId, amount, note);
+            return null;
+        });
+        lookups.evictAccount(fromAccountId);
+        lookups.evictAccount(toAccountId);
+    }
+
+    private void applyTransfer(Long fromAccountId, Long toAccountId, BigDecimal amount, String note) {
+        if (ledgerEngine != null) {
+            ledgerEngine.transfer(fromAccountId, toAccountId, amount, note);
+            return;
         }
-        Account acc = accountRepository.findWithLockingById(accountId)
-                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountId));
-        ensureActive(acc);
+        if (fromAccountId.equals(toAccountId)) {
+            throw new IllegalArgumentException("Cannot transfer to the same account");
+        }
+        BalanceRules.requirePositive(amount);
+        boolean stripedCredit = stripes.isStriped(toAccountId);
+        postings.execute(() -> {
+            Account from;
+            Account to;
+            if (stripedCredit) {
+                // Hot destination: credit a stripe instead of locking its account row
+                from = loadForPosting(fromAccountId);
+                to = findAccount(toAccountId);
+            } else {
+                // Lock source first, then destination with id ordering to avoid deadlocks
+                Long firstId = Math.min(fromAccountId, toAccountId);
+                Long secondId = Math.max(fromAccountId, toAccountId);
+                Account first = loadForPosting(firstId);
+                Account second = loadForPosting(secondId);
+                from = fromAccountId.equals(firstId) ? first : second;
+                to = toAccountId.equals(secondId) ? second : first;
+            }
 
-        BigDecimal newBalance = acc.getBalance().subtract(amount);
-        if (acc.getAccountType() == AccountType.SAVINGS) {
-            if (newBalance.compareTo(BigDecimal.ZERO) < 0) {
-                throw new IllegalStateException("Insufficient funds for savings account");
+            ensureActive(from);
+            ensureActive(to);
+            stripes.fold(from);
+
+            // Withdraw from source
+            BigDecimal newFrom = from.getBalance().subtract(amount);
+            BalanceRules.checkDebit(from.getAccountType(), from.getOverdraftLimit(), newFrom);
+            from.setBalance(newFrom);
+            accountRepository.save(from);
+            recordTransaction(from, "TRANSFER_OUT", amount, newFrom, note);
+
+            // Deposit to destination
+            if (stripedCredit) {
+                recordTransaction(to, "TRANSFER_IN", amount, null, note);
+                if (to.isStriped()) {
+                    stripes.credit(to, amount);
+                } else if (accountRepository.creditIfActive(toAccountId, amount) == 0) {
+                    // Striping was turned off on another node; the guarded update needs no read lock
+                    throw new IllegalStateException(BalanceRules.NOT_ACTIVE);
+                }
+                return null;
             }
-        } else {
-            BigDecimal limit = acc.getOverdraftLimit() == null ? BigDecimal.ZERO : acc.getOverdraftLimit();
-            if (newBalance.compareTo(limit.negate()) < 0) {
-                throw new IllegalStateException("Overdraft limit exceeded");
+            to.setBalance(to.getBalance().add(amount));
+            accountRepository.save(to);
+            recordTransaction(to, "TRANSFER_IN", amount, to.getBalance(), note);
+            return null;
+        });
+    }
+
+    /**
+     * One guarded UPDATE applies the debit only if the balance rules hold and returns the updated
+     * row. No row is rare, so only then is the account re-read to report the same error the
+     * locking path would.
+     * If that read shows the debit now fits (a concurrent credit landed), the update is retried.
+     */
+    private Account guardedDebit(Long accountId, BigDecimal amount) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            Optional<Account> debited = accountRepository.debitIfAllowedReturning(accountId, amount);
+            if (debited.isPresent()) {
+                return debited.get();
             }
+            Account acc = findAccount(accountId);
+            ensureActive(acc);
+            BalanceRules.checkDebit(acc.getAccountType(), acc.getOverdraftLimit(), acc.getBalance().subtract(amount));
         }
+        throw new IllegalStateException("Concurrent update conflict, please retry");
+    }
 
-        acc.setBalance(newBalance);
-        Account saved = accountRepository.save(acc);
-        recordTransaction(saved, "WITHDRAWAL", amount, note);
-        return saved;
+    private Account findAccount(Long accountId) {
+        return accountRepository.findById(accountId)
+                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountId));
+    }
+
+    /** Row lock in pessimistic/atomic mode; plain read in optimistic mode, where @Version catches conflicts. */
+    private Account loadForPosting(Long accountId) {
+        return (postings.optimistic()
+                ? accountRepository.findById(accountId)
+                : metrics.lock(() -> accountRepository.findWithLockingById(accountId)))
+                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountId));
     }
 
+    /**
+     * Applies many transfers in one DB transaction. Every account the batch touches is locked
+     * once, in ascending id order, and the legs are checked against running in-memory balances.
+     * Per-item mode skips failing items; all-or-nothing mode applies nothing if any item fails.
+     */
     @Transactional
-    public void transfer(Long fromAccountId, Long toAccountId, BigDecimal amount, String note) {
-        if (fromAccountId.equals(toAccountId)) {
-            throw new IllegalArgumentException("Cannot transfer to the same account");
+    public AccountDtos.BatchTransferResponse transferBatch(List<AccountDtos.TransferRequest> transfers, Boolean atomic) {
+        return metrics.record("transfer_batch", () -> applyTransferBatch(transfers, atomic));
+    }
+
+    private AccountDtos.BatchTransferResponse applyTransferBatch(List<AccountDtos.TransferRequest> transfers, Boolean atomic) {
+        if (transfers == null || transfers.isEmpty()) {
+            throw new IllegalArgumentException("At least one transfer is required");
+        }
+        boolean allOrNothing = atomic != null ? atomic : batchAtomicByDefault;
+        if (ledgerEngine != null) {
+            return transferBatchOnEngine(transfers, allOrNothing);
+        }
+
+        TreeSet<Long> ids = new TreeSet<>();
+        for (AccountDtos.TransferRequest t : transfers) {
+            if (t.fromAccountId != null) ids.add(t.fromAccountId);
+            if (t.toAccountId != null) ids.add(t.toAccountId);
         }
-        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Amount must be positive");
-        }
-        // Lock source first, then destination with id ordering to avoid deadlocks
-        Long firstId = Math.min(fromAccountId, toAccountId);
-        Long secondId = Math.max(fromAccountId, toAccountId);
-        Account first = accountRepository.findWithLockingById(firstId)
-                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + firstId));
-        Account second = accountRepository.findWithLockingById(secondId)
-                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + secondId));
-        Account from = fromAccountId.equals(firstId) ? first : second;
-        Account to = toAccountId.equals(secondId) ? second : first;
-
-        ensureActive(from);
-        ensureActive(to);
-
-        // Withdraw from source
-        BigDecimal newFrom = from.getBalance().subtract(amount);
-        if (from.getAccountType() == AccountType.SAVINGS) {
-            if (newFrom.compareTo(BigDecimal.ZERO) < 0) {
-                throw new IllegalStateException("Insufficient funds for savings account");
+        Map<Long, Account> locked = metrics.lockBatch(() -> lockAll(ids));
+
+        // Account rows are locked; now their stripes, folded so debits see the whole balance
+        locked.values().forEach(stripes::fold);
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        locked.forEach((id, a) -> balances.put(id, a.getBalance()));
+        List<BankTransaction> rows = new ArrayList<>(transfers.size() * 2);
+        List<AccountDtos.BatchTransferItemResult> results = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            AccountDtos.TransferRequest t = transfers.get(i);
+            AccountDtos.BatchTransferItemResult r = new AccountDtos.BatchTransferItemResult();
+            r.index = i;
+            try {
+                if (t.fromAccountId == null || t.toAccountId == null) {
+                    throw new IllegalArgumentException("Both account ids are required");
+                }
+                if (t.fromAccountId.equals(t.toAccountId)) {
+                    throw new IllegalArgumentException("Cannot transfer to the same account");
+                }
+                BalanceRules.requirePositive(t.amount);
+                Account from = lockedAccount(locked, t.fromAccountId);
+                Account to = lockedAccount(locked, t.toAccountId);
+                ensureActive(from);
+                ensureActive(to);
+                BigDecimal newFrom = balances.get(from.getId()).subtract(t.amount);
+                BalanceRules.checkDebit(from.getAccountType(), from.getOverdraftLimit(), newFrom);
+                BigDecimal newTo = balances.get(to.getId()).add(t.amount);
+                balances.put(from.getId(), newFrom);
+                balances.put(to.getId(), newTo);
+                rows.add(newTransaction(from, "TRANSFER_OUT", t.amount, newFrom, t.note));
+                rows.add(newTransaction(to, "TRANSFER_IN", t.amount, newTo, t.note));
+                r.success = true;
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                r.success = false;
+                r.message = e.getMessage();
             }
-        } else {
-            BigDecimal limit = from.getOverdraftLimit() == null ? BigDecimal.ZERO : from.getOverdraftLimit();
-            if (newFrom.compareTo(limit.negate()) < 0) {
-                throw new IllegalStateException("Overdraft limit exceeded");
+            results.add(r);
+        }
+
+        AccountDtos.BatchTransferResponse response = batchResponse(results, allOrNothing);
+        if (!response.applied) {
+            return response;
+        }
+        locked.values().forEach(a -> a.setBalance(balances.get(a.getId())));
+        transactionRepository.saveAll(rows);
+        locked.keySet().forEach(lookups::evictAccount);
+        return response;
+    }
+
+    private Map<Long, Account> lockAll(TreeSet<Long> ids) {
+        Map<Long, Account> locked = new HashMap<>();
+        List<Long> chunk = new ArrayList<>(LOCK_CHUNK_SIZE);
+        for (Long id : ids) {
+            chunk.add(id);
+            if (chunk.size() == LOCK_CHUNK_SIZE) {
+                accountRepository.findAllWithLockingByIdIn(chunk).forEach(a -> locked.put(a.getId(), a));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            accountRepository.findAllWithLockingByIdIn(chunk).forEach(a -> locked.put(a.getId(), a));
+        }
+        return locked;
+    }
+
+    private AccountDtos.BatchTransferResponse transferBatchOnEngine(List<AccountDtos.TransferRequest> transfers, boolean allOrNothing) {
+        if (allOrNothing) {
+            throw new IllegalArgumentException("All-or-nothing batches are not supported in ledger engine mode");
+        }
+        List<AccountDtos.BatchTransferItemResult> results = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            AccountDtos.TransferRequest t = transfers.get(i);
+            AccountDtos.BatchTransferItemResult r = new AccountDtos.BatchTransferItemResult();
+            r.index = i;
+            try {
+                transfer(t.fromAccountId, t.toAccountId, t.amount, t.note);
+                r.success = true;
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                r.message = e.getMessage();
+            }
+            results.add(r);
+        }
+        return batchResponse(results, false);
+    }
+
+    private static AccountDtos.BatchTransferResponse batchResponse(List<AccountDtos.BatchTransferItemResult> results, boolean allOrNothing) {
+        AccountDtos.BatchTransferResponse response = new AccountDtos.BatchTransferResponse();
+        response.atomic = allOrNothing;
+        response.results = results;
+        int failed = (int) results.stream().filter(r -> !r.success).count();
+        response.applied = !(allOrNothing && failed > 0);
+        if (!response.applied) {
+            for (AccountDtos.BatchTransferItemResult r : results) {
+                if (r.success) {
+                    r.success = false;
+                    r.message = "Not applied: batch rolled back";
+                }
             }
+            response.succeeded = 0;
+            response.failed = results.size();
+        } else {
+            response.succeeded = results.size() - failed;
+            response.failed = failed;
         }
-        from.setBalance(newFrom);
-        accountRepository.save(from);
-        recordTransaction(from, "TRANSFER_OUT", amount, note);
+        return response;
+    }
 
-        // Deposit to destination
-        to.setBalance(to.getBalance().add(amount));
-        accountRepository.save(to);
-        recordTransaction(to, "TRANSFER_IN", amount, note);
+    private static Account lockedAccount(Map<Long, Account> locked, Long id) {
+        Account a = locked.get(id);
+        if (a == null) {
+            throw new IllegalArgumentException("Account not found: " + id);
+        }
+        return a;
     }
 
-    public List<BankTransaction> listTransactions(Long accountId) {
-        return transactionRepository.findByAccount_IdOrderByTxnDateDesc(accountId);
+    /**
+     * Transaction history newest first, one keyset page at a time. Pass the previous page's
+     * {@code nextCursor} to continue; {@code limit} defaults to {@code demobank.transactions.default-limit}.
+     */
+    public TransactionPage listTransactions(TransactionFilter filter, String cursor, Integer limit) {
+        return metrics.record("list_transactions", () -> transactionPage(filter, cursor, limit));
     }
 
-    public List<Account> getAllAccounts() {
-        return accountRepository.findAll();
+    private TransactionPage transactionPage(TransactionFilter filter, String cursor, Integer limit) {
+        int size = limit == null ? defaultPageLimit : limit;
+        if (size < 1 || size > maxPageLimit) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxPageLimit);
+        }
+        TransactionCursor after = cursor == null || cursor.isBlank() ? null : TransactionCursor.decode(cursor);
+        // one extra row tells us whether there is a next page without a count query
+        List<TransactionRow> rows = transactionRepository.findPage(filter, after, size + 1);
+        metrics.rows("transactions_page", rows.size());
+        if (rows.size() <= size) {
+            return new TransactionPage(rows, null);
+        }
+        List<TransactionRow> page = rows.subList(0, size);
+        TransactionRow last = page.get(size - 1);
+        return new TransactionPage(page, new TransactionCursor(last.txnDate(), last.id()).encode());
     }
 
-    public List<Account> getAccountsByCustomerId(Long customerId) {
-        return accountRepository.findByCustomer_Id(customerId);
+    /** Listing reads are single-statement projections; balances include hot-account stripes. */
+    public List<AccountSummary> getAllAccounts() {
+        return metrics.record("list_accounts", () -> {
+            List<AccountSummary> rows = accountRepository.findAllSummaries();
+            metrics.rows("accounts_all", rows.size());
+            return rows;
+        });
     }
 
-    public List<BankTransaction> getAllTransactions() {
-        return transactionRepository.findAllByOrderByTxnDateDesc();
+    public List<AccountSummary> getAccountsByCustomerId(Long customerId) {
+        return metrics.record("list_customer_accounts", () -> {
+            List<AccountSummary> rows = accountRepository.findSummariesByCustomerId(customerId);
+            metrics.rows("accounts_by_customer", rows.size());
+            return rows;
+        });
     }
 
-    private void ensureActive(Account acc) {
-        if (!"ACTIVE".equalsIgnoreCase(acc.getStatus())) {
-            throw new IllegalStateException("Account not active");
+    /** Turns hot-account striping on (stripes > 0), resizes it, or turns it off (0). */
+    @Transactional
+    public Account configureStripes(Long accountId, int stripeCount) {
+        if (ledgerEngine != null) {
+            throw new IllegalArgumentException("Striping is not used in ledger engine mode");
         }
+        Account acc = metrics.lock(() -> accountRepository.findWithLockingById(accountId))
+                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountId));
+        stripes.configure(acc, stripeCount);
+        lookups.evictAccount(accountId);
+        return accountRepository.save(acc);
+    }
+
+    private void ensureActive(Account acc) {
+        BalanceRules.ensureActive(acc.getStatus());
     }
 
-    private void recordTransaction(Account account, String type, BigDecimal amount, String note) {
+    /** {@code balanceAfter} is the account balance right after this posting, read under the same lock. */
+    private void recordTransaction(Account account, String type, BigDecimal amount, BigDecimal balanceAfter, String note) {
+        transactionRepository.save(newTransaction(account, type, amount, balanceAfter, note));
+    }
+
+    private static BankTransaction newTransaction(Account account, String type, BigDecimal amount, BigDecimal balanceAfter, String note) {
         BankTransaction t = new BankTransaction();
         t.setAccount(account);
         t.setTxnType(type);
         t.setAmount(amount);
+        t.setBalanceAfter(balanceAfter);
         t.setNote(note);
-        transactionRepository.save(t);
-    }
-
-    private String generateAccountNumber() {
-        // Simple unique-ish generator; in production, use a robust generator
-        long epochPart = System.currentTimeMillis();
-        long rand = (long) (Math.random() * 1_000_000L);
-        return "AC" + epochPart + String.format("%06d", rand);
+        return t;
     }
 
     @Transactional
@@ -219,8 +673,9 @@ public class BankingService {
         if (passwordHash == null || passwordHash.isBlank()) {
             throw new IllegalArgumentException("Password hash must not be blank");
         }
-        Customer c = getCustomer(customerId);
+        Customer c = findCustomer(customerId);
         c.setPasswordHash(passwordHash);
+        lookups.evictCustomer(customerId);
         return customerRepository.save(c);
     }
 }
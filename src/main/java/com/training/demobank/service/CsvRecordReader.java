@@ -0,0 +1,101 @@
+package com.training.demobank.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads RFC 4180 records one at a time: fields separated by commas, optionally quoted, with
+ * {@code ""} for a quote and line breaks allowed inside quotes. Only the current record is held,
+ * and a record longer than {@code maxRecordChars} is refused, so memory stays bounded even when
+ * an unbalanced quote would otherwise swallow the rest of the input.
+ */
+final class CsvRecordReader {
+
+    private final Reader in;
+    private final int maxRecordChars;
+    private final char[] buf = new char[64 * 1024];
+    private int pos;
+    private int len;
+    private long line = 1;
+    private long recordLine;
+
+    CsvRecordReader(Reader in, int maxRecordChars) {
+        this.in = in;
+        this.maxRecordChars = maxRecordChars;
+    }
+
+    /** The next record, or null at end of input. Blank lines are skipped. */
+    List<String> next() throws IOException {
+        int c;
+        do {
+            c = read();
+            if (c == '\n') line++;
+        } while (c == '\n' || c == '\r');
+        if (c < 0) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int chars = 0;
+        boolean quoted = false;
+        while (true) {
+            if (++chars > maxRecordChars) {
+                throw new IllegalArgumentException("Record at line " + recordLine + " is longer than " + maxRecordChars + " characters");
+            }
+            if (quoted) {
+                if (c < 0) {
+                    throw new IllegalArgumentException("Unterminated quoted field in record at line " + recordLine);
+                }
+                if (c == '"') {
+                    int n = read();
+                    if (n == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = n;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') line++;
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c < 0) {
+                if (c == '\r') {
+                    int n = read();
+                    if (n >= 0 && n != '\n') pos--; // lone CR: n is still in the buffer, push it back
+                }
+                if (c >= 0) line++;
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /** Line on which the record last returned by {@link #next()} starts. */
+    long recordLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        if (pos == len) {
+            len = in.read(buf, 0, buf.length);
+            pos = 0;
+            if (len <= 0) {
+                len = 0;
+                return -1;
+            }
+        }
+        return buf[pos++];
+    }
+}
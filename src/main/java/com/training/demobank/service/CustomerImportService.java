@@ -0,0 +1,417 @@
+package com.training.demobank.service;
+
+import com.training.demobank.dto.CustomerDtos;
+import com.training.demobank.model.Customer;
+import com.training.demobank.repository.CustomerRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Imports customers from a CSV stream ({@code POST /api/customers/import}). The header row names
+ * the columns ({@code firstName,lastName,email,phone,dob}, any order, unknown ones ignored).
+ * <p>
+ * The request thread parses records and hands them out in chunks of {@code demobank.import.chunk-size}
+ * rows to {@code demobank.import.threads} workers. At most two chunks per worker are in flight, so
+ * heap use depends on the chunk size, not the file size. Each worker validates its rows against
+ * the {@link CustomerDtos.CreateCustomerRequest} constraints, looks the chunk's emails up with one
+ * IN query, and inserts the valid rows in one transaction as JDBC batches. If a concurrent chunk
+ * or registration took an email in the meantime, that chunk is retried row by row.
+ * <p>
+ * Rejected rows go to {@code <rejects-dir>/<id>-rejects.csv} with their line number and reason.
+ * Progress for running and recent imports is at {@link #progress}. Running the same file again
+ * after a failure rejects the rows already imported as duplicate emails, so it finishes the rest.
+ */
+@Service
+public class CustomerImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerImportService.class);
+    private static final String REJECTS_HEADER = "line,reason,firstName,lastName,email,phone,dob";
+    private static final int MAX_RECORD_CHARS = 10_000;
+    private static final int KEEP_JOBS = 20;
+
+    public record Progress(String id, String status, long bytesRead, long rows, long imported, long rejected,
+                           long elapsedMillis, double rowsPerSecond, String rejectsFile, String error) { }
+
+    private record Row(long line, String[] values) { }
+
+    private record ChunkResult(int imported, List<String> rejects) { }
+
+    private final CustomerRepository customerRepository;
+    private final LookupCache lookups;
+    private final Validator validator;
+    private final TransactionTemplate tx;
+    private final int chunkSize;
+    private final int threads;
+    private final Path rejectsDir;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+    public CustomerImportService(CustomerRepository customerRepository,
+                                 LookupCache lookups,
+                                 Validator validator,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${demobank.import.chunk-size:1000}") int chunkSize,
+                                 @Value("${demobank.import.threads:0}") int threads,
+                                 @Value("${demobank.import.rejects-dir:./data/import-rejects}") String rejectsDir) {
+        this.customerRepository = customerRepository;
+        this.lookups = lookups;
+        this.validator = validator;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.rejectsDir = Path.of(rejectsDir);
+    }
+
+    /** Imports the whole stream and returns the final progress; one import runs at a time. */
+    public Progress importCsv(InputStream csv) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A customer import is already in progress");
+        }
+        String id = UUID.randomUUID().toString();
+        Job job = new Job(id, rejectsDir.resolve(id + "-rejects.csv"));
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            if (jobs.size() > KEEP_JOBS) {
+                jobs.entrySet().stream().filter(e -> !e.getValue().isRunning()).findFirst()
+                        .ifPresent(e -> jobs.remove(e.getKey()));
+            }
+        }
+        try {
+            run(job, new CountingInputStream(csv, job));
+            job.finish("COMPLETED", null);
+        } catch (RuntimeException e) {
+            job.finish("FAILED", e.getMessage());
+            throw e;
+        } finally {
+            running.set(false);
+            log.info("Customer import {} {}: {}", job.id, job.status, job.progress());
+        }
+        return job.progress();
+    }
+
+    public Progress progress(String id) {
+        return job(id).progress();
+    }
+
+    /** Running and recent imports, newest last. */
+    public List<Progress> recent() {
+        synchronized (jobs) {
+            return jobs.values().stream().map(Job::progress).toList();
+        }
+    }
+
+    public Path rejectsFile(String id) {
+        Job job = job(id);
+        if (!Files.exists(job.rejects)) {
+            throw new IllegalArgumentException("No rejects file for import " + id);
+        }
+        return job.rejects;
+    }
+
+    private Job job(String id) {
+        synchronized (jobs) {
+            Job job = jobs.get(id);
+            if (job == null) {
+                throw new IllegalArgumentException("Import not found: " + id);
+            }
+            return job;
+        }
+    }
+
+    private void run(Job job, InputStream csv) {
+        CsvRecordReader reader = new CsvRecordReader(new InputStreamReader(csv, StandardCharsets.UTF_8), MAX_RECORD_CHARS);
+        AtomicInteger threadNo = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "customer-import-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Semaphore inFlight = new Semaphore(threads * 2);
+        List<Future<?>> pending = new ArrayList<>();
+        try {
+            Files.createDirectories(rejectsDir);
+            try (Writer rejects = Files.newBufferedWriter(job.rejects, StandardCharsets.UTF_8)) {
+                rejects.write(REJECTS_HEADER);
+                rejects.write('\n');
+                int[] columns = columns(reader.next());
+                List<Row> chunk = new ArrayList<>(chunkSize);
+                List<String> record;
+                while ((record = reader.next()) != null) {
+                    chunk.add(new Row(reader.recordLine(), pick(record, columns)));
+                    if (chunk.size() == chunkSize) {
+                        pending.add(submit(pool, inFlight, chunk, job, rejects));
+                        chunk = new ArrayList<>(chunkSize);
+                        pending.removeIf(Future::isDone);
+                        if (job.failure != null) break;
+                    }
+                }
+                if (!chunk.isEmpty() && job.failure == null) {
+                    pending.add(submit(pool, inFlight, chunk, job, rejects));
+                }
+                for (Future<?> f : pending) {
+                    f.get();
+                }
+                rejects.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during customer import", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Customer import chunk failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        if (job.failure != null) {
+            throw job.failure;
+        }
+    }
+
+    private Future<?> submit(ExecutorService pool, Semaphore inFlight, List<Row> chunk, Job job, Writer rejects)
+            throws InterruptedException {
+        inFlight.acquire();
+        return pool.submit(() -> {
+            try {
+                ChunkResult result = importChunk(chunk);
+                synchronized (rejects) {
+                    for (String line : result.rejects) rejects.write(line);
+                }
+                job.rows.add(chunk.size());
+                job.imported.add(result.imported);
+                job.rejected.add(result.rejects.size());
+            } catch (IOException e) {
+                job.fail(new UncheckedIOException(e));
+            } catch (RuntimeException e) {
+                job.fail(e);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private ChunkResult importChunk(List<Row> rows) {
+        List<String> rejects = new ArrayList<>();
+        List<Row> validRows = new ArrayList<>(rows.size());
+        List<Customer> valid = new ArrayList<>(rows.size());
+        Set<String> emails = new HashSet<>();
+        for (Row row : rows) {
+            String reason;
+            Customer c = null;
+            try {
+                CustomerDtos.CreateCustomerRequest req = toRequest(row.values);
+                Set<ConstraintViolation<CustomerDtos.CreateCustomerRequest>> violations = validator.validate(req);
+                if (!violations.isEmpty()) {
+                    reason = violations.stream()
+                            .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                            .sorted()
+                            .collect(Collectors.joining("; "));
+                } else if (req.email != null && !emails.add(Customer.normalizeEmail(req.email))) {
+                    reason = "email: duplicate in file";
+                } else {
+                    reason = null;
+                    c = BankingService.newCustomer(req);
+                }
+            } catch (DateTimeParseException e) {
+                reason = "dob: must be an ISO date (yyyy-MM-dd)";
+            }
+            if (reason != null) {
+                rejects.add(rejectLine(row, reason));
+            } else {
+                validRows.add(row);
+                valid.add(c);
+            }
+        }
+
+        if (!emails.isEmpty()) {
+            Set<String> taken = new HashSet<>(customerRepository.findExistingEmailsNormalized(emails));
+            for (int i = valid.size() - 1; i >= 0 && !taken.isEmpty(); i--) {
+                if (valid.get(i).getEmail() != null && taken.contains(Customer.normalizeEmail(valid.get(i).getEmail()))) {
+                    rejects.add(rejectLine(validRows.get(i), "email: already exists"));
+                    valid.remove(i);
+                    validRows.remove(i);
+                }
+            }
+        }
+        if (valid.isEmpty()) {
+            return new ChunkResult(0, rejects);
+        }
+        try {
+            tx.executeWithoutResult(status -> insert(valid));
+            return new ChunkResult(valid.size(), rejects);
+        } catch (DataIntegrityViolationException e) {
+            // An email was taken after the lookup (another chunk or a registration): go row by row
+            int imported = 0;
+            for (int i = 0; i < valid.size(); i++) {
+                Customer c = valid.get(i);
+                c.setId(null);
+                try {
+                    tx.executeWithoutResult(status -> insert(List.of(c)));
+                    imported++;
+                } catch (DataIntegrityViolationException rowFailure) {
+                    rejects.add(rejectLine(validRows.get(i), "email: already exists"));
+                }
+            }
+            return new ChunkResult(imported, rejects);
+        }
+    }
+
+    private void insert(List<Customer> customers) {
+        customerRepository.saveAll(customers);
+        for (Customer c : customers) {
+            if (c.getEmail() != null) lookups.evictUnknownEmail(c.getEmail());
+        }
+    }
+
+    private static CustomerDtos.CreateCustomerRequest toRequest(String[] v) {
+        CustomerDtos.CreateCustomerRequest req = new CustomerDtos.CreateCustomerRequest();
+        req.firstName = v[0];
+        req.lastName = v[1];
+        req.email = v[2];
+        req.phone = v[3];
+        req.dob = v[4] == null ? null : LocalDate.parse(v[4]);
+        return req;
+    }
+
+    /** Index of each of firstName, lastName, email, phone, dob in the header, -1 if absent. */
+    private static int[] columns(List<String> header) {
+        if (header == null) {
+            throw new IllegalArgumentException("CSV is empty; expected a header row");
+        }
+        Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            byName.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!byName.containsKey("firstname")) {
+            throw new IllegalArgumentException("CSV header must include firstName; got " + header);
+        }
+        String[] names = {"firstname", "lastname", "email", "phone", "dob"};
+        int[] columns = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            columns[i] = byName.getOrDefault(names[i], -1);
+        }
+        return columns;
+    }
+
+    /** The known columns of a record, trimmed; missing or empty values become null. */
+    private static String[] pick(List<String> record, int[] columns) {
+        String[] values = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            int col = columns[i];
+            String v = col >= 0 && col < record.size() ? record.get(col).trim() : "";
+            values[i] = v.isEmpty() ? null : v;
+        }
+        return values;
+    }
+
+    private static String rejectLine(Row row, String reason) {
+        StringBuilder sb = new StringBuilder().append(row.line).append(',').append(TransactionExportService.csv(reason));
+        for (String v : row.values) {
+            sb.append(',').append(TransactionExportService.csv(v));
+        }
+        return sb.append('\n').toString();
+    }
+
+    private static final class Job {
+        final String id;
+        final Path rejects;
+        final long started = System.nanoTime();
+        final LongAdder rows = new LongAdder();
+        final LongAdder imported = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        volatile long bytesRead;
+        volatile String status = "RUNNING";
+        volatile String error;
+        volatile long finished;
+        volatile RuntimeException failure;
+
+        Job(String id, Path rejects) {
+            this.id = id;
+            this.rejects = rejects;
+        }
+
+        boolean isRunning() {
+            return "RUNNING".equals(status);
+        }
+
+        void fail(RuntimeException e) {
+            if (failure == null) failure = e;
+        }
+
+        void finish(String status, String error) {
+            this.finished = System.nanoTime();
+            this.error = error;
+            this.status = status;
+        }
+
+        Progress progress() {
+            long end = finished != 0 ? finished : System.nanoTime();
+            long elapsedMillis = Math.max(1, (end - started) / 1_000_000);
+            long n = rows.sum();
+            return new Progress(id, status, bytesRead, n, imported.sum(), rejected.sum(), elapsedMillis,
+                    n * 1000.0 / elapsedMillis, rejects.toString(), error);
+        }
+    }
+
+    /** Counts bytes as the parser pulls them, so progress can be shown against the upload size. */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final Job job;
+
+        CountingInputStream(InputStream in, Job job) {
+            super(in);
+            this.job = job;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) job.bytesRead++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) job.bytesRead += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.training.demobank.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.training.demobank.ledger.PostingOutcomeUnknownException;
+import com.training.demobank.model.IdempotencyKey;
+import com.training.demobank.repository.IdempotencyKeyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Replays the stored response for a repeated {@code Idempotency-Key} instead of running the
+ * request again.
+ * <p>
+ * Completed keys are kept in a bounded LRU split into independently locked segments, so a
+ * duplicate is answered in O(1) without a database round-trip or any account lock, and lookups
+ * for different keys rarely touch the same segment. The {@code idempotency_keys} table is the
+ * durable record: a new key is reserved there (primary-key insert) before the request runs, which
+ * also makes concurrent duplicates on other nodes fail fast. A request that throws releases its
+ * key, so only successful responses are replayed; a {@link PostingOutcomeUnknownException} keeps
+ * it reserved, since that posting may have gone through.
+ * <p>
+ * The reservation and the posting commit separately; if the process dies between the posting
+ * and {@link IdempotencyKeyRepository#complete}, the key stays reserved and retries get a 409
+ * rather than a second posting.
+ * <p>
+ * {@link #purge} deletes keys older than {@code demobank.idempotency.ttl}, after which the key may
+ * be reused. That includes reservations that never completed: until then they keep answering 409,
+ * since their posting may have gone through.
+ */
+@Component
+public class IdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final IdempotencyKeyRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Segment[] segments;
+    private final Duration ttl;
+
+    public IdempotencyService(IdempotencyKeyRepository repository,
+                              ObjectMapper objectMapper,
+                              @Value("${demobank.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${demobank.idempotency.segments:16}") int segmentCount,
+                              @Value("${demobank.idempotency.ttl:PT24H}") Duration ttl) {
+        if (segmentCount < 1 || Integer.bitCount(segmentCount) != 1) {
+            throw new IllegalArgumentException("demobank.idempotency.segments must be a power of two");
+        }
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.segments = new Segment[segmentCount];
+        int perSegment = Math.max(1, cacheSize / segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * Runs {@code action} once per key. {@code scope} and {@code request} identify the call
+     * (e.g. {@code "POST /api/accounts/7/deposit"} and its body); reusing a key for a different
+     * call is rejected.
+     */
+    public <T> T execute(String key, String scope, Object request, Class<T> responseType, Supplier<T> action) {
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+        String fingerprint = fingerprint(scope, request);
+        Stored cached = segmentFor(key).get(key);
+        // not replayed past the TTL, like a purged row
+        if (cached != null && cached.createdAt().isAfter(Instant.now().minus(ttl))) {
+            return replay(cached, fingerprint, responseType);
+        }
+        try {
+            repository.saveAndFlush(new IdempotencyKey(key, fingerprint));
+        } catch (DataIntegrityViolationException duplicate) {
+            return replayFromTable(key, fingerprint, responseType);
+        }
+
+        T result;
+        try {
+            result = action.get();
+        } catch (PostingOutcomeUnknownException e) {
+            // May have been applied: keep the key reserved so a retry gets 409, not a second posting
+            throw e;
+        } catch (RuntimeException e) {
+            release(key);
+            throw e;
+        }
+        String body = write(result);
+        if (repository.complete(key, body, Instant.now()) == 0) {
+            restore(key, fingerprint, body);
+        }
+        segmentFor(key).put(key, new Stored(fingerprint, body, Instant.now()));
+        return result;
+    }
+
+    /**
+     * The reservation was purged while the request ran (it outlived the TTL). Put the completed
+     * key back; if the key was reserved again meanwhile, that request owns it now.
+     */
+    private void restore(String key, String fingerprint, String body) {
+        log.warn("Idempotency-Key {} was purged before its request completed; storing the response again", key);
+        try {
+            repository.saveAndFlush(IdempotencyKey.completed(key, fingerprint, body, Instant.now()));
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Idempotency-Key {} was reserved again before its first request completed", key);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${demobank.idempotency.purge-ms:60000}")
+    public void purge() {
+        Instant cutoff = Instant.now().minus(ttl);
+        int unresolved = repository.deleteReservationsCreatedBefore(cutoff);
+        int expired = repository.deleteCreatedBefore(cutoff);
+        if (unresolved > 0) {
+            log.warn("Purged {} Idempotency-Key reservations that never completed within {}", unresolved, ttl);
+        }
+        if (expired > 0) {
+            log.info("Purged {} Idempotency-Keys older than {}", expired, ttl);
+        }
+    }
+
+    private <T> T replayFromTable(String key, String fingerprint, Class<T> responseType) {
+        Optional<IdempotencyKey> row = repository.findById(key);
+        if (row.isEmpty() || !row.get().isCompleted()) {
+            throw new IllegalStateException("A request with this Idempotency-Key is still in progress");
+        }
+        Stored stored = new Stored(row.get().getFingerprint(), row.get().getResponseBody(), row.get().getCreatedAt());
+        segmentFor(key).put(key, stored);
+        return replay(stored, fingerprint, responseType);
+    }
+
+    private <T> T replay(Stored stored, String fingerprint, Class<T> responseType) {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            throw new IllegalArgumentException("Idempotency-Key was already used for a different request");
+        }
+        try {
+            return objectMapper.readValue(stored.body(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response for Idempotency-Key is unreadable", e);
+        }
+    }
+
+    private void release(String key) {
+        try {
+            repository.deleteById(key);
+        } catch (RuntimeException e) {
+            log.warn("Could not release Idempotency-Key {}", key, e);
+        }
+    }
+
+    private String fingerprint(String scope, Object request) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(scope.getBytes(StandardCharsets.UTF_8));
+            sha.update((byte) 0);
+            sha.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(sha.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Cannot fingerprint request", e);
+        }
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot store response for Idempotency-Key", e);
+        }
+    }
+
+    private Segment segmentFor(String key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+    }
+
+    private record Stored(String fingerprint, String body, Instant createdAt) { }
+
+    /** One LRU shard; access-ordered, so get() and put() are O(1) and evict the eldest entry. */
+    private static final class Segment {
+        private final Map<String, Stored> entries;
+
+        Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        synchronized Stored get(String key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(String key, Stored value) {
+            entries.put(key, value);
+        }
+    }
+}
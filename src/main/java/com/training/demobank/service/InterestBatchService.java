@@ -0,0 +1,257 @@
+package com.training.demobank.service;
+
+import com.training.demobank.ledger.LedgerEngine;
+import com.training.demobank.model.Account;
+import com.training.demobank.model.BankTransaction;
+import com.training.demobank.model.InterestRun;
+import com.training.demobank.model.InterestRunChunk;
+import com.training.demobank.repository.AccountRepository;
+import com.training.demobank.repository.BankTransactionRepository;
+import com.training.demobank.repository.InterestRunChunkRepository;
+import com.training.demobank.repository.InterestRunRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Interest for SAVINGS accounts, applied in two batch runs per business date:
+ * <ul>
+ *   <li>{@code ACCRUAL} (daily) adds {@code balance * interestRate / daysInYear} to
+ *       {@code accounts.accrued_interest}; no transaction rows are written.</li>
+ *   <li>{@code CAPITALIZATION} (monthly) moves the whole cents of the accrued interest into the
+ *       balance as one {@code INTEREST} transaction per account; the sub-cent remainder stays accrued.</li>
+ * </ul>
+ * A run splits the SAVINGS id space into {@code [fromId, toId)} chunks stored as
+ * {@link InterestRunChunk} rows. {@code demobank.interest.parallelism} virtual threads drain the
+ * chunk list; each chunk is one transaction that locks its accounts in id order (the same order
+ * as transfers), applies them, inserts its transactions in JDBC batches and marks the chunk done.
+ * Starting a run for a date whose earlier run crashed resumes it with only the unfinished chunks.
+ * <p>
+ * The JPA posting paths are the only writers this coordinates with, so runs are refused in
+ * ledger engine mode, where the engine owns {@code accounts.balance}.
+ */
+@Component
+public class InterestBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(InterestBatchService.class);
+    private static final int ACCRUAL_SCALE = 6;
+
+    public record Result(Long runId, InterestRun.Type type, LocalDate businessDate,
+                         long chunks, long chunksResumed, long accounts, long postings,
+                         long elapsedMillis, double accountsPerSecond) { }
+
+    private final AccountRepository accountRepository;
+    private final BankTransactionRepository transactionRepository;
+    private final InterestRunRepository runRepository;
+    private final InterestRunChunkRepository chunkRepository;
+    private final StripedBalanceService stripes;
+    private final LookupCache lookups;
+    private final LedgerEngine ledgerEngine; // null unless demobank.ledger.mode=engine
+    private final TransactionTemplate tx;
+    private final int chunkSize;
+    private final int parallelism;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public InterestBatchService(AccountRepository accountRepository,
+                                BankTransactionRepository transactionRepository,
+                                InterestRunRepository runRepository,
+                                InterestRunChunkRepository chunkRepository,
+                                StripedBalanceService stripes,
+                                LookupCache lookups,
+                                ObjectProvider<LedgerEngine> ledgerEngine,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${demobank.interest.chunk-size:1000}") int chunkSize,
+                                @Value("${demobank.interest.parallelism:4}") int parallelism) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.runRepository = runRepository;
+        this.chunkRepository = chunkRepository;
+        this.stripes = stripes;
+        this.lookups = lookups;
+        this.ledgerEngine = ledgerEngine.getIfAvailable();
+        this.tx = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /** Accrues yesterday's (UTC) interest. */
+    @Scheduled(cron = "${demobank.interest.accrual-cron:-}", zone = "UTC")
+    void scheduledAccrual() {
+        runScheduled(InterestRun.Type.ACCRUAL);
+    }
+
+    /** Meant to run on the 1st, after that day's accrual: capitalizes up to the last day of the previous month. */
+    @Scheduled(cron = "${demobank.interest.capitalization-cron:-}", zone = "UTC")
+    void scheduledCapitalization() {
+        runScheduled(InterestRun.Type.CAPITALIZATION);
+    }
+
+    private void runScheduled(InterestRun.Type type) {
+        try {
+            run(type, LocalDate.now(ZoneOffset.UTC).minusDays(1));
+        } catch (RuntimeException e) {
+            log.error("Scheduled interest {} failed; starting it again resumes unfinished chunks", type, e);
+        }
+    }
+
+    public Result run(InterestRun.Type type, LocalDate businessDate) {
+        if (ledgerEngine != null) {
+            throw new IllegalStateException("Interest runs are not supported in ledger engine mode");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("An interest run is already in progress");
+        }
+        try {
+            long started = System.nanoTime();
+            InterestRun run = tx.execute(status -> startOrResume(type, businessDate));
+            List<Long> pending = chunkRepository.findPendingIds(run.getId());
+            long chunks = chunkRepository.countByRun_Id(run.getId());
+            LongAdder accounts = new LongAdder();
+            LongAdder postings = new LongAdder();
+            drain(new ConcurrentLinkedQueue<>(pending), run, accounts, postings);
+
+            tx.executeWithoutResult(status -> {
+                InterestRun r = runRepository.findById(run.getId()).orElseThrow();
+                r.setAccountsProcessed(chunkRepository.sumAccounts(r.getId()));
+                r.setStatus("COMPLETED");
+                r.setCompletedAt(Instant.now());
+            });
+            long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+            Result result = new Result(run.getId(), type, businessDate, chunks, chunks - pending.size(),
+                    accounts.sum(), postings.sum(), elapsedMillis, accounts.sum() * 1000.0 / elapsedMillis);
+            log.info("Interest run finished: {}", result);
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private InterestRun startOrResume(InterestRun.Type type, LocalDate businessDate) {
+        InterestRun existing = runRepository.findByRunTypeAndBusinessDate(type, businessDate).orElse(null);
+        if (existing != null) {
+            if (existing.isCompleted()) {
+                throw new IllegalStateException("Interest " + type + " for " + businessDate + " already completed");
+            }
+            log.info("Resuming interest {} for {} (run {})", type, businessDate, existing.getId());
+            return existing;
+        }
+        InterestRun run = new InterestRun();
+        run.setRunType(type);
+        run.setBusinessDate(businessDate);
+        runRepository.save(run);
+        Long min = accountRepository.findMinSavingsId();
+        Long max = accountRepository.findMaxSavingsId();
+        if (min != null) {
+            List<InterestRunChunk> chunks = new ArrayList<>();
+            for (long from = min; from <= max; from += chunkSize) {
+                InterestRunChunk c = new InterestRunChunk();
+                c.setRun(run);
+                c.setFromId(from);
+                c.setToId(from + chunkSize);
+                chunks.add(c);
+            }
+            chunkRepository.saveAll(chunks);
+        }
+        return run;
+    }
+
+    /** Runs {@code parallelism} virtual-thread workers over the chunk queue; rethrows the first failure. */
+    private void drain(Queue<Long> queue, InterestRun run, LongAdder accounts, LongAdder postings) {
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < parallelism; i++) {
+                workers.add(pool.submit(() -> {
+                    Long chunkId;
+                    while ((chunkId = queue.poll()) != null) {
+                        Long id = chunkId;
+                        tx.executeWithoutResult(status -> applyChunk(id, run, accounts, postings));
+                    }
+                }));
+            }
+            for (Future<?> w : workers) {
+                try {
+                    w.get();
+                } catch (ExecutionException e) {
+                    queue.clear();
+                    if (e.getCause() instanceof RuntimeException re) throw re;
+                    throw new IllegalStateException("Interest chunk failed", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during interest run", e);
+        }
+    }
+
+    private void applyChunk(Long chunkId, InterestRun run, LongAdder accounts, LongAdder postings) {
+        InterestRunChunk chunk = chunkRepository.findWithLockingById(chunkId).orElseThrow();
+        if (chunk.getCompletedAt() != null) {
+            return; // another node finished it while we queued
+        }
+        List<Account> locked = accountRepository.findSavingsForInterest(chunk.getFromId(), chunk.getToId());
+        List<BankTransaction> rows = new ArrayList<>();
+        for (Account a : locked) {
+            stripes.fold(a);
+            if (run.getRunType() == InterestRun.Type.ACCRUAL) {
+                accrue(a, run.getBusinessDate());
+            } else {
+                BankTransaction t = capitalize(a, run.getBusinessDate());
+                if (t != null) rows.add(t);
+            }
+            lookups.evictAccount(a.getId());
+        }
+        transactionRepository.saveAll(rows);
+        chunk.setAccounts(locked.size());
+        chunk.setCompletedAt(Instant.now());
+        accounts.add(locked.size());
+        postings.add(rows.size());
+    }
+
+    private static void accrue(Account a, LocalDate businessDate) {
+        BigDecimal rate = a.getInterestRate();
+        if (rate == null || rate.signum() <= 0 || a.getBalance().signum() <= 0) {
+            return;
+        }
+        BigDecimal daily = a.getBalance().multiply(rate)
+                .divide(BigDecimal.valueOf(businessDate.lengthOfYear()), ACCRUAL_SCALE, RoundingMode.HALF_EVEN);
+        a.setAccruedInterest(a.getAccruedInterest().add(daily));
+    }
+
+    private static BankTransaction capitalize(Account a, LocalDate businessDate) {
+        BigDecimal amount = a.getAccruedInterest().setScale(2, RoundingMode.DOWN);
+        if (amount.signum() <= 0) {
+            return null;
+        }
+        a.setAccruedInterest(a.getAccruedInterest().subtract(amount));
+        a.setBalance(a.getBalance().add(amount));
+        BankTransaction t = new BankTransaction();
+        t.setAccount(a);
+        t.setTxnType("INTEREST");
+        t.setAmount(amount);
+        t.setBalanceAfter(a.getBalance());
+        t.setNote("Interest " + YearMonth.from(businessDate));
+        return t;
+    }
+}
@@ -0,0 +1,244 @@
+package com.training.demobank.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.training.demobank.model.Account;
+import com.training.demobank.model.Customer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for the single-entity lookups in {@link BankingService}: accounts and
+ * customers by id, plus account number / email to id (both immutable, so never invalidated).
+ * Size and TTL come from {@code demobank.cache.spec}; {@code demobank.cache.enabled=false}
+ * turns every call into a plain load.
+ * <p>
+ * Emails that matched no customer go into a separate negative cache
+ * ({@code demobank.cache.negative-spec}), so repeated logins for unknown addresses
+ * (credential stuffing) are answered without a query. Registering a customer clears its
+ * email after commit.
+ * <p>
+ * Writers call {@link #evictAccount} / {@link #evictCustomer}; inside a transaction the eviction
+ * runs after commit, so no reader can re-cache the old row from a transaction that then commits.
+ * Readers take {@link #epoch()} before querying and pass it to the put. Every eviction advances
+ * the epoch and stamps the evicted key's stripe with it, and a put whose stripe was stamped after
+ * the caller's epoch is dropped again. Stripes are per cache and per key hash, so under write
+ * load an eviction of account A only drops loads of the few keys sharing A's stripe.
+ * Cached entities are detached and shared: callers must not modify them.
+ */
+@Component
+public class LookupCache {
+
+    private final boolean enabled;
+    private final Cache<Long, Account> accounts;
+    private final Cache<String, Long> accountIds;
+    private final Cache<Long, Customer> customers;
+    private final Cache<String, Long> customerIds;
+    private final Cache<String, Boolean> unknownEmails;
+    private final AtomicLong epoch = new AtomicLong();
+    private final Stamps accountStamps = new Stamps();
+    private final Stamps customerStamps = new Stamps();
+    private final Stamps unknownEmailStamps = new Stamps();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Autowired
+    public LookupCache(@Value("${demobank.cache.enabled:true}") boolean enabled,
+                       @Value("${demobank.cache.spec:maximumSize=10000,expireAfterWrite=30s}") String spec,
+                       @Value("${demobank.cache.negative-spec:maximumSize=100000,expireAfterWrite=5m}") String negativeSpec,
+                       ObjectProvider<MeterRegistry> registry) {
+        this(enabled, spec, negativeSpec);
+        registry.ifAvailable(this::bindTo);
+    }
+
+    public LookupCache(boolean enabled, String spec, String negativeSpec) {
+        this.enabled = enabled;
+        this.accounts = Caffeine.from(spec).recordStats().build();
+        this.accountIds = Caffeine.from(spec).recordStats().build();
+        this.customers = Caffeine.from(spec).recordStats().build();
+        this.customerIds = Caffeine.from(spec).recordStats().build();
+        this.unknownEmails = Caffeine.from(negativeSpec).recordStats().build();
+    }
+
+    /** Publishes each cache's size, gets (hit/miss), puts and evictions as {@code cache.*} meters tagged {@code cache=lookup.*}. */
+    void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, accounts, "lookup.accounts");
+        CaffeineCacheMetrics.monitor(registry, accountIds, "lookup.account-ids");
+        CaffeineCacheMetrics.monitor(registry, customers, "lookup.customers");
+        CaffeineCacheMetrics.monitor(registry, customerIds, "lookup.customer-ids");
+        CaffeineCacheMetrics.monitor(registry, unknownEmails, "lookup.unknown-emails");
+    }
+
+    public Account account(Long id, Supplier<Account> loader) {
+        return readThrough(accounts, accountStamps, id, loader);
+    }
+
+    /**
+     * Caches an account loaded by another key and returns the instance to use (an already cached
+     * one wins); {@code seenEpoch} is {@link #epoch()} from before the query.
+     */
+    public Account putAccount(Long id, Account account, long seenEpoch) {
+        return enabled ? putIfAbsent(accounts, accountStamps, id, account, seenEpoch) : account;
+    }
+
+    public Long accountId(String accountNumber) {
+        return enabled ? accountIds.getIfPresent(accountNumber) : null;
+    }
+
+    public void putAccountId(String accountNumber, Long id) {
+        if (enabled) accountIds.put(accountNumber, id);
+    }
+
+    public Customer customer(Long id, Supplier<Customer> loader) {
+        return readThrough(customers, customerStamps, id, loader);
+    }
+
+    /** As {@link #putAccount}, for a customer. */
+    public Customer putCustomer(Long id, Customer customer, long seenEpoch) {
+        return enabled ? putIfAbsent(customers, customerStamps, id, customer, seenEpoch) : customer;
+    }
+
+    public Long customerId(String email) {
+        return enabled ? customerIds.getIfPresent(Customer.normalizeEmail(email)) : null;
+    }
+
+    public void putCustomerId(String email, Long id) {
+        if (enabled) customerIds.put(Customer.normalizeEmail(email), id);
+    }
+
+    public boolean isUnknownEmail(String email) {
+        return enabled && unknownEmails.getIfPresent(Customer.normalizeEmail(email)) != null;
+    }
+
+    /** Call with the epoch read before the lookup that found nothing; see {@link #epoch()}. */
+    public void markUnknownEmail(String email, long seenEpoch) {
+        if (enabled) putChecked(unknownEmails, unknownEmailStamps, Customer.normalizeEmail(email), Boolean.TRUE, seenEpoch);
+    }
+
+    /** Forgets a negative entry once the caller's transaction (which created the customer) commits. */
+    public void evictUnknownEmail(String email) {
+        String key = Customer.normalizeEmail(email);
+        afterCommit(unknownEmails, unknownEmailStamps, key);
+    }
+
+    /** Read before a load whose result may be cached, and pass to the matching put. */
+    public long epoch() {
+        return epoch.get();
+    }
+
+    public void evictAccount(Long id) {
+        afterCommit(accounts, accountStamps, id);
+    }
+
+    public void evictCustomer(Long id) {
+        afterCommit(customers, customerStamps, id);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("invalidations", invalidations.sum());
+        out.put("accounts", stats(accounts));
+        out.put("accountIds", stats(accountIds));
+        out.put("customers", stats(customers));
+        out.put("customerIds", stats(customerIds));
+        out.put("unknownEmails", stats(unknownEmails));
+        return out;
+    }
+
+    private <K, V> V readThrough(Cache<K, V> cache, Stamps stamps, K key, Supplier<V> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        V value = cache.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        long seen = epoch.get();
+        value = loader.get();
+        return putChecked(cache, stamps, key, value, seen);
+    }
+
+    private <K, V> V putIfAbsent(Cache<K, V> cache, Stamps stamps, K key, V value, long seen) {
+        V cached = cache.getIfPresent(key);
+        return cached != null ? cached : putChecked(cache, stamps, key, value, seen);
+    }
+
+    /**
+     * Stores unless an entry is already cached (which is then returned), and drops the stored value
+     * again if the key's stripe was invalidated since {@code seen}. Checking after the put closes the
+     * window where an eviction lands between the check and the put.
+     */
+    private <K, V> V putChecked(Cache<K, V> cache, Stamps stamps, K key, V value, long seen) {
+        V cached = cache.asMap().putIfAbsent(key, value);
+        if (cached != null) {
+            return cached;
+        }
+        if (stamps.get(key) > seen) {
+            cache.asMap().remove(key, value);
+        }
+        return value;
+    }
+
+    private <K> void afterCommit(Cache<K, ?> cache, Stamps stamps, K key) {
+        Runnable action = () -> {
+            // Stamp before invalidating: a put that checks before the stamp is removed by the invalidate
+            stamps.advance(key, epoch.incrementAndGet());
+            cache.invalidate(key);
+            invalidations.increment();
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /** Epoch of the last invalidation per key stripe; a collision only costs a dropped put. */
+    private static final class Stamps {
+        private static final int STRIPES = 4096;
+        private final AtomicLongArray stamps = new AtomicLongArray(STRIPES);
+
+        long get(Object key) {
+            return stamps.get(index(key));
+        }
+
+        void advance(Object key, long epoch) {
+            stamps.accumulateAndGet(index(key), epoch, Math::max);
+        }
+
+        private static int index(Object key) {
+            int h = key.hashCode();
+            return (h ^ (h >>> 16)) & (STRIPES - 1);
+        }
+    }
+
+    private static Map<String, Object> stats(Cache<?, ?> cache) {
+        CacheStats s = cache.stats();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("size", cache.estimatedSize());
+        out.put("hits", s.hitCount());
+        out.put("misses", s.missCount());
+        out.put("hitRate", s.hitRate());
+        out.put("evictions", s.evictionCount());
+        return out;
+    }
+}
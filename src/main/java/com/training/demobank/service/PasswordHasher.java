@@ -0,0 +1,121 @@
+package com.training.demobank.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs BCrypt {@code encode} / {@code matches} on a fixed pool sized to the CPU count
+ * ({@code demobank.security.hashing.threads}, 0 = available processors) instead of on request
+ * threads, so a login burst costs at most that many cores and the posting endpoints keep theirs.
+ * <p>
+ * Waiting work is capped by {@code demobank.security.hashing.queue-capacity}; beyond that a call
+ * fails at once with {@link RejectedExecutionException}, which the API answers with 503.
+ * The calling thread still waits for its own hash, but it waits idle rather than burning CPU.
+ * <p>
+ * Meters: {@code demobank.password.hashing} (BCrypt time on the pool, {@code op=encode|matches}),
+ * {@code demobank.password.queue.wait} (time queued before a pool thread picked the hash up) and
+ * gauges for busy threads and queued hashes.
+ */
+@Component
+public class PasswordHasher {
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor pool;
+    private final LongAdder rejected = new LongAdder();
+    private final MeterRegistry registry;
+    private final Timer encodeTime;
+    private final Timer matchTime;
+    private final Timer queueWait;
+
+    public PasswordHasher(BCryptPasswordEncoder encoder, BankingMetrics metrics,
+                          @Value("${demobank.security.hashing.threads:0}") int threads,
+                          @Value("${demobank.security.hashing.queue-capacity:64}") int queueCapacity) {
+        this.encoder = encoder;
+        this.registry = metrics.registry();
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNo = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread t = new Thread(r, "password-hasher-" + threadNo.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.encodeTime = hashTimer("encode");
+        this.matchTime = hashTimer("matches");
+        this.queueWait = Timer.builder("demobank.password.queue.wait")
+                .description("Time a hash waited for a pool thread")
+                .register(registry);
+        Gauge.builder("demobank.password.pool.active", pool, ThreadPoolExecutor::getActiveCount)
+                .description("Pool threads busy hashing").register(registry);
+        Gauge.builder("demobank.password.pool.queued", pool, p -> p.getQueue().size())
+                .description("Hashes waiting for a pool thread").register(registry);
+    }
+
+    public String encode(String rawPassword) {
+        return call(encodeTime, () -> encoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return call(matchTime, () -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    /** Pool size, busy threads, queued requests and rejections since startup. */
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("threads", pool.getMaximumPoolSize());
+        m.put("active", pool.getActiveCount());
+        m.put("queued", pool.getQueue().size());
+        m.put("queueCapacity", pool.getQueue().size() + pool.getQueue().remainingCapacity());
+        m.put("completed", pool.getCompletedTaskCount());
+        m.put("rejected", rejected.sum());
+        return m;
+    }
+
+    private Timer hashTimer(String op) {
+        return Timer.builder("demobank.password.hashing")
+                .description("BCrypt time on the hashing pool")
+                .tag("op", op)
+                .register(registry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private <T> T call(Timer hashTime, Callable<T> work) {
+        long queued = registry.config().clock().monotonicTime();
+        try {
+            return pool.submit(() -> {
+                queueWait.record(registry.config().clock().monotonicTime() - queued, TimeUnit.NANOSECONDS);
+                return hashTime.recordCallable(work);
+            }).get();
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new RejectedExecutionException("Password hashing is overloaded, please retry", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new CompletionException(e.getCause());
+        }
+    }
+}
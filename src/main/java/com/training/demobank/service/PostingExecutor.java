@@ -0,0 +1,114 @@
+package com.training.demobank.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs a balance posting in its own transaction according to {@code demobank.ledger.concurrency}:
+ * <ul>
+ *   <li>{@code pessimistic} (default) - accounts are read with {@code SELECT ... FOR UPDATE}, one attempt.</li>
+ *   <li>{@code optimistic} - accounts are read without locks and {@code @Version} detects conflicts at
+ *       commit; the whole transaction is retried with jittered exponential backoff.</li>
+ *   <li>{@code atomic} - deposits and withdrawals are one guarded {@code UPDATE} whose row count
+ *       decides success; transfers keep the pessimistic path. One attempt.</li>
+ * </ul>
+ * A posting that joins a caller's transaction cannot be retried and runs once.
+ */
+@Component
+public class PostingExecutor {
+
+    public enum Concurrency { PESSIMISTIC, OPTIMISTIC, ATOMIC }
+
+    private static final Logger log = LoggerFactory.getLogger(PostingExecutor.class);
+
+    private final TransactionTemplate tx;
+    private final Concurrency concurrency;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final LongAdder postings = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    public PostingExecutor(PlatformTransactionManager transactionManager,
+                           @Value("${demobank.ledger.concurrency:pessimistic}") String concurrency,
+                           @Value("${demobank.ledger.optimistic.max-attempts:5}") int maxAttempts,
+                           @Value("${demobank.ledger.optimistic.backoff-ms:5}") long baseBackoffMillis,
+                           @Value("${demobank.ledger.optimistic.max-backoff-ms:200}") long maxBackoffMillis) {
+        this.tx = new TransactionTemplate(transactionManager);
+        this.concurrency = Concurrency.valueOf(concurrency.trim().toUpperCase());
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public boolean optimistic() {
+        return concurrency == Concurrency.OPTIMISTIC;
+    }
+
+    public boolean atomic() {
+        return concurrency == Concurrency.ATOMIC;
+    }
+
+    public <T> T execute(Supplier<T> posting) {
+        postings.increment();
+        if (!optimistic() || TransactionSynchronizationManager.isActualTransactionActive()) {
+            attempts.increment();
+            return tx.execute(status -> posting.get());
+        }
+        for (int attempt = 1; ; attempt++) {
+            attempts.increment();
+            try {
+                return tx.execute(status -> posting.get());
+            } catch (OptimisticLockingFailureException e) {
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("Optimistic posting gave up after {} attempts", attempt);
+                    throw new IllegalStateException("Concurrent update conflict, please retry");
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    /** Counters since startup; conflictRate is conflicts per attempt. */
+    public Map<String, Object> stats() {
+        long a = attempts.sum();
+        long c = conflicts.sum();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("concurrency", concurrency.name().toLowerCase());
+        m.put("postings", postings.sum());
+        m.put("attempts", a);
+        m.put("retries", a - postings.sum());
+        m.put("conflicts", c);
+        m.put("exhausted", exhausted.sum());
+        m.put("conflictRate", a == 0 ? 0.0 : (double) c / a);
+        return m;
+    }
+
+    private void backoff(int attempt) {
+        long cap = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 20));
+        long sleep = ThreadLocalRandom.current().nextLong(cap + 1);
+        try {
+            Thread.sleep(sleep);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying posting", e);
+        }
+    }
+}
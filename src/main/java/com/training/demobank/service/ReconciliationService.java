@@ -0,0 +1,298 @@
+package com.training.demobank.service;
+
+import com.training.demobank.model.ReconciliationCheckpoint;
+import com.training.demobank.repository.AccountBalance;
+import com.training.demobank.repository.AccountRepository;
+import com.training.demobank.repository.AccountStripeRepository;
+import com.training.demobank.repository.BankTransactionRepository;
+import com.training.demobank.repository.ReconciliationCheckpointRepository;
+import com.training.demobank.repository.TransactionRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Proves that every account's balance (base row plus stripes) equals the signed sum of its
+ * transactions.
+ * <p>
+ * The account id space is split into {@code [fromId, toId)} partitions that run in parallel.
+ * A partition streams its accounts, their {@link ReconciliationCheckpoint}s and the transactions
+ * after each checkpoint, all in account id order, and merges the three streams; an incremental
+ * run therefore reads only rows added since the last run. Matching accounts get their checkpoint
+ * advanced.
+ * <p>
+ * Streams are read without locks, so a posting committing mid-partition, or a transaction id
+ * below a checkpoint committing late (ids come from pooled sequence blocks), can show up as a
+ * mismatch. Every mismatch is rechecked from scratch with the account and its stripes locked;
+ * only accounts that still disagree are reported, and their checkpoints are left alone.
+ */
+@Component
+public class ReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconciliationService.class);
+    private static final int MAX_REPORTED = 100;
+
+    public record Discrepancy(Long accountId, BigDecimal balance, BigDecimal ledgerSum, BigDecimal difference) { }
+
+    public record Result(boolean full, long partitions, long accounts, long transactionsScanned, long rechecked,
+                         long discrepancyCount, List<Discrepancy> discrepancies,
+                         long elapsedMillis, double transactionsPerSecond) { }
+
+    private final AccountRepository accountRepository;
+    private final AccountStripeRepository stripeRepository;
+    private final BankTransactionRepository transactionRepository;
+    private final ReconciliationCheckpointRepository checkpointRepository;
+    private final TransactionTemplate tx;
+    private final TransactionTemplate readOnlyTx;
+    private final int partitionSize;
+    private final int parallelism;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public ReconciliationService(AccountRepository accountRepository,
+                                 AccountStripeRepository stripeRepository,
+                                 BankTransactionRepository transactionRepository,
+                                 ReconciliationCheckpointRepository checkpointRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${demobank.reconciliation.partition-size:10000}") int partitionSize,
+                                 @Value("${demobank.reconciliation.parallelism:4}") int parallelism) {
+        this.accountRepository = accountRepository;
+        this.stripeRepository = stripeRepository;
+        this.transactionRepository = transactionRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.partitionSize = Math.max(1, partitionSize);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    @Scheduled(cron = "${demobank.reconciliation.cron:-}", zone = "UTC")
+    void scheduledRun() {
+        try {
+            Result r = run(false);
+            if (r.discrepancyCount() > 0) {
+                log.warn("Reconciliation found {} accounts whose balance differs from their transactions: {}",
+                        r.discrepancyCount(), r.discrepancies());
+            }
+        } catch (RuntimeException e) {
+            log.error("Scheduled reconciliation failed", e);
+        }
+    }
+
+    /** {@code full=true} ignores the checkpoints and re-sums every transaction. */
+    public Result run(boolean full) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Reconciliation already running");
+        }
+        try {
+            long started = System.nanoTime();
+            Queue<long[]> partitions = new ConcurrentLinkedQueue<>();
+            Long min = accountRepository.findMinId();
+            Long max = accountRepository.findMaxId();
+            if (min != null) {
+                for (long from = min; from <= max; from += partitionSize) {
+                    partitions.add(new long[]{from, from + partitionSize});
+                }
+            }
+            long partitionCount = partitions.size();
+            LongAdder accounts = new LongAdder();
+            LongAdder scanned = new LongAdder();
+            LongAdder rechecked = new LongAdder();
+            List<Discrepancy> discrepancies = Collections.synchronizedList(new ArrayList<>());
+
+            try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> workers = new ArrayList<>();
+                for (int i = 0; i < parallelism; i++) {
+                    workers.add(pool.submit(() -> {
+                        long[] p;
+                        while ((p = partitions.poll()) != null) {
+                            PartitionOutcome out = scan(p[0], p[1], full);
+                            accounts.add(out.accounts);
+                            scanned.add(out.scanned);
+                            rechecked.add(out.suspects.size());
+                            saveCheckpoints(out.matched);
+                            for (Long id : out.suspects) {
+                                Discrepancy d = recheckLocked(id);
+                                if (d != null) discrepancies.add(d);
+                            }
+                        }
+                    }));
+                }
+                for (Future<?> w : workers) {
+                    try {
+                        w.get();
+                    } catch (ExecutionException e) {
+                        partitions.clear();
+                        if (e.getCause() instanceof RuntimeException re) throw re;
+                        throw new IllegalStateException("Reconciliation partition failed", e.getCause());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted during reconciliation", e);
+            }
+
+            long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+            List<Discrepancy> sorted = new ArrayList<>(discrepancies);
+            sorted.sort((a, b) -> a.accountId().compareTo(b.accountId()));
+            Result result = new Result(full, partitionCount, accounts.sum(), scanned.sum(), rechecked.sum(),
+                    sorted.size(), sorted.subList(0, Math.min(MAX_REPORTED, sorted.size())),
+                    elapsedMillis, scanned.sum() * 1000.0 / elapsedMillis);
+            log.info("Reconciliation finished: {} accounts, {} transactions, {} discrepancies in {} ms",
+                    result.accounts(), result.transactionsScanned(), result.discrepancyCount(), elapsedMillis);
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private record PartitionOutcome(long accounts, long scanned,
+                                    List<ReconciliationCheckpoint> matched, List<Long> suspects) { }
+
+    /** Merge-joins accounts, checkpoints and new transactions of one id range, all ordered by account id. */
+    private PartitionOutcome scan(long fromId, long toId, boolean full) {
+        return readOnlyTx.execute(status -> {
+            List<ReconciliationCheckpoint> matched = new ArrayList<>();
+            List<Long> suspects = new ArrayList<>();
+            long accounts = 0;
+            long scanned = 0;
+            try (Stream<AccountBalance> balances = accountRepository.streamBalances(fromId, toId);
+                 Stream<ReconciliationCheckpoint> checkpoints = full ? Stream.empty() : checkpointRepository.streamRange(fromId, toId);
+                 Stream<TransactionRow> rows = full
+                         ? transactionRepository.streamAccountRange(fromId, toId)
+                         : transactionRepository.streamUnreconciled(fromId, toId)) {
+                Iterator<ReconciliationCheckpoint> cps = checkpoints.iterator();
+                Iterator<TransactionRow> txns = rows.iterator();
+                ReconciliationCheckpoint cp = cps.hasNext() ? cps.next() : null;
+                TransactionRow row = txns.hasNext() ? txns.next() : null;
+                for (Iterator<AccountBalance> it = balances.iterator(); it.hasNext(); ) {
+                    AccountBalance account = it.next();
+                    accounts++;
+                    while (cp != null && cp.getAccountId() < account.id()) cp = cps.hasNext() ? cps.next() : null;
+                    boolean hasCheckpoint = cp != null && cp.getAccountId().equals(account.id());
+                    BigDecimal sum = hasCheckpoint ? cp.getRunningSum() : BigDecimal.ZERO;
+                    long lastId = hasCheckpoint ? cp.getLastTxnId() : 0;
+                    long count = hasCheckpoint ? cp.getTxnCount() : 0;
+                    boolean unknownType = false;
+                    // rows of an account that was deleted mid-scan are skipped
+                    while (row != null && row.accountId() <= account.id()) {
+                        if (row.accountId().equals(account.id())) {
+                            scanned++;
+                            count++;
+                            lastId = Math.max(lastId, row.id());
+                            try {
+                                sum = sum.add(BalanceRules.signedAmount(row.txnType(), row.amount()));
+                            } catch (IllegalArgumentException e) {
+                                unknownType = true;
+                            }
+                        }
+                        row = txns.hasNext() ? txns.next() : null;
+                    }
+                    if (!unknownType && sum.compareTo(account.balance()) == 0) {
+                        if (!hasCheckpoint || lastId != cp.getLastTxnId()) {
+                            matched.add(checkpoint(account.id(), lastId, count, sum));
+                        }
+                    } else {
+                        suspects.add(account.id());
+                    }
+                }
+            }
+            return new PartitionOutcome(accounts, scanned, matched, suspects);
+        });
+    }
+
+    private void saveCheckpoints(List<ReconciliationCheckpoint> matched) {
+        if (matched.isEmpty()) return;
+        tx.executeWithoutResult(status -> {
+            Map<Long, ReconciliationCheckpoint> existing = new HashMap<>();
+            for (ReconciliationCheckpoint c : checkpointRepository.findAllById(matched.stream().map(ReconciliationCheckpoint::getAccountId).toList())) {
+                existing.put(c.getAccountId(), c);
+            }
+            List<ReconciliationCheckpoint> inserts = new ArrayList<>();
+            for (ReconciliationCheckpoint m : matched) {
+                ReconciliationCheckpoint c = existing.get(m.getAccountId());
+                if (c == null) {
+                    inserts.add(m);
+                } else {
+                    c.setLastTxnId(m.getLastTxnId());
+                    c.setTxnCount(m.getTxnCount());
+                    c.setRunningSum(m.getRunningSum());
+                    c.setCheckedAt(m.getCheckedAt());
+                }
+            }
+            checkpointRepository.saveAll(inserts);
+        });
+    }
+
+    /**
+     * Re-sums every transaction of the account with the account row and its stripes locked, so no
+     * posting can be half-visible. Returns null (and checkpoints the account) if it now matches.
+     */
+    private Discrepancy recheckLocked(Long accountId) {
+        return tx.execute(status -> {
+            if (accountRepository.findWithLockingById(accountId).isEmpty()) {
+                return null;
+            }
+            stripeRepository.findAllWithLockingByAccountId(accountId);
+            BigDecimal balance = stripeRepository.totalBalance(accountId);
+            BigDecimal sum = BigDecimal.ZERO;
+            long lastId = 0;
+            long count = 0;
+            boolean unknownType = false;
+            try (Stream<TransactionRow> rows = transactionRepository.streamAccountRange(accountId, accountId + 1)) {
+                for (Iterator<TransactionRow> it = rows.iterator(); it.hasNext(); ) {
+                    TransactionRow r = it.next();
+                    count++;
+                    lastId = Math.max(lastId, r.id());
+                    try {
+                        sum = sum.add(BalanceRules.signedAmount(r.txnType(), r.amount()));
+                    } catch (IllegalArgumentException e) {
+                        unknownType = true;
+                    }
+                }
+            }
+            if (!unknownType && sum.compareTo(balance) == 0) {
+                ReconciliationCheckpoint c = checkpointRepository.findById(accountId)
+                        .orElseGet(() -> new ReconciliationCheckpoint(accountId));
+                c.setLastTxnId(lastId);
+                c.setTxnCount(count);
+                c.setRunningSum(sum);
+                c.setCheckedAt(Instant.now());
+                checkpointRepository.save(c);
+                return null;
+            }
+            return new Discrepancy(accountId, balance, sum, balance.subtract(sum));
+        });
+    }
+
+    private static ReconciliationCheckpoint checkpoint(Long accountId, long lastTxnId, long count, BigDecimal sum) {
+        ReconciliationCheckpoint c = new ReconciliationCheckpoint(accountId);
+        c.setLastTxnId(lastTxnId);
+        c.setTxnCount(count);
+        c.setRunningSum(sum);
+        c.setCheckedAt(Instant.now());
+        return c;
+    }
+}
@@ -0,0 +1,130 @@
+package com.training.demobank.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake-style account numbers: a 63-bit id of 41 bits milliseconds since 2024-01-01, 10 bits
+ * node id ({@code demobank.account-number.node-id}, 0..1023) and a 12-bit per-millisecond sequence,
+ * written as {@code AC} + 19 zero-padded digits + a Luhn check digit (22 characters).
+ * <p>
+ * Each instance needs its own node id; then numbers are unique across instances without touching
+ * the database. Within a node, timestamp and sequence live in one {@link AtomicLong} advanced by
+ * CAS, so concurrent callers never block. When the sequence runs out within a millisecond, or the
+ * wall clock steps back, the counter simply keeps counting ahead of the clock and the clock catches
+ * up later. A restart on a node whose clock is behind its previous run could repeat numbers; the
+ * unique constraint on {@code account_number} still catches that.
+ */
+@Component
+public class SnowflakeAccountNumberGenerator implements AccountNumberGenerator {
+
+    static final long EPOCH_MILLIS = 1_704_067_200_000L; // 2024-01-01T00:00:00Z; never change it
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final String PREFIX = "AC";
+    private static final int DIGITS = 19;
+
+    private final long node;
+    private final LongSupplier clock;
+    /** (milliseconds since EPOCH_MILLIS) << SEQUENCE_BITS | sequence of the last number handed out. */
+    private final AtomicLong last = new AtomicLong();
+
+    @Autowired
+    public SnowflakeAccountNumberGenerator(@Value("${demobank.account-number.node-id:0}") int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeAccountNumberGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("demobank.account-number.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.node = nodeId;
+        this.clock = clock;
+    }
+
+    @Override
+    public String next() {
+        return format(nextId());
+    }
+
+    /** Reserves all {@code count} sequence values with a single CAS. */
+    @Override
+    public List<String> next(int count) {
+        long first = reserve(count);
+        List<String> numbers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) numbers.add(format(toId(first + i)));
+        return numbers;
+    }
+
+    long nextId() {
+        return toId(reserve(1));
+    }
+
+    /** Claims {@code count} consecutive timestamp/sequence values and returns the first. */
+    private long reserve(int count) {
+        long now = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long prev;
+        long first;
+        do {
+            prev = last.get();
+            // A new millisecond starts at sequence 0; otherwise take the next sequence, which
+            // carries into the millisecond bits when it overflows
+            first = now > prev ? now : prev + 1;
+        } while (!last.compareAndSet(prev, first + Math.max(count, 1) - 1));
+        return first;
+    }
+
+    private long toId(long timeAndSequence) {
+        long millis = timeAndSequence >>> SEQUENCE_BITS;
+        long sequence = timeAndSequence & ((1L << SEQUENCE_BITS) - 1);
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+    }
+
+    static String format(long id) {
+        char[] out = new char[PREFIX.length() + DIGITS + 1];
+        out[0] = 'A';
+        out[1] = 'C';
+        long rest = id;
+        for (int i = PREFIX.length() + DIGITS - 1; i >= PREFIX.length(); i--) {
+            out[i] = (char) ('0' + rest % 10);
+            rest /= 10;
+        }
+        out[out.length - 1] = (char) ('0' + luhnCheckDigit(out, PREFIX.length(), DIGITS));
+        return new String(out);
+    }
+
+    /** True for {@code AC} + 19 digits + matching Luhn check digit. */
+    public static boolean isValid(String accountNumber) {
+        if (accountNumber == null || accountNumber.length() != PREFIX.length() + DIGITS + 1
+                || !accountNumber.startsWith(PREFIX)) {
+            return false;
+        }
+        char[] chars = accountNumber.toCharArray();
+        for (int i = PREFIX.length(); i < chars.length; i++) {
+            if (chars[i] < '0' || chars[i] > '9') return false;
+        }
+        return chars[chars.length - 1] - '0' == luhnCheckDigit(chars, PREFIX.length(), DIGITS);
+    }
+
+    private static int luhnCheckDigit(char[] digits, int from, int count) {
+        int sum = 0;
+        boolean dbl = true; // rightmost payload digit is doubled, since the check digit follows it
+        for (int i = from + count - 1; i >= from; i--) {
+            int d = digits[i] - '0';
+            if (dbl) {
+                d *= 2;
+                if (d > 9) d -= 9;
+            }
+            sum += d;
+            dbl = !dbl;
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
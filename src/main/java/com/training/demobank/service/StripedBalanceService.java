@@ -0,0 +1,123 @@
+package com.training.demobank.service;
+
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountStripe;
+import com.training.demobank.repository.AccountRepository;
+import com.training.demobank.repository.AccountStripeRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Hot-account striping. A striped account keeps its balance as the {@code accounts} row plus
+ * N {@link AccountStripe} rows. Credits add to a random stripe without touching the account row;
+ * debits lock the account row, then its stripes, and fold everything back into the row.
+ * <p>
+ * Lock order is always account row before its stripes. A credit takes one stripe lock and only
+ * after its transaction row is written, so it never waits while holding a stripe.
+ * The in-memory set of striped ids only routes credits: a stale entry on another node sends a
+ * credit to the account row instead, which is slower but still correct.
+ */
+@Component
+public class StripedBalanceService {
+
+    public static final int MAX_STRIPES = 64;
+
+    private final AccountRepository accountRepository;
+    private final AccountStripeRepository stripeRepository;
+    private final Set<Long> stripedIds = ConcurrentHashMap.newKeySet();
+
+    public StripedBalanceService(AccountRepository accountRepository, AccountStripeRepository stripeRepository) {
+        this.accountRepository = accountRepository;
+        this.stripeRepository = stripeRepository;
+    }
+
+    @PostConstruct
+    void loadStripedIds() {
+        stripedIds.addAll(accountRepository.findStripedIds());
+    }
+
+    public boolean isStriped(Long accountId) {
+        return stripedIds.contains(accountId);
+    }
+
+    /** Adds {@code amount} to a random stripe of an account already checked to be active. */
+    public void credit(Account account, BigDecimal amount) {
+        int stripe = ThreadLocalRandom.current().nextInt(account.getStripeCount());
+        if (stripeRepository.credit(account.getId(), stripe, amount) != 1) {
+            throw new IllegalStateException("Stripe " + stripe + " missing for account " + account.getId());
+        }
+        account.setTotalBalance(stripeRepository.totalBalance(account.getId()));
+    }
+
+    /**
+     * Moves all stripe balances into the base balance of an account the caller has already
+     * loaded for posting, so the usual debit rules see the whole balance. No-op for plain accounts.
+     */
+    public void fold(Account account) {
+        if (!account.isStriped()) {
+            return;
+        }
+        BigDecimal total = account.getBalance();
+        for (AccountStripe s : stripeRepository.findAllWithLockingByAccountId(account.getId())) {
+            if (s.getBalance().signum() != 0) {
+                total = total.add(s.getBalance());
+                s.setBalance(BigDecimal.ZERO);
+            }
+        }
+        account.setBalance(total);
+        account.setTotalBalance(null);
+    }
+
+    /**
+     * Sets the stripe count of a locked account (0 turns striping off). Existing stripe balances
+     * are folded into the account first, so the total balance is unchanged.
+     */
+    public void configure(Account account, int stripes) {
+        if (stripes < 0 || stripes > MAX_STRIPES) {
+            throw new IllegalArgumentException("Stripe count must be between 0 and " + MAX_STRIPES);
+        }
+        BigDecimal total = account.getBalance();
+        List<AccountStripe> existing = stripeRepository.findAllWithLockingByAccountId(account.getId());
+        List<AccountStripe> obsolete = new ArrayList<>();
+        for (AccountStripe s : existing) {
+            total = total.add(s.getBalance());
+            s.setBalance(BigDecimal.ZERO);
+            if (s.getStripeNo() >= stripes) obsolete.add(s);
+        }
+        stripeRepository.deleteAll(obsolete);
+        List<AccountStripe> created = new ArrayList<>();
+        for (int i = existing.size() - obsolete.size(); i < stripes; i++) {
+            AccountStripe s = new AccountStripe();
+            s.setAccount(account);
+            s.setStripeNo(i);
+            created.add(s);
+        }
+        stripeRepository.saveAll(created);
+        account.setBalance(total);
+        account.setTotalBalance(null);
+        account.setStripeCount(stripes);
+        if (stripes > 0) {
+            stripedIds.add(account.getId());
+        } else {
+            stripedIds.remove(account.getId());
+        }
+    }
+
+    public Account withTotal(Account account) {
+        if (account.isStriped()) {
+            account.setTotalBalance(stripeRepository.totalBalance(account.getId()));
+        }
+        return account;
+    }
+
+    public boolean hasUnsweptBalances() {
+        return stripeRepository.countWithBalance() > 0;
+    }
+}
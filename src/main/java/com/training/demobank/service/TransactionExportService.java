@@ -0,0 +1,118 @@
+package com.training.demobank.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.training.demobank.repository.BankTransactionRepository;
+import com.training.demobank.repository.TransactionRow;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes transactions to an output stream row by row, in id order, straight from a JPA stream of
+ * unmanaged {@link TransactionRow}s. Nothing is collected, so heap use does not grow with
+ * the number of rows. A client that lost the connection resumes with {@code afterId} set to the
+ * last id it received.
+ */
+@Service
+public class TransactionExportService {
+
+    public enum Format { NDJSON, CSV }
+
+    static final String CSV_HEADER = "id,accountId,txnType,amount,balanceAfter,txnDate,note";
+    private static final int FLUSH_EVERY = 1000;
+
+    private final BankTransactionRepository transactionRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public TransactionExportService(BankTransactionRepository transactionRepository,
+                                    PlatformTransactionManager transactionManager) {
+        this.transactionRepository = transactionRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    /** Returns the number of rows written. */
+    public long export(Long accountId, long afterId, Format format, OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        Long written = readOnlyTx.execute(status -> {
+            try (Stream<TransactionRow> rows = accountId == null
+                    ? transactionRepository.streamForExport(afterId)
+                    : transactionRepository.streamForExport(accountId, afterId)) {
+                return format == Format.CSV ? writeCsv(rows.iterator(), writer) : writeNdjson(rows.iterator(), writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return written == null ? 0 : written;
+    }
+
+    private long writeNdjson(Iterator<TransactionRow> rows, Writer writer) throws IOException {
+        long n = 0;
+        // the caller owns the underlying stream (it may still have a gzip trailer to write)
+        try (JsonGenerator json = jsonFactory.createGenerator(writer).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            json.setRootValueSeparator(null);
+            while (rows.hasNext()) {
+                TransactionRow r = rows.next();
+                json.writeStartObject();
+                json.writeNumberField("id", r.id());
+                json.writeNumberField("accountId", r.accountId());
+                json.writeStringField("txnType", r.txnType());
+                json.writeNumberField("amount", r.amount());
+                json.writeNumberField("balanceAfter", r.balanceAfter());
+                json.writeStringField("txnDate", r.txnDate() == null ? null : r.txnDate().toString());
+                json.writeStringField("note", r.note());
+                json.writeEndObject();
+                json.writeRaw('\n');
+                if (++n % FLUSH_EVERY == 0) json.flush();
+            }
+        }
+        writer.flush();
+        return n;
+    }
+
+    private long writeCsv(Iterator<TransactionRow> rows, Writer writer) throws IOException {
+        long n = 0;
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (rows.hasNext()) {
+            TransactionRow r = rows.next();
+            writer.write(String.valueOf(r.id()));
+            writer.write(',');
+            writer.write(String.valueOf(r.accountId()));
+            writer.write(',');
+            writer.write(csv(r.txnType()));
+            writer.write(',');
+            writer.write(r.amount().toPlainString());
+            writer.write(',');
+            writer.write(r.balanceAfter() == null ? "" : r.balanceAfter().toPlainString());
+            writer.write(',');
+            writer.write(r.txnDate() == null ? "" : r.txnDate().toString());
+            writer.write(',');
+            writer.write(csv(r.note()));
+            writer.write('\n');
+            if (++n % FLUSH_EVERY == 0) writer.flush();
+        }
+        writer.flush();
+        return n;
+    }
+
+    static String csv(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,9 @@
+package com.training.demobank.service;
+
+import com.training.demobank.repository.TransactionRow;
+
+import java.util.List;
+
+/** One page of transaction history; {@code nextCursor} is null on the last page. */
+public record TransactionPage(List<TransactionRow> items, String nextCursor) {
+}
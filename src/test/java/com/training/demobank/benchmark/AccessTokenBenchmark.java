@@ -0,0 +1,59 @@
+package com.training.demobank.benchmark;
+
+import com.training.demobank.security.AccessTokens;
+import com.training.demobank.security.TokenRevocations;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cost of {@link AccessTokens#verify} per request: valid tokens, forged tokens, and valid tokens
+ * while 100k other tokens are revoked (bloom filter in front of the set). Reports ns/op and heap
+ * bytes allocated per op on the calling thread. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class AccessTokenBenchmark {
+
+    private static final int TOKENS = 1024;
+    private static final int WARMUP = 500_000;
+    private static final int ITERATIONS = 2_000_000;
+    private static final int REVOKED = 100_000;
+
+    @Test
+    void verifyCostPerRequest() {
+        TokenRevocations revocations = new TokenRevocations(1 << 20);
+        AccessTokens tokens = new AccessTokens(revocations,
+                Base64.getEncoder().encodeToString(new byte[32]), Duration.ofHours(1));
+        String[] valid = new String[TOKENS];
+        String[] forged = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            valid[i] = "Bearer " + tokens.issue((long) i + 1);
+            forged[i] = valid[i].substring(0, valid[i].length() - 2) + "AA";
+        }
+
+        System.out.println(measure("valid", tokens, valid));
+        System.out.println(measure("forged", tokens, forged));
+        for (int i = 0; i < REVOKED; i++) tokens.revoke(tokens.issue(1L));
+        System.out.println(measure("valid, " + REVOKED / 1000 + "k revoked", tokens, valid));
+        assertEquals(1L, tokens.verify(valid[0], 7));
+    }
+
+    private static String measure(String label, AccessTokens tokens, String[] headers) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) sink += tokens.verify(headers[i & (TOKENS - 1)], 7);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().threadId();
+        long bytesBefore = threads.getThreadAllocatedBytes(tid);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) sink += tokens.verify(headers[i & (TOKENS - 1)], 7);
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(tid) - bytesBefore;
+        return String.format("%-22s %8.1f ns/op   %6.2f B/op   (sink %d)",
+                label, (double) elapsed / ITERATIONS, (double) bytes / ITERATIONS, sink);
+    }
+}
@@ -0,0 +1,65 @@
+package com.training.demobank.benchmark;
+
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.Customer;
+import com.training.demobank.model.InterestRun;
+import com.training.demobank.repository.AccountRepository;
+import com.training.demobank.repository.CustomerRepository;
+import com.training.demobank.service.InterestBatchService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Accounts/sec of one interest accrual run over many SAVINGS accounts, to size the nightly batch
+ * window. Run with {@code mvn test -Pbenchmark}; tune {@code demobank.interest.*} via -D.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"demobank.seed.test-user=false", "spring.jpa.show-sql=false"})
+class InterestBatchBenchmark {
+
+    private static final int ACCOUNTS = 50_000;
+
+    @Autowired InterestBatchService interest;
+    @Autowired AccountRepository accountRepository;
+    @Autowired CustomerRepository customerRepository;
+
+    @Test
+    void dailyAccrual_accountsPerSecond() {
+        Customer c = new Customer();
+        c.setFirstName("Bench");
+        c.setEmail("bench-" + UUID.randomUUID() + "@test");
+        customerRepository.save(c);
+        List<Account> batch = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account a = new Account();
+            a.setCustomer(c);
+            a.setAccountType(AccountType.SAVINGS);
+            a.setAccountNumber("IB" + UUID.randomUUID().toString().replace("-", "").substring(0, 20));
+            a.setBalance(new BigDecimal("1000.00"));
+            a.setInterestRate(new BigDecimal("0.0250"));
+            batch.add(a);
+            if (batch.size() == 1000) {
+                accountRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+
+        LocalDate day = LocalDate.of(2023, 6, 1);
+        interest.run(InterestRun.Type.ACCRUAL, day); // warmup
+        InterestBatchService.Result r = interest.run(InterestRun.Type.ACCRUAL, day.plusDays(1));
+        System.out.printf("interest accrual: %d accounts in %d chunks, %d ms, %.0f accounts/s%n",
+                r.accounts(), r.chunks(), r.elapsedMillis(), r.accountsPerSecond());
+        assertEquals(ACCOUNTS, r.accounts());
+    }
+}
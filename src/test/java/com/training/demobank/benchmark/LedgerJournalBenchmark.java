@@ -0,0 +1,86 @@
+package com.training.demobank.benchmark;
+
+import com.training.demobank.ledger.LedgerEntry;
+import com.training.demobank.ledger.LedgerJournal;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Ledger journal throughput: raw append rate (no fsync wait), then appends from many threads that
+ * each wait for durability, with and without a group-commit window. Reports appends per fsync
+ * and the latency of {@code awaitDurable}. Run with {@code mvn test -Pbenchmark}; the numbers
+ * depend entirely on the disk under {@code java.io.tmpdir}.
+ */
+@Tag("benchmark")
+class LedgerJournalBenchmark {
+
+    private static final int RAW_APPENDS = 500_000;
+    private static final int THREADS = 16;
+    private static final int APPENDS_PER_THREAD = 500;
+
+    @TempDir Path tmp;
+
+    private static LedgerEntry entry(long accountId, long i) {
+        return new LedgerEntry(accountId, "DEPOSIT", BigDecimal.ONE, BigDecimal.valueOf(i), "bench", Instant.now());
+    }
+
+    @Test
+    void appendThroughput_andGroupCommitLatency() throws Exception {
+        LedgerJournal raw = new LedgerJournal(Files.createDirectory(tmp.resolve("raw")).toString(), 64 << 20, 200, 30_000);
+        long start = System.nanoTime();
+        long seq = 0;
+        for (int i = 0; i < RAW_APPENDS; i++) {
+            seq = raw.append(entry(i % 1000, i));
+        }
+        double appendSecs = (System.nanoTime() - start) / 1e9;
+        raw.awaitDurable(seq);
+        System.out.printf("raw append   %10.0f appends/s (%d records, %s)%n", RAW_APPENDS / appendSecs, RAW_APPENDS, raw.stats());
+        raw.close();
+
+        for (long windowMicros : new long[]{0, 200, 1_000}) {
+            System.out.println(durableRun(windowMicros));
+        }
+    }
+
+    private String durableRun(long windowMicros) throws Exception {
+        Path dir = Files.createDirectory(tmp.resolve("window-" + windowMicros));
+        LedgerJournal journal = new LedgerJournal(dir.toString(), 64 << 20, windowMicros, 30_000);
+        long[] latencies = new long[THREADS * APPENDS_PER_THREAD];
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            int offset = t * APPENDS_PER_THREAD;
+            long accountId = t;
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < APPENDS_PER_THREAD; i++) {
+                    long t0 = System.nanoTime();
+                    journal.awaitDurable(journal.append(entry(accountId, i)));
+                    latencies[offset + i] = System.nanoTime() - t0;
+                }
+            }));
+        }
+        for (Future<?> f : futures) f.get();
+        double secs = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+        Map<String, Object> stats = journal.stats();
+        journal.close();
+        Arrays.sort(latencies);
+        return String.format("window %5d us %8.0f durable appends/s   %6.1f appends/fsync   avg fsync %5s us   p50 %7.3f ms   p99 %7.3f ms",
+                windowMicros, latencies.length / secs, (double) stats.get("appendsPerFsync"), stats.get("avgFsyncMicros"),
+                latencies[latencies.length / 2] / 1e6, latencies[(int) (latencies.length * 0.99)] / 1e6);
+    }
+}
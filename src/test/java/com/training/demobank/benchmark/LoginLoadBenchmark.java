@@ -0,0 +1,137 @@
+package com.training.demobank.benchmark;
+
+import com.training.demobank.dto.AccountDtos;
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.Customer;
+import com.training.demobank.repository.CustomerRepository;
+import com.training.demobank.service.BankingService;
+import com.training.demobank.service.PasswordHasher;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transfer latency alone vs while {@link #LOGIN_THREADS} threads hammer BCrypt verification through
+ * {@link PasswordHasher}, the way concurrent {@code POST /api/auth/login} requests would.
+ * With hashing confined to its pool the transfer p99 should stay close to the baseline; rejected
+ * logins are the overload the API answers with 503. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"demobank.seed.test-user=false", "spring.jpa.show-sql=false",
+        "demobank.security.hashing.queue-capacity=16"})
+class LoginLoadBenchmark {
+
+    private static final int TRANSFER_THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 250;
+    private static final int LOGIN_THREADS = 64;
+
+    @Autowired BankingService bankingService;
+    @Autowired CustomerRepository customerRepository;
+    @Autowired PasswordHasher passwordHasher;
+    @Autowired BCryptPasswordEncoder encoder;
+
+    @Test
+    void transferLatency_withAndWithoutLoginLoad() throws Exception {
+        Customer c = new Customer();
+        c.setFirstName("Bench");
+        c.setEmail("bench-" + UUID.randomUUID() + "@test");
+        Long customerId = customerRepository.save(c).getId();
+        Account[] accounts = new Account[TRANSFER_THREADS * 2];
+        for (int i = 0; i < accounts.length; i++) accounts[i] = open(customerId);
+        String hash = encoder.encode("Password123!");
+
+        transfers("warmup", accounts);
+        Result baseline = transfers("idle", accounts);
+
+        AtomicBoolean loginsRunning = new AtomicBoolean(true);
+        LongAdder logins = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        ExecutorService loginPool = Executors.newFixedThreadPool(LOGIN_THREADS);
+        for (int i = 0; i < LOGIN_THREADS; i++) {
+            loginPool.submit(() -> {
+                while (loginsRunning.get()) {
+                    try {
+                        passwordHasher.matches("Password123!", hash);
+                        logins.increment();
+                    } catch (RejectedExecutionException e) {
+                        rejected.increment();
+                        Thread.sleep(5); // a client honouring Retry-After, compressed
+                    }
+                }
+                return null;
+            });
+        }
+        Result underLoad;
+        try {
+            underLoad = transfers("login load", accounts);
+        } finally {
+            loginsRunning.set(false);
+            loginPool.shutdown();
+        }
+
+        System.out.println(baseline);
+        System.out.println(underLoad);
+        System.out.printf("logins verified: %d, rejected (503): %d, p99 ratio: %.2fx%n",
+                logins.sum(), rejected.sum(), underLoad.p99Millis / baseline.p99Millis);
+    }
+
+    private Account open(Long customerId) {
+        AccountDtos.CreateAccountRequest r = new AccountDtos.CreateAccountRequest();
+        r.customerId = customerId;
+        r.accountType = AccountType.CURRENT;
+        r.openingBalance = new BigDecimal("1000000.00");
+        return bankingService.createAccount(r);
+    }
+
+    /** Each thread moves money back and forth between its own pair of accounts. */
+    private Result transfers(String label, Account[] accounts) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(TRANSFER_THREADS);
+        long[] latencies = new long[TRANSFER_THREADS * TRANSFERS_PER_THREAD];
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < TRANSFER_THREADS; t++) {
+            int offset = t * TRANSFERS_PER_THREAD;
+            Long a = accounts[2 * t].getId();
+            Long b = accounts[2 * t + 1].getId();
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    long t0 = System.nanoTime();
+                    if (i % 2 == 0) {
+                        bankingService.transfer(a, b, BigDecimal.ONE, "bench");
+                    } else {
+                        bankingService.transfer(b, a, BigDecimal.ONE, "bench");
+                    }
+                    latencies[offset + i] = System.nanoTime() - t0;
+                }
+            }));
+        }
+        for (Future<?> f : futures) f.get();
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+        Arrays.sort(latencies);
+        return new Result(label, latencies.length * 1e9 / elapsed,
+                latencies[latencies.length / 2] / 1e6, latencies[(int) (latencies.length * 0.99)] / 1e6);
+    }
+
+    private record Result(String label, double opsPerSec, double p50Millis, double p99Millis) {
+        @Override
+        public String toString() {
+            return String.format("%-12s %10.0f transfers/s   p50 %7.2f ms   p99 %7.2f ms", label, opsPerSec, p50Millis, p99Millis);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.training.demobank.benchmark;
+
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.BankTransaction;
+import com.training.demobank.model.Customer;
+import com.training.demobank.repository.AccountRepository;
+import com.training.demobank.repository.BankTransactionRepository;
+import com.training.demobank.repository.CustomerRepository;
+import com.training.demobank.service.ReconciliationService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reconciliation throughput: a full run over every transaction, then an incremental run after a
+ * small number of new postings. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"demobank.seed.test-user=false", "spring.jpa.show-sql=false"})
+class ReconciliationBenchmark {
+
+    private static final int ACCOUNTS = 2_000;
+    private static final int TXNS_PER_ACCOUNT = 100;
+    private static final int NEW_TXNS = 1_000;
+
+    @Autowired ReconciliationService reconciliation;
+    @Autowired AccountRepository accountRepository;
+    @Autowired BankTransactionRepository transactionRepository;
+    @Autowired CustomerRepository customerRepository;
+
+    @Test
+    void fullThenIncremental() {
+        Customer c = new Customer();
+        c.setFirstName("Bench");
+        c.setEmail("bench-" + UUID.randomUUID() + "@test");
+        customerRepository.save(c);
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account a = new Account();
+            a.setCustomer(c);
+            a.setAccountType(AccountType.CURRENT);
+            a.setAccountNumber("RB" + UUID.randomUUID().toString().replace("-", "").substring(0, 20));
+            a.setBalance(new BigDecimal(TXNS_PER_ACCOUNT));
+            accounts.add(a);
+        }
+        accountRepository.saveAll(accounts);
+        List<BankTransaction> rows = new ArrayList<>();
+        for (int t = 0; t < TXNS_PER_ACCOUNT; t++) {
+            for (Account a : accounts) {
+                rows.add(deposit(a));
+                if (rows.size() == 5_000) {
+                    transactionRepository.saveAll(rows);
+                    rows.clear();
+                }
+            }
+        }
+        transactionRepository.saveAll(rows);
+
+        ReconciliationService.Result full = reconciliation.run(true);
+        print("full", full);
+        assertEquals(0, full.discrepancyCount());
+
+        rows.clear();
+        for (int i = 0; i < NEW_TXNS; i++) {
+            Account a = accounts.get(i % ACCOUNTS);
+            a.setBalance(a.getBalance().add(BigDecimal.ONE));
+            rows.add(deposit(a));
+        }
+        accountRepository.saveAll(accounts);
+        transactionRepository.saveAll(rows);
+
+        ReconciliationService.Result incremental = reconciliation.run(false);
+        print("incremental", incremental);
+        assertEquals(NEW_TXNS, incremental.transactionsScanned());
+        assertEquals(0, incremental.discrepancyCount());
+    }
+
+    private static BankTransaction deposit(Account a) {
+        BankTransaction t = new BankTransaction();
+        t.setAccount(a);
+        t.setTxnType("DEPOSIT");
+        t.setAmount(BigDecimal.ONE);
+        return t;
+    }
+
+    private static void print(String label, ReconciliationService.Result r) {
+        System.out.printf("%-12s %d accounts, %d transactions in %d ms: %.0f txns/s%n",
+                label, r.accounts(), r.transactionsScanned(), r.elapsedMillis(), r.transactionsPerSecond());
+    }
+}
@@ -0,0 +1,100 @@
+package com.training.demobank.benchmark;
+
+import com.training.demobank.dto.AccountDtos;
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.Customer;
+import com.training.demobank.repository.CustomerRepository;
+import com.training.demobank.service.BankingService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Many threads crediting one CURRENT account: plain (every credit queues on the accounts row)
+ * vs striped (credits spread over stripe rows). Run with {@code mvn test -Pbenchmark};
+ * add {@code -Dspring.profiles.active=postgres} to measure against a local Postgres.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"demobank.seed.test-user=false", "spring.jpa.show-sql=false"})
+class StripedAccountContentionBenchmark {
+
+    private static final int THREADS = 16;
+    private static final int CREDITS_PER_THREAD = 200;
+    private static final int STRIPES = 16;
+
+    @Autowired BankingService bankingService;
+    @Autowired CustomerRepository customerRepository;
+
+    @Test
+    void creditsToHotAccount_plainVsStriped() throws Exception {
+        Customer c = new Customer();
+        c.setFirstName("Bench");
+        c.setEmail("bench-" + UUID.randomUUID() + "@test");
+        Long customerId = customerRepository.save(c).getId();
+
+        Account plain = open(customerId);
+        Account striped = open(customerId);
+        bankingService.configureStripes(striped.getId(), STRIPES);
+
+        run("warmup", plain.getId());
+        Result plainResult = run("plain", plain.getId());
+        Result stripedResult = run("striped x" + STRIPES, striped.getId());
+
+        System.out.println(plainResult);
+        System.out.println(stripedResult);
+        System.out.printf("speedup: %.2fx%n", stripedResult.opsPerSec / plainResult.opsPerSec);
+
+        BigDecimal expected = new BigDecimal(THREADS * CREDITS_PER_THREAD);
+        assertEquals(0, expected.compareTo(bankingService.getAccount(striped.getId()).getTotalBalance()));
+    }
+
+    private Account open(Long customerId) {
+        AccountDtos.CreateAccountRequest r = new AccountDtos.CreateAccountRequest();
+        r.customerId = customerId;
+        r.accountType = AccountType.CURRENT;
+        return bankingService.createAccount(r);
+    }
+
+    private Result run(String label, Long accountId) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long[] latencies = new long[THREADS * CREDITS_PER_THREAD];
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            int offset = t * CREDITS_PER_THREAD;
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < CREDITS_PER_THREAD; i++) {
+                    long t0 = System.nanoTime();
+                    bankingService.deposit(accountId, BigDecimal.ONE, "bench");
+                    latencies[offset + i] = System.nanoTime() - t0;
+                }
+            }));
+        }
+        for (Future<?> f : futures) f.get();
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+        Arrays.sort(latencies);
+        return new Result(label, latencies.length * 1e9 / elapsed,
+                latencies[latencies.length / 2] / 1e6, latencies[(int) (latencies.length * 0.99)] / 1e6);
+    }
+
+    private record Result(String label, double opsPerSec, double p50Millis, double p99Millis) {
+        @Override
+        public String toString() {
+            return String.format("%-12s %10.0f ops/s   p50 %7.2f ms   p99 %7.2f ms", label, opsPerSec, p50Millis, p99Millis);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.training.demobank.benchmark;
+
+import com.training.demobank.DemobankApplication;
+import com.training.demobank.dto.AccountDtos;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.Customer;
+import com.training.demobank.repository.CustomerRepository;
+import com.training.demobank.service.BankingService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Same mixed HTTP traffic against the app on Tomcat's platform thread pool and with the
+ * {@code virtual} profile: 40% account reads, 40% transaction-history pages, 20% transfers among a
+ * few hot accounts (so requests queue on row locks). {@link #CLIENTS} concurrent clients, more than
+ * Tomcat's default 200 request threads. Reports throughput, p50 / p99 and non-2xx responses.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class VirtualThreadModeBenchmark {
+
+    private static final int CLIENTS = 400;
+    private static final int ACCOUNTS = 200;
+    private static final int HOT_ACCOUNTS = 10;
+    private static final long WARMUP_MILLIS = 3_000;
+    private static final long MEASURE_MILLIS = 10_000;
+
+    @Test
+    void mixedTraffic_platformVsVirtual() throws Exception {
+        Result platform = run("platform", "default");
+        Result virtual = run("virtual", "virtual");
+        System.out.println(platform);
+        System.out.println(virtual);
+    }
+
+    private Result run(String label, String profile) throws Exception {
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(DemobankApplication.class)
+                .profiles(profile)
+                .properties("server.port=0", "demobank.seed.test-user=false", "spring.jpa.show-sql=false",
+                        "spring.datasource.hikari.maximum-pool-size=20", "logging.level.root=WARN")
+                .run()) {
+            int port = ((ServletWebServerApplicationContext) ctx).getWebServer().getPort();
+            long[] ids = openAccounts(ctx);
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+            drive(http, port, ids, WARMUP_MILLIS);
+            return measure(label, http, port, ids);
+        }
+    }
+
+    private static long[] openAccounts(ConfigurableApplicationContext ctx) {
+        BankingService banking = ctx.getBean(BankingService.class);
+        Customer c = new Customer();
+        c.setFirstName("Bench");
+        c.setEmail("bench-" + UUID.randomUUID() + "@test");
+        Long customerId = ctx.getBean(CustomerRepository.class).save(c).getId();
+        long[] ids = new long[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            AccountDtos.CreateAccountRequest r = new AccountDtos.CreateAccountRequest();
+            r.customerId = customerId;
+            r.accountType = AccountType.CURRENT;
+            r.openingBalance = new BigDecimal("1000000.00");
+            ids[i] = banking.createAccount(r).getId();
+        }
+        return ids;
+    }
+
+    private Result measure(String label, HttpClient http, int port, long[] ids) throws Exception {
+        long start = System.nanoTime();
+        List<long[]> perClient = drive(http, port, ids, MEASURE_MILLIS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long errors = 0;
+        int total = 0;
+        for (long[] l : perClient) {
+            total += (int) l[0];
+            errors += l[1];
+        }
+        long[] all = new long[total];
+        int n = 0;
+        for (long[] l : perClient) {
+            System.arraycopy(l, 2, all, n, (int) l[0]);
+            n += (int) l[0];
+        }
+        Arrays.sort(all);
+        return new Result(label, total / seconds, all[total / 2] / 1e6, all[(int) (total * 0.99)] / 1e6, errors);
+    }
+
+    /** Per client: {count, errors, latencies...}. */
+    private static List<long[]> drive(HttpClient http, int port, long[] ids, long millis) throws Exception {
+        long deadline = System.nanoTime() + millis * 1_000_000;
+        List<Future<long[]>> clients = new ArrayList<>();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                clients.add(pool.submit(() -> {
+                    long[] out = new long[2 + 4096];
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = next(rnd, port, ids);
+                        long t0 = System.nanoTime();
+                        int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        long latency = System.nanoTime() - t0;
+                        if (status >= 300) out[1]++;
+                        if (2 + out[0] == out.length) out = Arrays.copyOf(out, out.length * 2);
+                        out[(int) (2 + out[0]++)] = latency;
+                    }
+                    return out;
+                }));
+            }
+            List<long[]> results = new ArrayList<>();
+            for (Future<long[]> f : clients) results.add(f.get());
+            return results;
+        }
+    }
+
+    private static HttpRequest next(ThreadLocalRandom rnd, int port, long[] ids) {
+        String base = "http://localhost:" + port + "/api/accounts";
+        int roll = rnd.nextInt(10);
+        if (roll < 2) {
+            long from = ids[rnd.nextInt(HOT_ACCOUNTS)];
+            long to = ids[rnd.nextInt(HOT_ACCOUNTS, ids.length)];
+            String body = "{\"fromAccountId\":" + from + ",\"toAccountId\":" + to + ",\"amount\":1.00}";
+            return HttpRequest.newBuilder(URI.create(base + "/transfer"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+        long id = ids[rnd.nextInt(ids.length)];
+        String path = roll < 6 ? "/" + id : "/" + id + "/transactions?limit=20";
+        return HttpRequest.newBuilder(URI.create(base + path)).GET().build();
+    }
+
+    private record Result(String label, double requestsPerSec, double p50Millis, double p99Millis, long errors) {
+        @Override
+        public String toString() {
+            return String.format("%-9s %8.0f req/s   p50 %8.2f ms   p99 %8.2f ms   non-2xx %d",
+                    label, requestsPerSec, p50Millis, p99Millis, errors);
+        }
+    }
+}
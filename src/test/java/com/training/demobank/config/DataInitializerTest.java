@@ -0,0 +1,55 @@
+package com.training.demobank.config;
+
+import com.training.demobank.model.Customer;
+import com.training.demobank.repository.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not transactional: the backfill runs in its own transaction at startup
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DataInitializerTest {
+
+    @Autowired CustomerRepository customerRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired JdbcTemplate jdbc;
+
+    // a row from before email_normalized existed; cleared around the entity callbacks
+    private void legacyCustomer(String email) {
+        Customer c = new Customer();
+        c.setFirstName("Legacy");
+        c.setEmail(email);
+        Long id = customerRepository.save(c).getId();
+        jdbc.update("update customers set email_normalized = null where id = ?", id);
+    }
+
+    private String normalized(String email) {
+        return jdbc.queryForObject("select email_normalized from customers where email = ?", String.class, email);
+    }
+
+    @Test
+    void backfill_leavesEmailsThatCollideUpToCaseNull() throws Exception {
+        legacyCustomer("solo@legacy.test");
+        legacyCustomer("Twin@Legacy.test");
+        legacyCustomer(" twin@legacy.test");
+        try {
+            new DataInitializer().normalizeCustomerEmails(customerRepository, transactionManager).run(null);
+
+            assertEquals("solo@legacy.test", normalized("solo@legacy.test"));
+            assertNull(normalized("Twin@Legacy.test"));
+            assertNull(normalized(" twin@legacy.test"));
+            assertEquals(2, customerRepository.findEmailCollisions().size());
+        } finally {
+            customerRepository.deleteAll();
+        }
+    }
+}
@@ -4,9 +4,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.training.demobank.dto.AccountDtos;
 import com.training.demobank.model.Account;
 import com.training.demobank.model.AccountType;
-import com.training.demobank.model.BankTransaction;
 import com.training.demobank.model.Customer;
+import com.training.demobank.repository.TransactionFilter;
+import com.training.demobank.repository.TransactionRow;
 import com.training.demobank.service.BankingService;
+import com.training.demobank.service.IdempotencyService;
+import com.training.demobank.service.TransactionExportService;
+import com.training.demobank.service.TransactionPage;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,15 +19,22 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -40,6 +51,12 @@ class AccountControllerTest {
     @MockBean
     private BankingService bankingService;
 
+    @MockBean
+    private IdempotencyService idempotencyService;
+
+    @MockBean
+    private TransactionExportService exportService;
+
     private Account sampleAccount(Long id) {
         Customer cust = new Customer();
         cust.setId(1L);
@@ -140,19 +157,144 @@ class AccountControllerTest {
 
     @Test
     void listTransactions_returnsOk() throws Exception {
-        BankTransaction t = new BankTransaction();
-        t.setId(1L);
-        t.setAmount(new BigDecimal("10.00"));
-        t.setTxnType("DEPOSIT");
-        t.setTxnDate(Instant.parse("2024-01-02T00:00:00Z"));
+        TransactionRow t = new TransactionRow(1L, 10L, "DEPOSIT", new BigDecimal("10.00"), new BigDecimal("60.00"),
+                Instant.parse("2024-01-02T00:00:00Z"), null);
 
-        Mockito.when(bankingService.listTransactions(eq(10L)))
-                .thenReturn(List.of(t));
+        Mockito.when(bankingService.listTransactions(eq(new TransactionFilter(10L, null, null, null)), eq(null), eq(null)))
+                .thenReturn(new TransactionPage(List.of(t), null));
 
         mockMvc.perform(get("/api/accounts/10/transactions"))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].txnType", is("DEPOSIT")))
-                .andExpect(jsonPath("$[0].amount", is(10.00)));
+                .andExpect(jsonPath("$[0].amount", is(10.00)))
+                .andExpect(jsonPath("$[0].balanceAfter", is(60.00)));
+    }
+
+    @Test
+    void listTransactions_withFiltersAndCursor_returnsNextCursorHeader() throws Exception {
+        TransactionFilter filter = new TransactionFilter(10L, Instant.parse("2024-01-01T00:00:00Z"),
+                Instant.parse("2024-02-01T00:00:00Z"), "DEPOSIT");
+        Mockito.when(bankingService.listTransactions(eq(filter), eq("abc"), eq(2)))
+                .thenReturn(new TransactionPage(List.of(), "def"));
+
+        mockMvc.perform(get("/api/accounts/transactions")
+                        .param("accountId", "10")
+                        .param("from", "2024-01-01T00:00:00Z")
+                        .param("to", "2024-02-01T00:00:00Z")
+                        .param("txnType", "deposit")
+                        .param("cursor", "abc")
+                        .param("limit", "2")
+                        .header("Origin", "http://localhost:4200"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "def"))
+                .andExpect(header().string("Access-Control-Expose-Headers", containsString("X-Next-Cursor")));
+    }
+
+    @Test
+    void transferBatch_returnsPerItemResults() throws Exception {
+        AccountDtos.BatchTransferItemResult ok = new AccountDtos.BatchTransferItemResult();
+        ok.index = 0;
+        ok.success = true;
+        AccountDtos.BatchTransferResponse res = new AccountDtos.BatchTransferResponse();
+        res.applied = true;
+        res.succeeded = 1;
+        res.results = List.of(ok);
+
+        Mockito.when(bankingService.transferBatch(any(), eq(null))).thenReturn(res);
+
+        String json = "{\"transfers\":[{\"fromAccountId\":10,\"toAccountId\":11,\"amount\":5.00}]}";
+        mockMvc.perform(post("/api/accounts/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded", is(1)))
+                .andExpect(jsonPath("$.results[0].success", is(true)));
+    }
+
+    @Test
+    void createBulk_returnsPerItemResults() throws Exception {
+        AccountDtos.BulkCreateAccountItemResult ok = new AccountDtos.BulkCreateAccountItemResult();
+        ok.success = true;
+        ok.accountId = 10L;
+        AccountDtos.BulkCreateAccountsResponse res = new AccountDtos.BulkCreateAccountsResponse();
+        res.succeeded = 1;
+        res.results = List.of(ok);
+
+        Mockito.when(bankingService.createAccounts(any())).thenReturn(res);
+
+        String json = "{\"accounts\":[{\"customerId\":1,\"accountType\":\"CURRENT\",\"openingBalance\":5.00}]}";
+        mockMvc.perform(post("/api/accounts/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded", is(1)))
+                .andExpect(jsonPath("$.results[0].accountId", is(10)));
+
+        mockMvc.perform(post("/api/accounts/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"accounts\":[{\"customerId\":1}]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void transferBatch_invalidItem_returnsBadRequest() throws Exception {
+        String json = "{\"transfers\":[{\"fromAccountId\":10,\"amount\":5.00}]}";
+        mockMvc.perform(post("/api/accounts/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void deposit_withIdempotencyKey_goesThroughIdempotencyService() throws Exception {
+        AccountDtos.AccountResponse stored = new AccountDtos.AccountResponse();
+        stored.id = 10L;
+        stored.balance = new BigDecimal("150.00");
+        AccountDtos.MoneyRequest req = new AccountDtos.MoneyRequest();
+        req.amount = new BigDecimal("50.00");
+
+        Mockito.when(idempotencyService.execute(eq("k-1"), eq("POST /api/accounts/10/deposit"), any(),
+                eq(AccountDtos.AccountResponse.class), any())).thenReturn(stored);
+
+        mockMvc.perform(post("/api/accounts/10/deposit")
+                        .header("Idempotency-Key", "k-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance", is(150.00)));
+        Mockito.verifyNoInteractions(bankingService);
+    }
+
+    @Test
+    void exportTransactions_streamsGzippedNdjson() throws Exception {
+        Mockito.doAnswer(inv -> {
+            inv.<OutputStream>getArgument(3).write("{\"id\":5}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(exportService).export(eq(10L), eq(4L), eq(TransactionExportService.Format.NDJSON), any());
+
+        MvcResult started = mockMvc.perform(get("/api/accounts/transactions/export")
+                        .param("accountId", "10")
+                        .param("afterId", "4")
+                        .header("Accept-Encoding", "gzip"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // no timeout on this route only (demobank.export.timeout-ms)
+        assertEquals(-1, started.getRequest().getAsyncContext().getTimeout());
+
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn();
+        byte[] body = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray())).readAllBytes();
+        assertEquals("{\"id\":5}\n", new String(body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportTransactions_unknownFormat_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/accounts/transactions/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
     }
 }
@@ -1,22 +1,28 @@
 package com.training.demobank.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import com.training.demobank.model.Customer;
+import com.training.demobank.security.AccessTokens;
+import com.training.demobank.security.TokenRevocations;
 import com.training.demobank.service.BankingService;
+import com.training.demobank.service.PasswordHasher;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -24,6 +30,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @WebMvcTest(controllers = AuthController.class)
 @AutoConfigureMockMvc
+@Import({AccessTokens.class, TokenRevocations.class})
 class AuthControllerTest {
 
     @Autowired
@@ -36,7 +43,10 @@ class AuthControllerTest {
     BankingService bankingService;
 
     @MockBean
-    BCryptPasswordEncoder passwordEncoder; // new mock bean for constructor injection
+    PasswordHasher passwordHasher;
+
+    @Autowired
+    AccessTokens accessTokens;
 
     @Test
     void register_createsCustomer() throws Exception {
@@ -48,7 +58,7 @@ class AuthControllerTest {
         c.setDob(LocalDate.of(1991,2,3));
         c.setCreatedAt(Instant.parse("2024-01-01T00:00:00Z"));
 
-        Mockito.when(bankingService.createCustomer(any())).thenReturn(c);
+        Mockito.when(bankingService.createCustomer(any(), any())).thenReturn(c);
 
         String json = "{" +
                 "\"firstName\":\"Reg\"," +
@@ -57,13 +67,29 @@ class AuthControllerTest {
                 "\"phone\":\"999\"," +
                 "\"dob\":\"1991-02-03\"}";
 
-        mockMvc.perform(post("/api/auth/register")
+        String body = mockMvc.perform(post("/api/auth/register")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(json))
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.success", is(true)))
                 .andExpect(jsonPath("$.user.id", is(42)))
-                .andExpect(jsonPath("$.token", containsString("demo-token-42")));
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(42L, accessTokens.verify(JsonPath.<String>read(body, "$.token")));
+    }
+
+    @Test
+    void register_hashingOverloaded_createsNoCustomer() throws Exception {
+        Mockito.when(passwordHasher.encode("pw"))
+                .thenThrow(new RejectedExecutionException("Password hashing is overloaded, please retry"));
+
+        String json = "{\"firstName\":\"Busy\",\"email\":\"busy-reg@example.com\",\"password\":\"pw\"}";
+
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+        Mockito.verify(bankingService, Mockito.never()).createCustomer(any(), any());
     }
 
     @Test
@@ -77,17 +103,18 @@ class AuthControllerTest {
         c.setPasswordHash("stored-hash");
 
         Mockito.when(bankingService.getCustomerByEmail("login@example.com")).thenReturn(c);
-        Mockito.when(passwordEncoder.matches(eq("ignored"), eq("stored-hash"))).thenReturn(true);
+        Mockito.when(passwordHasher.matches(eq("ignored"), eq("stored-hash"))).thenReturn(true);
 
         String json = "{\"email\":\"login@example.com\",\"password\":\"ignored\"}";
 
-        mockMvc.perform(post("/api/auth/login")
+        String body = mockMvc.perform(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(json))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success", is(true)))
                 .andExpect(jsonPath("$.user.id", is(99)))
-                .andExpect(jsonPath("$.token", containsString("demo-token-99")));
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(99L, accessTokens.verify(JsonPath.<String>read(body, "$.token")));
     }
 
     @Test
@@ -101,7 +128,7 @@ class AuthControllerTest {
         c.setPasswordHash("stored-hash");
 
         Mockito.when(bankingService.getCustomerByEmail("wp@example.com")).thenReturn(c);
-        Mockito.when(passwordEncoder.matches(eq("bad"), eq("stored-hash"))).thenReturn(false);
+        Mockito.when(passwordHasher.matches(eq("bad"), eq("stored-hash"))).thenReturn(false);
 
         String json = "{\"email\":\"wp@example.com\",\"password\":\"bad\"}";
 
@@ -127,4 +154,38 @@ class AuthControllerTest {
                 .andExpect(jsonPath("$.success", is(false)))
                 .andExpect(jsonPath("$.message", containsString("Invalid credentials")));
     }
+
+    @Test
+    void login_hashingOverloaded_returns503() throws Exception {
+        Customer c = new Customer();
+        c.setId(55L);
+        c.setEmail("busy@example.com");
+        c.setPasswordHash("stored-hash");
+
+        Mockito.when(bankingService.getCustomerByEmail("busy@example.com")).thenReturn(c);
+        Mockito.when(passwordHasher.matches(eq("pw"), eq("stored-hash")))
+                .thenThrow(new RejectedExecutionException("Password hashing is overloaded, please retry"));
+
+        String json = "{\"email\":\"busy@example.com\",\"password\":\"pw\"}";
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.error", is("overloaded")));
+    }
+
+    @Test
+    void logout_revokesToken() throws Exception {
+        String token = accessTokens.issue(12L);
+
+        mockMvc.perform(post("/api/auth/logout").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is(true)));
+        assertEquals(AccessTokens.INVALID, accessTokens.verify(token));
+
+        mockMvc.perform(post("/api/auth/logout").header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$.success", is(false)));
+    }
 }
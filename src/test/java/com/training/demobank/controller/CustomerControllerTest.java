@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.training.demobank.dto.CustomerDtos;
 import com.training.demobank.model.Customer;
 import com.training.demobank.service.BankingService;
+import com.training.demobank.service.CustomerImportService;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,10 +14,12 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.InputStream;
 import java.time.Instant;
 import java.time.LocalDate;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -36,6 +39,9 @@ class CustomerControllerTest {
     @MockBean
     private BankingService bankingService;
 
+    @MockBean
+    private CustomerImportService importService;
+
     @Test
     void createCustomer_returnsCreated() throws Exception {
         CustomerDtos.CreateCustomerRequest req = new CustomerDtos.CreateCustomerRequest();
@@ -85,5 +91,30 @@ class CustomerControllerTest {
                 .andExpect(jsonPath("$.firstName", is("Bob")))
                 .andExpect(jsonPath("$.email", is("bob@example.com")));
     }
-}
 
+    @Test
+    void importCustomers_streamsTheBodyAndReturnsProgress() throws Exception {
+        Mockito.when(importService.importCsv(any(InputStream.class))).thenAnswer(inv -> {
+            String body = new String(inv.getArgument(0, InputStream.class).readAllBytes());
+            assertEquals("firstName\nAnn\n", body);
+            return new CustomerImportService.Progress("job-1", "COMPLETED", body.length(), 1, 1, 0, 5, 200.0,
+                    "data/import-rejects/job-1-rejects.csv", null);
+        });
+
+        mockMvc.perform(post("/api/customers/import")
+                        .contentType("text/csv")
+                        .content("firstName\nAnn\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is("job-1")))
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.rejected", is(0)));
+    }
+
+    @Test
+    void importProgress_unknownId_isBadRequest() throws Exception {
+        Mockito.when(importService.progress("nope")).thenThrow(new IllegalArgumentException("Import not found: nope"));
+
+        mockMvc.perform(get("/api/customers/imports/nope"))
+                .andExpect(status().isBadRequest());
+    }
+}
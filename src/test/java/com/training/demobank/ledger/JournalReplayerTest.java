@@ -0,0 +1,178 @@
+package com.training.demobank.ledger;
+
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.BankTransaction;
+import com.training.demobank.model.Customer;
+import com.training.demobank.model.LedgerCheckpoint;
+import com.training.demobank.repository.AccountRepository;
+import com.training.demobank.repository.BankTransactionRepository;
+import com.training.demobank.repository.CustomerRepository;
+import com.training.demobank.repository.LedgerCheckpointRepository;
+import com.training.demobank.service.BalanceRules;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JournalReplayerTest {
+
+    @Autowired AccountRepository accountRepository;
+    @Autowired CustomerRepository customerRepository;
+    @Autowired BankTransactionRepository txRepository;
+    @Autowired LedgerCheckpointRepository checkpointRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @TempDir Path dir;
+
+    @AfterEach
+    void cleanup() {
+        txRepository.deleteAll();
+        checkpointRepository.deleteAll();
+    }
+
+    private JournalReplayer replayer(boolean onStartup) {
+        return new JournalReplayer(accountRepository, txRepository, checkpointRepository, transactionManager, onStartup);
+    }
+
+    private Customer customer() {
+        Customer c = new Customer();
+        c.setFirstName("Replay");
+        c.setEmail("replay-" + UUID.randomUUID() + "@test");
+        return customerRepository.save(c);
+    }
+
+    private static LedgerEntry entry(Account a, String balanceAfter, Instant at) {
+        return new LedgerEntry(a.getId(), "DEPOSIT", BigDecimal.ONE, new BigDecimal(balanceAfter), null, at);
+    }
+
+    private BigDecimal balance(Account a) {
+        return accountRepository.findById(a.getId()).orElseThrow().getBalance();
+    }
+
+    private Account open(Customer customer, String balance) {
+        Account a = new Account();
+        a.setCustomer(customer);
+        a.setAccountType(AccountType.CURRENT);
+        a.setAccountNumber("AC" + UUID.randomUUID().toString().substring(0, 8));
+        a.setBalance(new BigDecimal(balance));
+        a.setOpenedAt(Instant.now());
+        a.setStatus("ACTIVE");
+        return accountRepository.save(a);
+    }
+
+    @Test
+    void replay_writesARowPerRecord_andTheLastBalance_once() throws Exception {
+        Customer c = customer();
+        Account behind = open(c, "10.00");
+        Account untouched = open(c, "5.00");
+
+        LedgerJournal journal = new LedgerJournal(dir.toString(), 1 << 16, 0, 5_000);
+        journal.append(new LedgerEntry(behind.getId(), "DEPOSIT", new BigDecimal("5.00"), new BigDecimal("15.00"), "cash", Instant.now()));
+        long seq = journal.append(new LedgerEntry(behind.getId(), "WITHDRAWAL", new BigDecimal("2.50"), new BigDecimal("12.50"), null, Instant.now()));
+        journal.awaitDurable(seq);
+
+        JournalReplayer replayer = replayer(true);
+        assertEquals(seq, replayer.recover(journal));
+        // the checkpoint moved with the rows, so a second start replays nothing
+        assertEquals(seq, replayer.recover(journal));
+        journal.close();
+
+        assertEquals(0, new BigDecimal("12.50").compareTo(balance(behind)));
+        assertEquals(0, new BigDecimal("5.00").compareTo(balance(untouched)));
+        List<BankTransaction> rows = txRepository.findByAccount_IdOrderByTxnDateDesc(behind.getId());
+        assertEquals(List.of("DEPOSIT", "WITHDRAWAL"), rows.stream().map(BankTransaction::getTxnType).sorted().toList());
+        assertEquals(0, new BigDecimal("12.50").compareTo(rows.stream()
+                .filter(t -> t.getTxnType().equals("WITHDRAWAL")).findFirst().orElseThrow().getBalanceAfter()));
+        assertTrue(txRepository.findByAccount_IdOrderByTxnDateDesc(untouched.getId()).isEmpty());
+        assertEquals(seq, checkpointRepository.findById(LedgerCheckpoint.ID).orElseThrow().getJournalSeq());
+    }
+
+    @Test
+    void recover_replaysOnlyPastTheCheckpoint_andKeepsRowsChangedSince() throws Exception {
+        Customer c = customer();
+        Account committed = open(c, "40.00");
+        Account behind = open(c, "10.00");
+        Account changedSince = open(c, "7.00");
+        Instant at = Instant.now().minusSeconds(3600);
+
+        LedgerJournal journal = new LedgerJournal(dir.toString(), 1 << 16, 0, 5_000);
+        // seq 1 was written by the writer before the stop (and the row changed after); seq 2-3 were not
+        journal.append(entry(committed, "50.00", at));
+        journal.append(entry(behind, "12.50", at));
+        long last = journal.append(entry(changedSince, "99.00", at));
+        journal.awaitDurable(last);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            checkpointRepository.save(new LedgerCheckpoint());
+            checkpointRepository.advance(1, Instant.now());
+        });
+        // posted in jpa mode after the engine stopped
+        BankTransaction later = new BankTransaction();
+        later.setAccount(changedSince);
+        later.setTxnType("DEPOSIT");
+        later.setAmount(new BigDecimal("7.00"));
+        later.setBalanceAfter(new BigDecimal("7.00"));
+        later.setTxnDate(at.plusSeconds(60));
+        txRepository.save(later);
+
+        assertEquals(3, replayer(true).recover(journal));
+        journal.close();
+
+        assertEquals(0, new BigDecimal("40.00").compareTo(balance(committed)));
+        assertEquals(0, new BigDecimal("12.50").compareTo(balance(behind)));
+        assertEquals(0, new BigDecimal("7.00").compareTo(balance(changedSince)));
+        assertEquals(3, checkpointRepository.findById(LedgerCheckpoint.ID).orElseThrow().getJournalSeq());
+        assertTrue(txRepository.findByAccount_IdOrderByTxnDateDesc(committed.getId()).isEmpty());
+        assertEquals(1, txRepository.findByAccount_IdOrderByTxnDateDesc(behind.getId()).size());
+        assertEquals(List.of(later.getId()), txRepository.findByAccount_IdOrderByTxnDateDesc(changedSince.getId())
+                .stream().map(BankTransaction::getId).toList());
+    }
+
+    @Test
+    void replay_reversesTransferDebitsThatWereNeverCredited_withARow() throws Exception {
+        Customer c = customer();
+        Account from = open(c, "100.00");
+        Account to = open(c, "0.00");
+        Instant at = Instant.now();
+
+        LedgerJournal journal = new LedgerJournal(dir.toString(), 1 << 16, 0, 5_000);
+        long paired = journal.append(new LedgerEntry(from.getId(), "TRANSFER_OUT", new BigDecimal("30.00"), new BigDecimal("70.00"), null, at));
+        journal.append(new LedgerEntry(to.getId(), "TRANSFER_IN", new BigDecimal("30.00"), new BigDecimal("30.00"), null, at, paired));
+        // stopped before this transfer reached the destination; the deposit after it includes the debit
+        journal.append(new LedgerEntry(from.getId(), "TRANSFER_OUT", new BigDecimal("20.00"), new BigDecimal("50.00"), null, at));
+        long last = journal.append(new LedgerEntry(from.getId(), "DEPOSIT", new BigDecimal("5.00"), new BigDecimal("55.00"), null, at));
+        journal.awaitDurable(last);
+        journal.close();
+
+        assertEquals(2, replayer(true).replay(dir, 0, last));
+
+        assertEquals(0, new BigDecimal("75.00").compareTo(balance(from)));
+        assertEquals(0, new BigDecimal("30.00").compareTo(balance(to)));
+        // the history adds up to the balance: 100 - 30 - 20 + 5 + 20
+        List<BankTransaction> rows = txRepository.findByAccount_IdOrderByTxnDateDesc(from.getId());
+        assertEquals(List.of("DEPOSIT", "TRANSFER_OUT", "TRANSFER_OUT", "TRANSFER_REVERSAL"),
+                rows.stream().map(BankTransaction::getTxnType).sorted().toList());
+        BigDecimal sum = rows.stream().map(t -> BalanceRules.signedAmount(t.getTxnType(), t.getAmount()))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, new BigDecimal("-25.00").compareTo(sum));
+        BankTransaction reversal = rows.stream().filter(t -> t.getTxnType().equals("TRANSFER_REVERSAL")).findFirst().orElseThrow();
+        assertEquals(0, new BigDecimal("75.00").compareTo(reversal.getBalanceAfter()));
+    }
+}
@@ -0,0 +1,135 @@
+package com.training.demobank.ledger;
+
+import com.training.demobank.dto.AccountDtos;
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.Customer;
+import com.training.demobank.repository.AccountRepository;
+import com.training.demobank.repository.AccountStripeRepository;
+import com.training.demobank.repository.BankTransactionRepository;
+import com.training.demobank.repository.CustomerRepository;
+import com.training.demobank.service.BankingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "demobank.ledger.mode=engine",
+        "demobank.ledger.shards=4",
+        "demobank.journal.enabled=true",
+        "demobank.journal.dir=target/test-journal/${random.uuid}",
+        "demobank.seed.test-user=false"
+})
+class LedgerEngineTest {
+
+    @Autowired BankingService bankingService;
+    @Autowired LedgerEngine ledgerEngine;
+    @Autowired CustomerRepository customerRepository;
+    @Autowired AccountRepository accountRepository;
+    @Autowired AccountStripeRepository stripeRepository;
+    @Autowired BankTransactionRepository txRepository;
+
+    Long customerId;
+
+    @BeforeEach
+    void setup() {
+        Customer c = new Customer();
+        c.setFirstName("Engine");
+        c.setEmail("engine-" + UUID.randomUUID() + "@test");
+        customerId = customerRepository.save(c).getId();
+    }
+
+    private Account create(AccountType type, String opening, String overdraft) {
+        AccountDtos.CreateAccountRequest r = new AccountDtos.CreateAccountRequest();
+        r.customerId = customerId;
+        r.accountType = type;
+        r.openingBalance = new BigDecimal(opening);
+        r.overdraftLimit = overdraft == null ? null : new BigDecimal(overdraft);
+        return bankingService.createAccount(r);
+    }
+
+    @Test
+    void postings_applyRules_andArePersistedInOrder() throws Exception {
+        Account savings = create(AccountType.SAVINGS, "100.00", null);
+        Account current = create(AccountType.CURRENT, "0.00", "50.00");
+
+        assertEquals(new BigDecimal("125.00"), bankingService.deposit(savings.getId(), new BigDecimal("25.00"), "cash").getBalance());
+        assertEquals(new BigDecimal("-40.00"), bankingService.withdraw(current.getId(), new BigDecimal("40.00"), "pos").getBalance());
+        bankingService.transfer(savings.getId(), current.getId(), new BigDecimal("30.00"), "move");
+
+        IllegalStateException savingsEx = assertThrows(IllegalStateException.class,
+                () -> bankingService.withdraw(savings.getId(), new BigDecimal("95.01"), "too much"));
+        assertTrue(savingsEx.getMessage().toLowerCase().contains("insufficient"));
+        IllegalStateException overdraftEx = assertThrows(IllegalStateException.class,
+                () -> bankingService.withdraw(current.getId(), new BigDecimal("60.01"), "too much"));
+        assertTrue(overdraftEx.getMessage().toLowerCase().contains("overdraft"));
+        assertThrows(IllegalArgumentException.class,
+                () -> bankingService.transfer(savings.getId(), savings.getId(), BigDecimal.ONE, "loop"));
+
+        ledgerEngine.writer().awaitPersisted(5_000);
+
+        assertEquals(new BigDecimal("95.00"), accountRepository.findById(savings.getId()).orElseThrow().getBalance());
+        assertEquals(new BigDecimal("-10.00"), accountRepository.findById(current.getId()).orElseThrow().getBalance());
+        // opening deposit + deposit + transfer out
+        assertEquals(3, txRepository.findByAccount_IdOrderByTxnDateDesc(savings.getId()).size());
+        // withdrawal + transfer in
+        assertEquals(2, txRepository.findByAccount_IdOrderByTxnDateDesc(current.getId()).size());
+
+        // every acknowledged posting is durable in the journal, with its balance after
+        List<LedgerJournal.Record> debited = new ArrayList<>();
+        List<LedgerJournal.Record> credited = new ArrayList<>();
+        LedgerJournal.read(ledgerEngine.journal().dir(), r -> {
+            if (r.entry().accountId().equals(savings.getId())) debited.add(r);
+            if (r.entry().accountId().equals(current.getId())) credited.add(r);
+        });
+        assertEquals(List.of("DEPOSIT", "TRANSFER_OUT"), debited.stream().map(r -> r.entry().txnType()).toList());
+        assertEquals(new BigDecimal("95.00"), debited.get(1).entry().balanceAfter());
+        // the credit names the debit it closes
+        assertEquals("TRANSFER_IN", credited.get(1).entry().txnType());
+        assertEquals(debited.get(1).seq(), credited.get(1).entry().transferOf());
+
+        // the writer's checkpoint has caught up with the journal
+        assertEquals(ledgerEngine.journal().lastSeq(), ledgerEngine.journal().stats().get("checkpointSeq"));
+    }
+
+    @Test
+    void transferDebit_isNotCommittedWithoutItsCredit() throws Exception {
+        Account from = create(AccountType.SAVINGS, "100.00", null);
+        Account to = create(AccountType.SAVINGS, "0.00", null);
+        LedgerWriter writer = ledgerEngine.writer();
+        writer.awaitPersisted(5_000);
+
+        writer.append(new LedgerEntry(from.getId(), "TRANSFER_OUT", new BigDecimal("30.00"), new BigDecimal("70.00"), "held", Instant.now()), 0);
+        writer.append(new LedgerEntry(from.getId(), "DEPOSIT", new BigDecimal("5.00"), new BigDecimal("75.00"), "held", Instant.now()), 0);
+        assertThrows(IllegalStateException.class, () -> writer.awaitPersisted(300));
+        assertEquals(new BigDecimal("100.00"), accountRepository.findById(from.getId()).orElseThrow().getBalance());
+
+        writer.append(new LedgerEntry(to.getId(), "TRANSFER_IN", new BigDecimal("30.00"), new BigDecimal("30.00"), "held", Instant.now()), 0);
+        writer.awaitPersisted(5_000);
+        assertEquals(new BigDecimal("75.00"), accountRepository.findById(from.getId()).orElseThrow().getBalance());
+        assertEquals(new BigDecimal("30.00"), accountRepository.findById(to.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void recover_rebuildsBalancesFromDatabase() throws Exception {
+        Account savings = create(AccountType.SAVINGS, "10.00", null);
+        bankingService.deposit(savings.getId(), new BigDecimal("5.00"), "top up");
+        ledgerEngine.writer().awaitPersisted(5_000);
+
+        LedgerEngine restarted = new LedgerEngine(accountRepository, stripeRepository, ledgerEngine.writer(), (LedgerJournal) null, null, 2);
+        restarted.recover();
+
+        assertEquals(new BigDecimal("0.00"), restarted.withdraw(savings.getId(), new BigDecimal("15.00"), "all").getBalance());
+        assertThrows(IllegalStateException.class,
+                () -> restarted.withdraw(savings.getId(), new BigDecimal("0.01"), "nothing left"));
+    }
+}
@@ -0,0 +1,166 @@
+package com.training.demobank.ledger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerJournalTest {
+
+    @TempDir Path dir;
+
+    private static LedgerEntry entry(long accountId, String amount, String balanceAfter, String note) {
+        return new LedgerEntry(accountId, "DEPOSIT", new BigDecimal(amount), new BigDecimal(balanceAfter), note,
+                Instant.parse("2024-01-02T03:04:05.123456789Z"));
+    }
+
+    private LedgerJournal open(int segmentBytes) {
+        return new LedgerJournal(dir.toString(), segmentBytes, 0, 5_000);
+    }
+
+    private List<LedgerJournal.Record> readAll() {
+        List<LedgerJournal.Record> out = new ArrayList<>();
+        LedgerJournal.read(dir, out::add);
+        return out;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.sorted().toList();
+        }
+    }
+
+    @Test
+    void appendedRecords_areDurableAndReadBackExactly() throws Exception {
+        LedgerJournal journal = open(1 << 16);
+        LedgerEntry first = entry(7, "10.50", "110.50", "cash");
+        LedgerEntry second = entry(8, "0.01", "-49.99", null);
+        journal.append(first);
+        long seq = journal.append(second);
+        journal.awaitDurable(seq);
+        journal.close();
+
+        List<LedgerJournal.Record> records = readAll();
+        assertEquals(List.of(new LedgerJournal.Record(1, first), new LedgerJournal.Record(2, second)), records);
+    }
+
+    @Test
+    void fsyncTimeout_reportsOutcomeUnknown_andTheRecordStillBecomesDurable() throws Exception {
+        // the flusher waits 500 ms to group appends; the caller gives up after 20 ms
+        LedgerJournal journal = new LedgerJournal(dir.toString(), 1 << 16, 500_000, 20);
+        long seq = journal.append(entry(7, "1.00", "1.00", null));
+        assertThrows(PostingOutcomeUnknownException.class, () -> journal.awaitDurable(seq));
+        journal.close();
+
+        assertEquals(1, readAll().size());
+    }
+
+    @Test
+    void fullSegment_rollsAndReopenContinuesSequence() throws Exception {
+        LedgerJournal journal = open(256);
+        for (int i = 0; i < 10; i++) {
+            journal.append(entry(1, "1.00", String.valueOf(i + 1), "n" + i));
+        }
+        journal.awaitDurable(10);
+        journal.close();
+        assertTrue(segments().size() > 1);
+
+        LedgerJournal reopened = open(256);
+        assertEquals(11, reopened.append(entry(1, "1.00", "11", null)));
+        reopened.awaitDurable(11);
+        reopened.close();
+
+        List<LedgerJournal.Record> records = readAll();
+        assertEquals(11, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(i + 1, records.get(i).seq());
+        }
+    }
+
+    @Test
+    void checkpointedSegments_areDeleted_andSequenceContinuesPastThem() throws Exception {
+        LedgerJournal journal = open(256);
+        for (int i = 0; i < 10; i++) {
+            journal.append(entry(1, "1.00", String.valueOf(i + 1), "n" + i));
+        }
+        journal.awaitDurable(10);
+        int before = segments().size();
+
+        journal.checkpoint(6);
+        assertTrue(journal.deleteCheckpointedSegments() > 0);
+        List<LedgerJournal.Record> records = readAll();
+        assertTrue(records.get(0).seq() > 1 && records.get(0).seq() <= 7, "first kept record " + records.get(0).seq());
+        assertEquals(10, records.get(records.size() - 1).seq());
+        assertTrue(segments().size() < before);
+        journal.close();
+
+        // a restart opens an empty segment; once everything is checkpointed only that one is left
+        LedgerJournal restarted = open(256);
+        restarted.checkpoint(10);
+        restarted.deleteCheckpointedSegments();
+        restarted.close();
+        assertEquals(1, segments().size());
+        assertTrue(readAll().isEmpty());
+
+        LedgerJournal reopened = open(256);
+        assertEquals(10, reopened.lastSeq());
+        assertEquals(11, reopened.append(entry(1, "1.00", "11", null)));
+        reopened.close();
+    }
+
+    @Test
+    void corruptedRecord_stopsReadingThatSegment() throws Exception {
+        LedgerJournal journal = open(1 << 16);
+        journal.append(entry(1, "1.00", "1.00", "ok"));
+        long seq = journal.append(entry(1, "1.00", "2.00", "flipped"));
+        journal.awaitDurable(seq);
+        journal.close();
+
+        Path segment = segments().get(0);
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer len = ByteBuffer.allocate(4);
+            ch.read(len, 0);
+            int secondRecord = 8 + len.getInt(0);
+            // flip a byte inside the second record's body
+            ch.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), secondRecord + 8 + 12);
+        }
+
+        List<LedgerJournal.Record> records = readAll();
+        assertEquals(1, records.size());
+        assertEquals("ok", records.get(0).entry().note());
+    }
+
+    @Test
+    void concurrentAppends_shareFsyncs() throws Exception {
+        LedgerJournal journal = new LedgerJournal(dir.toString(), 1 << 20, 1_000, 5_000);
+        int threads = 8;
+        int perThread = 50;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long accountId = t;
+            workers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    journal.awaitDurable(journal.append(entry(accountId, "1.00", String.valueOf(i + 1), null)));
+                }
+            }));
+        }
+        for (Thread w : workers) w.join();
+        long fsyncs = (long) journal.stats().get("fsyncs");
+        journal.close();
+
+        assertEquals(threads * perThread, readAll().size());
+        assertTrue(fsyncs < threads * perThread, "expected grouped fsyncs, got " + fsyncs);
+    }
+}
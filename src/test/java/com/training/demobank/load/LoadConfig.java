@@ -0,0 +1,53 @@
+package com.training.demobank.load;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Simulator settings, read from {@code load.*} system properties:
+ * <pre>
+ * load.threads=32          concurrent workers (virtual threads)
+ * load.duration=PT30S      measured run; load.warmup=PT5S runs first and is discarded
+ * load.accounts=1000       accounts opened for the run, load.customers=100 owners (also login users)
+ * load.zipf=1.0            account popularity skew, 0 = uniform
+ * load.mix=deposit:20,withdraw:15,transfer:35,read:25,login:5   relative operation weights
+ * load.http-ratio=0.5      share of operations sent through the REST API instead of BankingService
+ * load.report=target/load-report.json
+ * </pre>
+ * Logins always go through the REST API, since that is where password checking lives.
+ */
+record LoadConfig(int threads, Duration duration, Duration warmup, int accounts, int customers,
+                  double zipf, Map<Op, Integer> mix, double httpRatio, String report) {
+
+    enum Op { DEPOSIT, WITHDRAW, TRANSFER, READ, LOGIN }
+
+    static LoadConfig fromSystemProperties() {
+        return new LoadConfig(
+                Integer.getInteger("load.threads", 32),
+                Duration.parse(System.getProperty("load.duration", "PT30S")),
+                Duration.parse(System.getProperty("load.warmup", "PT5S")),
+                Integer.getInteger("load.accounts", 1000),
+                Integer.getInteger("load.customers", 100),
+                Double.parseDouble(System.getProperty("load.zipf", "1.0")),
+                parseMix(System.getProperty("load.mix", "deposit:20,withdraw:15,transfer:35,read:25,login:5")),
+                Double.parseDouble(System.getProperty("load.http-ratio", "0.5")),
+                System.getProperty("load.report", "target/load-report.json"));
+    }
+
+    static Map<Op, Integer> parseMix(String spec) {
+        Map<Op, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Bad load.mix entry: " + part);
+            }
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight > 0) mix.put(Op.valueOf(kv[0].trim().toUpperCase()), weight);
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("load.mix has no positive weights");
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,401 @@
+package com.training.demobank.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.training.demobank.DemobankApplication;
+import com.training.demobank.dto.AccountDtos;
+import com.training.demobank.ledger.LedgerWriter;
+import com.training.demobank.load.LoadConfig.Op;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.Customer;
+import com.training.demobank.repository.CustomerRepository;
+import com.training.demobank.service.BankingService;
+import com.training.demobank.service.PostingExecutor;
+import com.zaxxer.hikari.HikariDataSource;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Starts the application (H2 by default, {@code -Dspring.profiles.active=postgres} for a local
+ * Postgres) on a random port, opens {@code load.accounts} accounts and drives a weighted mix of
+ * operations at them from {@code load.threads} workers, part through {@link BankingService} and part
+ * through the REST API. Account choice follows a Zipf distribution, so a few accounts are hot.
+ * <p>
+ * Latencies go into one HDR histogram per operation and channel. While the measured phase runs, a
+ * sampler counts sessions blocked on locks (H2 {@code information_schema.sessions}, Postgres
+ * {@code pg_locks}) and threads waiting for a pooled connection. At the end the balances of the
+ * run's accounts must equal the opening total plus successful deposits minus successful withdrawals.
+ * The report is printed and written as JSON to {@code load.report}; see {@link LoadConfig}.
+ */
+public final class LoadSimulator {
+
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000000.00");
+    private static final String PASSWORD = "LoadTest123!";
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final LoadConfig config;
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private final LongAdder depositedCents = new LongAdder();
+    private final LongAdder withdrawnCents = new LongAdder();
+
+    private ConfigurableApplicationContext context;
+    private BankingService banking;
+    private HttpClient http;
+    private String baseUrl;
+    private long[] accountIds;
+    private String[] emails;
+    private ZipfSampler accounts;
+    private Op[] opTable;
+    private volatile boolean measuring;
+
+    public LoadSimulator(LoadConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, Object> report = new LoadSimulator(LoadConfig.fromSystemProperties()).run();
+        @SuppressWarnings("unchecked")
+        boolean balanced = (boolean) ((Map<String, Object>) report.get("balanceCheck")).get("ok");
+        System.exit(balanced ? 0 : 1);
+    }
+
+    public Map<String, Object> run() throws Exception {
+        context = new SpringApplicationBuilder(DemobankApplication.class)
+                .properties("server.port=0", "demobank.seed.test-user=false", "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN")
+                .run();
+        try {
+            banking = context.getBean(BankingService.class);
+            baseUrl = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+            setUp();
+            long initialCents = totalCents();
+
+            drive(config.warmup());
+            measuring = true;
+            LockWaitSampler sampler = new LockWaitSampler(context.getBean(DataSource.class));
+            Thread samplerThread = Thread.ofVirtual().start(sampler);
+            long started = System.nanoTime();
+            drive(config.duration());
+            double seconds = (System.nanoTime() - started) / 1e9;
+            measuring = false;
+            samplerThread.interrupt();
+            samplerThread.join();
+
+            awaitLedgerWriter();
+            long expectedCents = initialCents + depositedCents.sum() - withdrawnCents.sum();
+            long actualCents = totalCents();
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("config", config);
+            report.put("database", sampler.database);
+            report.put("hottestAccountShare", accounts.hottestShare());
+            report.put("measuredSeconds", seconds);
+            report.put("operations", operationsReport(seconds));
+            report.put("lockWaits", sampler.report());
+            report.put("postings", context.getBean(PostingExecutor.class).stats());
+            Map<String, Object> balance = new LinkedHashMap<>();
+            balance.put("openingTotal", BigDecimal.valueOf(initialCents, 2));
+            balance.put("expectedTotal", BigDecimal.valueOf(expectedCents, 2));
+            balance.put("actualTotal", BigDecimal.valueOf(actualCents, 2));
+            balance.put("ok", expectedCents == actualCents);
+            report.put("balanceCheck", balance);
+
+            ObjectMapper json = new ObjectMapper().findAndRegisterModules()
+                    .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    .enable(SerializationFeature.INDENT_OUTPUT);
+            File out = new File(config.report());
+            if (out.getParentFile() != null) out.getParentFile().mkdirs();
+            json.writeValue(out, report);
+            System.out.println(json.writeValueAsString(report));
+            return report;
+        } finally {
+            context.close();
+        }
+    }
+
+    private void setUp() {
+        String hash = context.getBean(BCryptPasswordEncoder.class).encode(PASSWORD);
+        CustomerRepository customers = context.getBean(CustomerRepository.class);
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+        Long[] customerIds = new Long[config.customers()];
+        emails = new String[config.customers()];
+        for (int i = 0; i < customerIds.length; i++) {
+            Customer c = new Customer();
+            c.setFirstName("Load");
+            c.setLastName(Integer.toString(i));
+            c.setEmail("load-" + runId + "-" + i + "@test");
+            c.setPasswordHash(hash);
+            customerIds[i] = customers.save(c).getId();
+            emails[i] = c.getEmail();
+        }
+        accountIds = new long[config.accounts()];
+        for (int i = 0; i < accountIds.length; i++) {
+            AccountDtos.CreateAccountRequest r = new AccountDtos.CreateAccountRequest();
+            r.customerId = customerIds[i % customerIds.length];
+            r.accountType = AccountType.CURRENT;
+            r.openingBalance = OPENING_BALANCE;
+            accountIds[i] = banking.createAccount(r).getId();
+        }
+        accounts = new ZipfSampler(accountIds.length, config.zipf());
+        List<Op> table = new ArrayList<>();
+        config.mix().forEach((op, weight) -> {
+            for (int i = 0; i < weight; i++) table.add(op);
+        });
+        opTable = table.toArray(Op[]::new);
+    }
+
+    private void drive(Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < config.threads(); i++) {
+                futures.add(workers.submit(() -> {
+                    while (System.nanoTime() < deadline) step();
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+        }
+    }
+
+    private void step() throws Exception {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        Op op = opTable[rnd.nextInt(opTable.length)];
+        boolean viaHttp = op == Op.LOGIN || rnd.nextDouble() < config.httpRatio();
+        long cents = rnd.nextLong(1, 101) * 100;
+        BigDecimal amount = BigDecimal.valueOf(cents, 2);
+        long account = accountIds[accounts.next()];
+        long other = op == Op.TRANSFER ? otherAccount(account) : 0;
+
+        long t0 = System.nanoTime();
+        Outcome outcome = viaHttp ? overHttp(op, account, other, amount) : overService(op, account, other, amount);
+        long micros = (System.nanoTime() - t0) / 1000;
+
+        if (outcome == Outcome.OK) {
+            if (op == Op.DEPOSIT) depositedCents.add(cents);
+            if (op == Op.WITHDRAW) withdrawnCents.add(cents);
+        }
+        if (measuring) {
+            stats.computeIfAbsent(op.name().toLowerCase() + (viaHttp ? "/http" : "/service"), k -> new Stats())
+                    .record(micros, outcome);
+        }
+    }
+
+    private long otherAccount(long from) {
+        long to;
+        do {
+            to = accountIds[accounts.next()];
+        } while (to == from && accountIds.length > 1);
+        return to;
+    }
+
+    private Outcome overService(Op op, long account, long other, BigDecimal amount) {
+        try {
+            switch (op) {
+                case DEPOSIT -> banking.deposit(account, amount, "load");
+                case WITHDRAW -> banking.withdraw(account, amount, "load");
+                case TRANSFER -> banking.transfer(account, other, amount, "load");
+                case READ -> banking.getAccount(account);
+                case LOGIN -> throw new IllegalStateException("Logins go through HTTP");
+            }
+            return Outcome.OK;
+        } catch (IllegalArgumentException e) {
+            return Outcome.REJECTED;
+        } catch (IllegalStateException e) {
+            return Outcome.CONFLICT;
+        } catch (RejectedExecutionException | CannotCreateTransactionException e) {
+            return Outcome.OVERLOADED;
+        } catch (RuntimeException e) {
+            return Outcome.ERROR;
+        }
+    }
+
+    private Outcome overHttp(Op op, long account, long other, BigDecimal amount) throws InterruptedException {
+        HttpRequest request = switch (op) {
+            case DEPOSIT -> post("/api/accounts/" + account + "/deposit", "{\"amount\":" + amount + ",\"note\":\"load\"}");
+            case WITHDRAW -> post("/api/accounts/" + account + "/withdraw", "{\"amount\":" + amount + ",\"note\":\"load\"}");
+            case TRANSFER -> post("/api/accounts/transfer",
+                    "{\"fromAccountId\":" + account + ",\"toAccountId\":" + other + ",\"amount\":" + amount + "}");
+            case READ -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/accounts/" + account)).GET().build();
+            case LOGIN -> post("/api/auth/login", "{\"email\":\"" + emails[ThreadLocalRandom.current().nextInt(emails.length)]
+                    + "\",\"password\":\"" + PASSWORD + "\"}");
+        };
+        HttpResponse<String> response;
+        try {
+            response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            return Outcome.ERROR;
+        }
+        int status = response.statusCode();
+        if (status == 503) return Outcome.OVERLOADED;
+        if (status == 409) return Outcome.CONFLICT;
+        if (status == 400 || status == 404) return Outcome.REJECTED;
+        if (status >= 300) return Outcome.ERROR;
+        if (op == Op.LOGIN && !response.body().contains("\"success\":true")) return Outcome.REJECTED;
+        return Outcome.OK;
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    /** Sum of the run's accounts, stripes included, in cents. */
+    private long totalCents() {
+        NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(context.getBean(DataSource.class));
+        List<Long> ids = new ArrayList<>(accountIds.length);
+        for (long id : accountIds) ids.add(id);
+        Map<String, Object> params = Map.of("ids", ids);
+        BigDecimal base = jdbc.queryForObject(
+                "select coalesce(sum(balance), 0) from accounts where id in (:ids)", params, BigDecimal.class);
+        BigDecimal striped = jdbc.queryForObject(
+                "select coalesce(sum(balance), 0) from account_stripes where account_id in (:ids)", params, BigDecimal.class);
+        return base.add(striped).movePointRight(2).longValueExact();
+    }
+
+    private void awaitLedgerWriter() throws InterruptedException {
+        LedgerWriter writer = context.getBeanProvider(LedgerWriter.class).getIfAvailable();
+        if (writer != null) writer.awaitPersisted(TimeUnit.MINUTES.toMillis(1));
+    }
+
+    private Map<String, Object> operationsReport(double seconds) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        Stats total = new Stats();
+        stats.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(e -> {
+            out.put(e.getKey(), e.getValue().report(seconds));
+            total.add(e.getValue());
+        });
+        out.put("total", total.report(seconds));
+        return out;
+    }
+
+    enum Outcome { OK, REJECTED, CONFLICT, OVERLOADED, ERROR }
+
+    /** Latency (microseconds) and outcome counts for one operation/channel pair. */
+    private static final class Stats {
+        final Histogram latency = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+        final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+
+        Stats() {
+            for (int i = 0; i < outcomes.length; i++) outcomes[i] = new LongAdder();
+        }
+
+        void record(long micros, Outcome outcome) {
+            latency.recordValue(Math.min(Math.max(micros, 0), HIGHEST_MICROS));
+            outcomes[outcome.ordinal()].increment();
+        }
+
+        void add(Stats other) {
+            latency.add(other.latency);
+            for (int i = 0; i < outcomes.length; i++) outcomes[i].add(other.outcomes[i].sum());
+        }
+
+        Map<String, Object> report(double seconds) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("count", latency.getTotalCount());
+            m.put("perSecond", latency.getTotalCount() / seconds);
+            for (Outcome o : Outcome.values()) m.put(o.name().toLowerCase(), outcomes[o.ordinal()].sum());
+            m.put("p50Ms", latency.getValueAtPercentile(50) / 1000.0);
+            m.put("p99Ms", latency.getValueAtPercentile(99) / 1000.0);
+            m.put("p999Ms", latency.getValueAtPercentile(99.9) / 1000.0);
+            m.put("maxMs", latency.getMaxValue() / 1000.0);
+            return m;
+        }
+    }
+
+    /** Samples blocked database sessions and connection-pool waiters every 100 ms. */
+    private static final class LockWaitSampler implements Runnable {
+        final DataSource dataSource;
+        final String database;
+        final String blockedSql;
+        long samples;
+        long blockedSum;
+        long blockedMax;
+        long poolWaitSum;
+        long poolWaitMax;
+
+        LockWaitSampler(DataSource dataSource) throws Exception {
+            this.dataSource = dataSource;
+            try (Connection c = dataSource.getConnection()) {
+                database = c.getMetaData().getDatabaseProductName();
+            }
+            blockedSql = database.toLowerCase().contains("postgres")
+                    ? "select count(*) from pg_locks where not granted"
+                    : "select count(*) from information_schema.sessions where blocker_id is not null";
+        }
+
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    long blocked;
+                    try (Connection c = dataSource.getConnection();
+                         var rs = c.createStatement().executeQuery(blockedSql)) {
+                        rs.next();
+                        blocked = rs.getLong(1);
+                    }
+                    long poolWaiters = dataSource instanceof HikariDataSource h && h.getHikariPoolMXBean() != null
+                            ? h.getHikariPoolMXBean().getThreadsAwaitingConnection() : 0;
+                    synchronized (this) {
+                        samples++;
+                        blockedSum += blocked;
+                        blockedMax = Math.max(blockedMax, blocked);
+                        poolWaitSum += poolWaiters;
+                        poolWaitMax = Math.max(poolWaitMax, poolWaiters);
+                    }
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    // a sample that times out under load is skipped, not fatal
+                }
+            }
+        }
+
+        synchronized Map<String, Object> report() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("samples", samples);
+            m.put("blockedSessionsMean", samples == 0 ? 0.0 : (double) blockedSum / samples);
+            m.put("blockedSessionsMax", blockedMax);
+            m.put("connectionWaitersMean", samples == 0 ? 0.0 : (double) poolWaitSum / samples);
+            m.put("connectionWaitersMax", poolWaitMax);
+            return m;
+        }
+    }
+}
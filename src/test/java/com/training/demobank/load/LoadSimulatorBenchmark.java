@@ -0,0 +1,29 @@
+package com.training.demobank.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@link LoadSimulator} with {@code load.*} system properties, e.g.
+ * {@code mvn test -Pbenchmark -Dtest=LoadSimulatorBenchmark -Dload.zipf=1.2 -Dload.duration=PT60S}
+ * (add {@code -Dspring.profiles.active=postgres} for a local Postgres).
+ */
+@Tag("benchmark")
+class LoadSimulatorBenchmark {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void simulatedLoad_keepsBalancesConsistent() throws Exception {
+        Map<String, Object> report = new LoadSimulator(LoadConfig.fromSystemProperties()).run();
+
+        Map<String, Object> balance = (Map<String, Object>) report.get("balanceCheck");
+        assertEquals(true, balance.get("ok"), () -> "Balances drifted: " + balance);
+        Map<String, Object> total = (Map<String, Object>) ((Map<String, Object>) report.get("operations")).get("total");
+        assertTrue((long) total.get("count") > 0);
+    }
+}
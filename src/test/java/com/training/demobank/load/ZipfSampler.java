@@ -0,0 +1,37 @@
+package com.training.demobank.load;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws ranks {@code 0..n-1} with probability proportional to {@code 1 / (rank + 1)^s}:
+ * rank 0 is the hottest account. {@code s = 0} is uniform; around 1 a few accounts take most of
+ * the traffic, which is what produces row-lock queues.
+ */
+final class ZipfSampler {
+
+    private final double[] cdf;
+
+    ZipfSampler(int n, double s) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, s);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < n; i++) cdf[i] /= sum;
+    }
+
+    int next() {
+        int i = Arrays.binarySearch(cdf, ThreadLocalRandom.current().nextDouble());
+        return Math.min(i >= 0 ? i : -i - 1, cdf.length - 1);
+    }
+
+    /** Probability of the hottest rank, reported so runs with different skews can be compared. */
+    double hottestShare() {
+        return cdf[0];
+    }
+}
@@ -0,0 +1,30 @@
+package com.training.demobank.load;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZipfSamplerTest {
+
+    @Test
+    void skewedSampler_favoursLowRanks_andStaysInRange() {
+        ZipfSampler zipf = new ZipfSampler(100, 1.2);
+        int[] hits = new int[100];
+        for (int i = 0; i < 100_000; i++) hits[zipf.next()]++;
+
+        assertTrue(hits[0] > hits[1] && hits[1] > hits[10] && hits[10] > hits[99]);
+        assertEquals(zipf.hottestShare(), hits[0] / 100_000.0, 0.01);
+    }
+
+    @Test
+    void zeroSkew_isUniform() {
+        assertEquals(0.1, new ZipfSampler(10, 0).hottestShare(), 1e-9);
+    }
+
+    @Test
+    void mix_parsesWeights_andRejectsGarbage() {
+        assertEquals(2, LoadConfig.parseMix("deposit:3, read:1, login:0").size());
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parseMix("deposit"));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parseMix("read:0"));
+    }
+}
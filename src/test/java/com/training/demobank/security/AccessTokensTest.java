@@ -0,0 +1,92 @@
+package com.training.demobank.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessTokensTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private final TokenRevocations revocations = new TokenRevocations(1 << 16);
+    private final AccessTokens tokens = new AccessTokens(revocations, SECRET, Duration.ofHours(1));
+
+    @Test
+    void issuedToken_verifiesToCustomerId() {
+        String token = tokens.issue(1234L);
+
+        assertEquals(AccessTokens.TOKEN_LENGTH, token.length());
+        assertEquals(1234L, tokens.verify(token));
+        assertEquals(1234L, tokens.verify("Bearer " + token, 7));
+    }
+
+    @Test
+    void forgedExpiredOrForeignTokens_areRejected() {
+        String token = tokens.issue(1L);
+        char last = token.charAt(token.length() - 1);
+        String tampered = token.substring(0, token.length() - 1) + (last == 'A' ? 'Q' : 'A');
+        byte[] other = new byte[32];
+        Arrays.fill(other, (byte) 1);
+        AccessTokens otherKey = new AccessTokens(new TokenRevocations(64),
+                Base64.getEncoder().encodeToString(other), Duration.ofHours(1));
+        AccessTokens expired = new AccessTokens(revocations, SECRET, Duration.ZERO);
+
+        assertEquals(AccessTokens.INVALID, tokens.verify(tampered));
+        assertEquals(AccessTokens.INVALID, tokens.verify(token.substring(1)));
+        assertEquals(AccessTokens.INVALID, tokens.verify("demo-token-1-1700000000000"));
+        assertEquals(AccessTokens.INVALID, otherKey.verify(token));
+        assertEquals(AccessTokens.INVALID, tokens.verify(expired.issue(1L)));
+    }
+
+    @Test
+    void revokedToken_staysRevokedAcrossPurge_untilItExpires() {
+        String kept = tokens.issue(1L);
+        String revoked = tokens.issue(1L);
+
+        assertTrue(tokens.revoke(revoked));
+        assertFalse(tokens.revoke(revoked));
+        revocations.purge();
+
+        assertEquals(AccessTokens.INVALID, tokens.verify(revoked));
+        assertEquals(1L, tokens.verify(kept));
+        assertEquals(1, revocations.size());
+    }
+
+    @Test
+    void filter_rejectsBadTokens_andOnlyRequiresOneWhenEnforced() throws Exception {
+        MockHttpServletResponse bad = run(new AccessTokenFilter(tokens, false), "Bearer nope");
+        assertEquals(401, bad.getStatus());
+
+        assertEquals(200, run(new AccessTokenFilter(tokens, false), null).getStatus());
+        assertEquals(401, run(new AccessTokenFilter(tokens, true), null).getStatus());
+
+        MockHttpServletRequest ok = request("Bearer " + tokens.issue(7L));
+        new AccessTokenFilter(tokens, true).doFilter(ok, new MockHttpServletResponse(), new MockFilterChain());
+        assertEquals(7L, ok.getAttribute(AccessTokenFilter.CUSTOMER_ID));
+
+        MockHttpServletRequest login = request(null);
+        login.setRequestURI("/api/auth/login");
+        MockHttpServletResponse loginResponse = new MockHttpServletResponse();
+        new AccessTokenFilter(tokens, true).doFilter(login, loginResponse, new MockFilterChain());
+        assertEquals(200, loginResponse.getStatus());
+    }
+
+    private static MockHttpServletResponse run(AccessTokenFilter filter, String authorization) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(authorization), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/accounts/1");
+        if (authorization != null) request.addHeader("Authorization", authorization);
+        return request;
+    }
+}
@@ -0,0 +1,118 @@
+package com.training.demobank.service;
+
+import com.training.demobank.dto.AccountDtos;
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.Customer;
+import com.training.demobank.repository.AccountRepository;
+import com.training.demobank.repository.BankTransactionRepository;
+import com.training.demobank.repository.CustomerRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "demobank.ledger.concurrency=atomic",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.training.demobank.service.SqlRecorder"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Import({BankingService.class, PostingExecutor.class, StripedBalanceService.class, LookupCache.class,
+        BankingMetrics.class, SnowflakeAccountNumberGenerator.class})
+class AtomicPostingTest {
+
+    @Autowired BankingService bankingService;
+    @Autowired CustomerRepository customerRepository;
+    @Autowired AccountRepository accountRepository;
+    @Autowired BankTransactionRepository txRepository;
+    @Autowired EntityManager entityManager;
+
+    Long customerId;
+
+    @BeforeEach
+    void setup() {
+        Customer c = new Customer();
+        c.setFirstName("Atomic");
+        c.setEmail("atomic@test");
+        customerId = customerRepository.save(c).getId();
+    }
+
+    private Account open(AccountType type, String opening, String overdraft) {
+        AccountDtos.CreateAccountRequest r = new AccountDtos.CreateAccountRequest();
+        r.customerId = customerId;
+        r.accountType = type;
+        r.openingBalance = new BigDecimal(opening);
+        r.overdraftLimit = overdraft == null ? null : new BigDecimal(overdraft);
+        return bankingService.createAccount(r);
+    }
+
+    @Test
+    void withdraw_isOneGuardedUpdate_withoutRowLockSelect() {
+        Account savings = open(AccountType.SAVINGS, "50.00", null);
+        entityManager.flush();
+        SqlRecorder.reset();
+
+        Account after = bankingService.withdraw(savings.getId(), new BigDecimal("20.00"), "atm");
+        entityManager.flush();
+
+        assertEquals(0, new BigDecimal("30.00").compareTo(after.getBalance()));
+        assertEquals("ACTIVE", after.getStatus());
+        List<String> sql = SqlRecorder.statements();
+        // The update hands back the row (H2: select from final table), then the transaction row
+        assertEquals(2, sql.size(), () -> "Expected one update and one insert: " + sql);
+        assertTrue(sql.get(0).contains("update accounts"), () -> "Unexpected statement: " + sql);
+        assertTrue(sql.get(1).startsWith("insert into transactions"), () -> "Unexpected statement: " + sql);
+        assertEquals(2, txRepository.findByAccount_IdOrderByTxnDateDesc(savings.getId()).size());
+    }
+
+    @Test
+    void withdraw_keepsErrorSemantics() {
+        Account savings = open(AccountType.SAVINGS, "10.00", null);
+        Account current = open(AccountType.CURRENT, "0.00", "25.00");
+
+        IllegalStateException insufficient = assertThrows(IllegalStateException.class,
+                () -> bankingService.withdraw(savings.getId(), new BigDecimal("10.01"), "x"));
+        assertTrue(insufficient.getMessage().toLowerCase().contains("insufficient"));
+
+        assertEquals(0, new BigDecimal("-25.00").compareTo(
+                bankingService.withdraw(current.getId(), new BigDecimal("25.00"), "limit").getBalance()));
+        IllegalStateException overdraft = assertThrows(IllegalStateException.class,
+                () -> bankingService.withdraw(current.getId(), new BigDecimal("0.01"), "x"));
+        assertTrue(overdraft.getMessage().toLowerCase().contains("overdraft"));
+
+        Account closed = accountRepository.findById(savings.getId()).orElseThrow();
+        closed.setStatus("CLOSED");
+        accountRepository.saveAndFlush(closed);
+        IllegalStateException inactive = assertThrows(IllegalStateException.class,
+                () -> bankingService.deposit(savings.getId(), BigDecimal.ONE, "x"));
+        assertTrue(inactive.getMessage().toLowerCase().contains("not active"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> bankingService.withdraw(-1L, BigDecimal.ONE, "x"));
+    }
+
+    @Test
+    void deposit_creditsInPlace() {
+        Account current = open(AccountType.CURRENT, "5.00", null);
+        bankingService.deposit(current.getId(), new BigDecimal("2.50"), "cash");
+        entityManager.flush();
+        SqlRecorder.reset();
+
+        // The first deposit already fetched a block of transaction ids from the sequence
+        Account after = bankingService.deposit(current.getId(), new BigDecimal("5.00"), "cash");
+        entityManager.flush();
+
+        assertEquals(0, new BigDecimal("12.50").compareTo(after.getBalance()));
+        assertEquals(2L, after.getVersion());
+        List<String> sql = SqlRecorder.statements();
+        assertEquals(2, sql.size(), () -> "Expected one update and one insert: " + sql);
+    }
+}
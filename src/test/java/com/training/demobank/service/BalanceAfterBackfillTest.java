@@ -0,0 +1,97 @@
+package com.training.demobank.service;
+
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.BankTransaction;
+import com.training.demobank.model.Customer;
+import com.training.demobank.repository.AccountRepository;
+import com.training.demobank.repository.BankTransactionRepository;
+import com.training.demobank.repository.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not transactional: the backfill workers read and write on their own threads and transactions
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(BalanceAfterBackfill.class)
+@TestPropertySource(properties = {
+        "demobank.backfill.threads=2",
+        "demobank.backfill.accounts-per-chunk=1",
+        "demobank.backfill.page-size=2"
+})
+class BalanceAfterBackfillTest {
+
+    @Autowired BalanceAfterBackfill backfill;
+    @Autowired CustomerRepository customerRepository;
+    @Autowired AccountRepository accountRepository;
+    @Autowired BankTransactionRepository txRepository;
+
+    private final Instant base = Instant.parse("2024-06-01T00:00:00Z");
+
+    @Test
+    void fillsRunningBalanceInPostingOrder_restartingAtAnchors() {
+        Customer c = new Customer();
+        c.setFirstName("Backfill");
+        c.setEmail("backfill@test");
+        customerRepository.save(c);
+        Account a = open(c);
+        Account b = open(c);
+
+        // saved out of order: posting order is txn_date, not id
+        post(a, 3, "DEPOSIT", "5.00", null);
+        post(a, 0, "DEPOSIT", "100.00", null);
+        post(a, 1, "WITHDRAWAL", "30.00", null);
+        post(a, 2, "DEPOSIT", "10.00", "80.00");
+        post(b, 0, "DEPOSIT", "50.00", null);
+        post(b, 1, "TRANSFER_IN", "20.00", "100.00"); // disagrees with the running 70.00
+        post(b, 2, "TRANSFER_OUT", "10.00", null);
+
+        BalanceAfterBackfill.Result result = backfill.run();
+
+        assertEquals(new BalanceAfterBackfill.Result(2, 5, 1), result);
+        assertEquals(List.of("100.00", "70.00", "80.00", "85.00"), balancesAfter(a));
+        assertEquals(List.of("50.00", "100.00", "90.00"), balancesAfter(b));
+        assertEquals(new BalanceAfterBackfill.Result(0, 0, 0), backfill.run());
+    }
+
+    private Account open(Customer c) {
+        Account a = new Account();
+        a.setCustomer(c);
+        a.setAccountType(AccountType.CURRENT);
+        a.setAccountNumber("AC" + UUID.randomUUID().toString().substring(0, 8));
+        a.setBalance(BigDecimal.ZERO);
+        a.setOpenedAt(Instant.now());
+        a.setStatus("ACTIVE");
+        return accountRepository.save(a);
+    }
+
+    private void post(Account a, int second, String type, String amount, String balanceAfter) {
+        BankTransaction t = new BankTransaction();
+        t.setAccount(a);
+        t.setTxnType(type);
+        t.setAmount(new BigDecimal(amount));
+        t.setBalanceAfter(balanceAfter == null ? null : new BigDecimal(balanceAfter));
+        t.setTxnDate(base.plusSeconds(second));
+        txRepository.save(t);
+    }
+
+    private List<String> balancesAfter(Account a) {
+        return txRepository.findByAccount_IdOrderByTxnDateDesc(a.getId()).reversed().stream()
+                .map(t -> t.getBalanceAfter().toPlainString())
+                .toList();
+    }
+}
@@ -20,13 +20,15 @@ import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
-@Import(BankingService.class)
+@Import({BankingService.class, PostingExecutor.class, StripedBalanceService.class, LookupCache.class,
+        BankingMetrics.class, SnowflakeAccountNumberGenerator.class})
 class BankingServiceEdgeTest {
 
     @Autowired BankingService bankingService;
     @Autowired CustomerRepository customerRepository;
     @Autowired AccountRepository accountRepository;
     @Autowired BankTransactionRepository txRepository;
+    @Autowired BankingMetrics metrics;
 
     Long customerId;
 
@@ -67,4 +69,22 @@ class BankingServiceEdgeTest {
                 () -> bankingService.withdraw(currentId, new BigDecimal("1.00"), "exceed"));
         assertTrue(ex.getMessage().toLowerCase().contains("overdraft"));
     }
+
+    @Test
+    void operations_areTimedByOutcome(){
+        Account savings = create(AccountType.SAVINGS, new BigDecimal("10.00"), null);
+        // The registry lives as long as the cached test context, so compare counts
+        long ok = withdrawals("success"), rejected = withdrawals("insufficient_funds");
+        bankingService.withdraw(savings.getId(), new BigDecimal("5.00"), "ok");
+        assertThrows(IllegalStateException.class,
+                () -> bankingService.withdraw(savings.getId(), new BigDecimal("6.00"), "too much"));
+
+        assertEquals(ok + 1, withdrawals("success"));
+        assertEquals(rejected + 1, withdrawals("insufficient_funds"));
+    }
+
+    private long withdrawals(String outcome){
+        var timer = metrics.registry().find("demobank.operations").tags("operation", "withdraw", "outcome", outcome).timer();
+        return timer == null ? 0 : timer.count();
+    }
 }
@@ -9,6 +9,8 @@ import com.training.demobank.model.Customer;
 import com.training.demobank.repository.AccountRepository;
 import com.training.demobank.repository.BankTransactionRepository;
 import com.training.demobank.repository.CustomerRepository;
+import com.training.demobank.repository.TransactionFilter;
+import com.training.demobank.repository.TransactionRow;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,13 +19,15 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
-@Import(BankingService.class)
+@Import({BankingService.class, PostingExecutor.class, StripedBalanceService.class, LookupCache.class,
+        BankingMetrics.class, SnowflakeAccountNumberGenerator.class})
 class BankingServiceTest {
 
     @Autowired
@@ -61,6 +65,7 @@ class BankingServiceTest {
         Account a = bankingService.createAccount(req);
         assertNotNull(a.getId());
         assertEquals(new BigDecimal("100.00"), a.getBalance());
+        assertTrue(SnowflakeAccountNumberGenerator.isValid(a.getAccountNumber()));
 
         List<BankTransaction> txs = txRepository.findByAccount_IdOrderByTxnDateDesc(a.getId());
         assertEquals(1, txs.size());
@@ -125,6 +130,31 @@ class BankingServiceTest {
         assertTrue(ex.getMessage().toLowerCase().contains("overdraft"));
     }
 
+    @Test
+    void postings_recordBalanceAfter() {
+        AccountDtos.CreateAccountRequest req = new AccountDtos.CreateAccountRequest();
+        req.customerId = customerId;
+        req.accountType = AccountType.CURRENT;
+        req.openingBalance = new BigDecimal("100.00");
+        req.overdraftLimit = new BigDecimal("50.00");
+        Account a = bankingService.createAccount(req);
+        req.openingBalance = null;
+        Account b = bankingService.createAccount(req);
+
+        bankingService.deposit(a.getId(), new BigDecimal("20.00"), null);
+        bankingService.withdraw(a.getId(), new BigDecimal("150.00"), null);
+        bankingService.transfer(a.getId(), b.getId(), new BigDecimal("5.00"), null);
+
+        List<BigDecimal> aBalances = txRepository.findByAccount_IdOrderByTxnDateDesc(a.getId()).stream()
+                .sorted(java.util.Comparator.comparing(BankTransaction::getId))
+                .map(BankTransaction::getBalanceAfter)
+                .toList();
+        assertEquals(List.of(new BigDecimal("100.00"), new BigDecimal("120.00"),
+                new BigDecimal("-30.00"), new BigDecimal("-35.00")), aBalances);
+        assertEquals(new BigDecimal("5.00"),
+                txRepository.findByAccount_IdOrderByTxnDateDesc(b.getId()).get(0).getBalanceAfter());
+    }
+
     @Test
     void bad_amount_validation() {
         AccountDtos.CreateAccountRequest req = new AccountDtos.CreateAccountRequest();
@@ -138,4 +168,146 @@ class BankingServiceTest {
         assertThrows(IllegalArgumentException.class,
                 () -> bankingService.withdraw(id, new BigDecimal("-1.00"), null));
     }
+
+    private Account open(AccountType type, String opening, String overdraft) {
+        AccountDtos.CreateAccountRequest req = new AccountDtos.CreateAccountRequest();
+        req.customerId = customerId;
+        req.accountType = type;
+        req.openingBalance = new BigDecimal(opening);
+        req.overdraftLimit = overdraft == null ? null : new BigDecimal(overdraft);
+        return bankingService.createAccount(req);
+    }
+
+    private AccountDtos.TransferRequest leg(Account from, Account to, String amount) {
+        AccountDtos.TransferRequest t = new AccountDtos.TransferRequest();
+        t.fromAccountId = from.getId();
+        t.toAccountId = to.getId();
+        t.amount = new BigDecimal(amount);
+        t.note = "batch";
+        return t;
+    }
+
+    @Test
+    void transferBatch_perItem_skipsFailingItems() {
+        Account a = open(AccountType.SAVINGS, "100.00", null);
+        Account b = open(AccountType.SAVINGS, "0.00", null);
+
+        AccountDtos.BatchTransferResponse res = bankingService.transferBatch(List.of(
+                leg(a, b, "60.00"),
+                leg(a, b, "50.00"),   // only 40 left on a savings account
+                leg(b, a, "10.00")), false);
+
+        assertTrue(res.applied);
+        assertEquals(2, res.succeeded);
+        assertEquals(1, res.failed);
+        assertFalse(res.results.get(1).success);
+        assertTrue(res.results.get(1).message.toLowerCase().contains("insufficient"));
+        assertEquals(new BigDecimal("50.00"), accountRepository.findById(a.getId()).orElseThrow().getBalance());
+        assertEquals(new BigDecimal("50.00"), accountRepository.findById(b.getId()).orElseThrow().getBalance());
+        // opening deposit + 2 transfer legs
+        assertEquals(3, txRepository.findByAccount_IdOrderByTxnDateDesc(a.getId()).size());
+    }
+
+    @Test
+    void transferBatch_atomic_appliesNothingWhenAnItemFails() {
+        Account a = open(AccountType.CURRENT, "10.00", "20.00");
+        Account b = open(AccountType.SAVINGS, "0.00", null);
+
+        AccountDtos.BatchTransferResponse res = bankingService.transferBatch(List.of(
+                leg(a, b, "25.00"),
+                leg(a, b, "5.01")), true);   // would take a to -20.01
+
+        assertFalse(res.applied);
+        assertEquals(0, res.succeeded);
+        assertTrue(res.results.get(0).message.contains("Not applied"));
+        assertTrue(res.results.get(1).message.toLowerCase().contains("overdraft"));
+        assertEquals(new BigDecimal("10.00"), accountRepository.findById(a.getId()).orElseThrow().getBalance());
+        assertEquals(0, accountRepository.findById(b.getId()).orElseThrow().getBalance().signum());
+        assertTrue(txRepository.findByAccount_IdOrderByTxnDateDesc(b.getId()).isEmpty());
+    }
+
+    @Test
+    void createAccounts_opensValidItems_andReportsTheRest() {
+        Account existing = open(AccountType.SAVINGS, "0.00", null);
+        AccountDtos.CreateAccountRequest funded = bulkItem(customerId, "25.00", null);
+        AccountDtos.CreateAccountRequest custom = bulkItem(customerId, null, "CORP-001");
+
+        AccountDtos.BulkCreateAccountsResponse res = bankingService.createAccounts(List.of(
+                funded,
+                bulkItem(-1L, null, null),                           // unknown customer
+                custom,
+                bulkItem(customerId, null, "CORP-001"),              // repeats an earlier item
+                bulkItem(customerId, null, existing.getAccountNumber()))); // already taken
+
+        assertEquals(2, res.succeeded);
+        assertEquals(3, res.failed);
+        assertTrue(res.results.get(0).success);
+        assertTrue(res.results.get(1).message.contains("Customer not found"));
+        assertEquals("CORP-001", res.results.get(2).accountNumber);
+        assertTrue(res.results.get(3).message.contains("already exists"));
+        assertTrue(res.results.get(4).message.contains("already exists"));
+
+        Account opened = accountRepository.findById(res.results.get(0).accountId).orElseThrow();
+        assertTrue(SnowflakeAccountNumberGenerator.isValid(opened.getAccountNumber()));
+        assertEquals(new BigDecimal("25.00"), opened.getBalance());
+        List<BankTransaction> txs = txRepository.findByAccount_IdOrderByTxnDateDesc(opened.getId());
+        assertEquals(1, txs.size());
+        assertEquals(new BigDecimal("25.00"), txs.get(0).getBalanceAfter());
+        assertTrue(txRepository.findByAccount_IdOrderByTxnDateDesc(res.results.get(2).accountId).isEmpty());
+    }
+
+    private static AccountDtos.CreateAccountRequest bulkItem(Long customerId, String opening, String number) {
+        AccountDtos.CreateAccountRequest r = new AccountDtos.CreateAccountRequest();
+        r.customerId = customerId;
+        r.accountType = AccountType.CURRENT;
+        r.openingBalance = opening == null ? null : new BigDecimal(opening);
+        r.accountNumber = number;
+        return r;
+    }
+
+    @Test
+    void listTransactions_pagesByKeysetWithoutGapsOrDuplicates() {
+        AccountDtos.CreateAccountRequest req = new AccountDtos.CreateAccountRequest();
+        req.customerId = customerId;
+        req.accountType = AccountType.CURRENT;
+        Account a = bankingService.createAccount(req);
+        Instant base = Instant.parse("2024-03-01T00:00:00Z");
+        // pairs share a timestamp, so the id tie-breaker decides the order within a pair
+        for (int i = 0; i < 7; i++) {
+            BankTransaction t = new BankTransaction();
+            t.setAccount(a);
+            t.setTxnType(i % 2 == 0 ? "DEPOSIT" : "WITHDRAWAL");
+            t.setAmount(BigDecimal.ONE);
+            t.setTxnDate(base.plusSeconds(i / 2));
+            txRepository.save(t);
+        }
+        TransactionFilter all = new TransactionFilter(a.getId(), null, null, null);
+
+        List<TransactionRow> seen = new java.util.ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TransactionPage page = bankingService.listTransactions(all, cursor, 2);
+            seen.addAll(page.items());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(4, pages);
+        assertEquals(7, seen.stream().map(TransactionRow::id).distinct().count());
+        for (int i = 1; i < seen.size(); i++) {
+            TransactionRow prev = seen.get(i - 1), cur = seen.get(i);
+            assertTrue(prev.txnDate().isAfter(cur.txnDate())
+                    || (prev.txnDate().equals(cur.txnDate()) && prev.id() > cur.id()));
+        }
+
+        TransactionPage deposits = bankingService.listTransactions(
+                new TransactionFilter(a.getId(), base.plusSeconds(1), base.plusSeconds(3), "deposit"), null, null);
+        assertEquals(List.of(base.plusSeconds(2), base.plusSeconds(1)),
+                deposits.items().stream().map(TransactionRow::txnDate).toList());
+        assertNull(deposits.nextCursor());
+
+        assertThrows(IllegalArgumentException.class, () -> bankingService.listTransactions(all, "not-a-cursor", 2));
+        assertThrows(IllegalArgumentException.class, () -> bankingService.listTransactions(all, null, 0));
+    }
 }
@@ -0,0 +1,138 @@
+package com.training.demobank.service;
+
+import com.training.demobank.model.Customer;
+import com.training.demobank.repository.CustomerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not transactional: chunks commit on their own worker threads
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({CustomerImportService.class, LookupCache.class, ValidationAutoConfiguration.class})
+@TestPropertySource(properties = {"demobank.import.chunk-size=2", "demobank.import.threads=3",
+        "demobank.import.rejects-dir=target/import-rejects"})
+class CustomerImportServiceTest {
+
+    @Autowired CustomerImportService imports;
+    @Autowired CustomerRepository customerRepository;
+
+    @AfterEach
+    void cleanup() {
+        customerRepository.deleteAll();
+    }
+
+    private CustomerImportService.Progress run(String csv) {
+        return imports.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void importsValidRows_andWritesTheRestToTheRejectsFile() throws IOException {
+        Customer existing = new Customer();
+        existing.setFirstName("Existing");
+        existing.setEmail("taken@import.test");
+        customerRepository.save(existing);
+
+        CustomerImportService.Progress p = run("""
+                Email,FirstName,LastName,Phone,DOB
+                ann@import.test,Ann,Lee,555-0100,1990-04-01
+                ,NoEmail,,,
+                bad-email,Bad,Email,,
+                TAKEN@import.test,Dup,Db,,
+                late@import.test,,Missing,,
+                dob@import.test,Dob,Bad,,01/02/1990
+                zed@import.test,Zed,Ray,,
+                """);
+
+        assertEquals("COMPLETED", p.status());
+        assertEquals(7, p.rows());
+        assertEquals(3, p.imported());
+        assertEquals(4, p.rejected());
+        assertTrue(p.bytesRead() > 0);
+
+        Customer ann = customerRepository.findByEmailNormalized("ann@import.test").orElseThrow();
+        assertEquals("Lee", ann.getLastName());
+        assertEquals(LocalDate.of(1990, 4, 1), ann.getDob());
+        assertTrue(customerRepository.findByEmailNormalized("zed@import.test").isPresent());
+        assertEquals(4, customerRepository.count());
+
+        List<String> rejects = Files.readAllLines(imports.rejectsFile(p.id()));
+        assertEquals("line,reason,firstName,lastName,email,phone,dob", rejects.get(0));
+        assertEquals(5, rejects.size());
+        assertTrue(rejects.contains("4,email: must be a well-formed email address,Bad,Email,bad-email,,"), rejects::toString);
+        assertTrue(rejects.contains("5,email: already exists,Dup,Db,TAKEN@import.test,,"), rejects::toString);
+        assertTrue(rejects.contains("6,firstName: must not be blank,,Missing,late@import.test,,"), rejects::toString);
+        assertTrue(rejects.contains("7,dob: must be an ISO date (yyyy-MM-dd),Dob,Bad,dob@import.test,,01/02/1990"), rejects::toString);
+
+        assertEquals(p, imports.progress(p.id()));
+        assertTrue(imports.recent().contains(p));
+    }
+
+    @Test
+    void duplicateWithinAChunk_isRejected() {
+        CustomerImportService.Progress p = run("firstName,email\nA,same@import.test\nB,Same@Import.test\n");
+
+        assertEquals(1, p.imported());
+        assertEquals(1, p.rejected());
+        assertEquals("A", customerRepository.findByEmailNormalized("same@import.test").orElseThrow().getFirstName());
+    }
+
+    @Test
+    void duplicateAcrossConcurrentChunks_importsOneCopy() {
+        StringBuilder csv = new StringBuilder("firstName,email\n");
+        for (int i = 0; i < 12; i++) {
+            csv.append("Copy").append(i).append(",twin@import.test\n");
+        }
+        CustomerImportService.Progress p = run(csv.toString());
+
+        assertEquals(1, p.imported());
+        assertEquals(11, p.rejected());
+        assertEquals(1, customerRepository.count());
+    }
+
+    @Test
+    void quotedFields_mayHoldCommasQuotesAndLineBreaks() throws IOException {
+        CustomerImportService.Progress p = run("firstName,lastName,email\r\n"
+                + "\"Smith, Jr.\",\"O\"\"Neil\",q1@import.test\r\n"
+                + "\"Two\nLines\",x,not-an-email\r\n"
+                + "Last,Row,q2@import.test");
+
+        assertEquals(2, p.imported());
+        assertEquals("O\"Neil", customerRepository.findByEmailNormalized("q1@import.test").orElseThrow().getLastName());
+        assertEquals("Smith, Jr.", customerRepository.findByEmailNormalized("q1@import.test").orElseThrow().getFirstName());
+        // The multi-line record is reported at the line it starts on, with its value quoted again
+        List<String> rejects = Files.readAllLines(imports.rejectsFile(p.id()));
+        assertEquals("3,email: must be a well-formed email address,\"Two", rejects.get(1));
+        assertEquals("Lines\",x,not-an-email,,", rejects.get(2));
+    }
+
+    @Test
+    void missingFirstNameColumn_failsTheImport() {
+        assertThrows(IllegalArgumentException.class, () -> run("lastName,email\nDoe,doe@import.test\n"));
+        assertEquals("FAILED", imports.recent().get(imports.recent().size() - 1).status());
+        // The guard is released, so the next import runs
+        assertEquals(1, run("firstName\nSolo\n").imported());
+    }
+
+    @Test
+    void unknownImport_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> imports.progress("nope"));
+    }
+}
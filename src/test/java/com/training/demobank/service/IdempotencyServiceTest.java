@@ -0,0 +1,179 @@
+package com.training.demobank.service;
+
+import com.training.demobank.dto.AccountDtos;
+import com.training.demobank.ledger.PostingOutcomeUnknownException;
+import com.training.demobank.repository.IdempotencyKeyRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not transactional: the key reservation must commit on its own, as it does behind the controller
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({IdempotencyService.class, JacksonAutoConfiguration.class})
+@TestPropertySource(properties = {"demobank.idempotency.cache-size=2", "demobank.idempotency.segments=1",
+        "demobank.idempotency.ttl=PT1H"})
+class IdempotencyServiceTest {
+
+    @Autowired IdempotencyService idempotency;
+    @Autowired IdempotencyKeyRepository repository;
+    @Autowired JdbcTemplate jdbc;
+
+    private static AccountDtos.MoneyRequest money(String amount) {
+        AccountDtos.MoneyRequest r = new AccountDtos.MoneyRequest();
+        r.amount = new BigDecimal(amount);
+        return r;
+    }
+
+    private void age(String key, Duration by) {
+        jdbc.update("update idempotency_keys set created_at = ? where idem_key = ?",
+                Timestamp.from(Instant.now().minus(by)), key);
+    }
+
+    private AccountDtos.AccountResponse deposit(String key, AccountDtos.MoneyRequest req, AtomicInteger calls) {
+        return idempotency.execute(key, "POST /api/accounts/1/deposit", req, AccountDtos.AccountResponse.class, () -> {
+            AccountDtos.AccountResponse res = new AccountDtos.AccountResponse();
+            res.id = 1L;
+            res.balance = BigDecimal.valueOf(calls.incrementAndGet());
+            return res;
+        });
+    }
+
+    @Test
+    void duplicateKey_returnsStoredResponseWithoutRunningAgain() {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger calls = new AtomicInteger();
+
+        AccountDtos.AccountResponse first = deposit(key, money("10.00"), calls);
+        AccountDtos.AccountResponse second = deposit(key, money("10.00"), calls);
+
+        assertEquals(1, calls.get());
+        assertEquals(first.balance, second.balance);
+        assertTrue(repository.findById(key).orElseThrow().isCompleted());
+    }
+
+    @Test
+    void evictedKey_isReplayedFromTable() {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger calls = new AtomicInteger();
+        deposit(key, money("10.00"), calls);
+        // push it out of the two-entry LRU
+        deposit(UUID.randomUUID().toString(), money("1.00"), new AtomicInteger());
+        deposit(UUID.randomUUID().toString(), money("1.00"), new AtomicInteger());
+
+        AccountDtos.AccountResponse replayed = deposit(key, money("10.00"), calls);
+
+        assertEquals(1, calls.get());
+        assertEquals(0, replayed.balance.compareTo(BigDecimal.ONE));
+    }
+
+    @Test
+    void sameKeyDifferentRequest_isRejected() {
+        String key = UUID.randomUUID().toString();
+        deposit(key, money("10.00"), new AtomicInteger());
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> deposit(key, money("99.00"), new AtomicInteger()));
+        assertTrue(ex.getMessage().contains("different request"));
+    }
+
+    @Test
+    void failedRequest_releasesKey() {
+        String key = UUID.randomUUID().toString();
+        assertThrows(IllegalStateException.class, () -> idempotency.execute(key, "POST /api/accounts/1/withdraw",
+                money("10.00"), AccountDtos.AccountResponse.class, () -> {
+                    throw new IllegalStateException("Insufficient funds for savings account");
+                }));
+        assertFalse(repository.existsById(key));
+
+        AtomicInteger calls = new AtomicInteger();
+        deposit(key, money("10.00"), calls);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void unknownOutcome_keepsKeyReserved() {
+        String key = UUID.randomUUID().toString();
+        assertThrows(PostingOutcomeUnknownException.class, () -> idempotency.execute(key, "POST /api/accounts/1/deposit",
+                money("10.00"), AccountDtos.AccountResponse.class, () -> {
+                    throw new PostingOutcomeUnknownException("Ledger journal fsync timed out");
+                }));
+
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(IllegalStateException.class, () -> deposit(key, money("10.00"), calls));
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void keyStillReserved_isConflict() {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger retried = new AtomicInteger();
+
+        // a retry arriving while the first request is still running
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> idempotency.execute(key, "POST /api/accounts/1/deposit", money("10.00"),
+                        AccountDtos.AccountResponse.class, () -> deposit(key, money("10.00"), retried)));
+        assertTrue(ex.getMessage().contains("in progress"));
+        assertEquals(0, retried.get());
+    }
+
+    @Test
+    void purge_keepsUnresolvedReservations_untilTheTtl() {
+        String expired = UUID.randomUUID().toString();
+        String recent = UUID.randomUUID().toString();
+        String unresolved = UUID.randomUUID().toString();
+        String unresolvedExpired = UUID.randomUUID().toString();
+        AtomicInteger calls = new AtomicInteger();
+        deposit(expired, money("10.00"), calls);
+        deposit(recent, money("10.00"), calls);
+        for (String key : List.of(unresolved, unresolvedExpired)) {
+            assertThrows(PostingOutcomeUnknownException.class, () -> idempotency.execute(key, "POST /api/accounts/1/deposit",
+                    money("10.00"), AccountDtos.AccountResponse.class, () -> {
+                        throw new PostingOutcomeUnknownException("Ledger journal fsync timed out");
+                    }));
+        }
+        age(expired, Duration.ofHours(2));
+        age(recent, Duration.ofMinutes(30));
+        age(unresolved, Duration.ofMinutes(30));
+        age(unresolvedExpired, Duration.ofHours(2));
+
+        idempotency.purge();
+
+        assertFalse(repository.existsById(expired));
+        assertTrue(repository.existsById(recent));
+        assertFalse(repository.existsById(unresolvedExpired));
+        // its posting may have gone through: still a conflict, not a second posting
+        assertThrows(IllegalStateException.class, () -> deposit(unresolved, money("10.00"), calls));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void reservationPurgedWhileRunning_isStoredCompletedAgain() {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger calls = new AtomicInteger();
+        idempotency.execute(key, "POST /api/accounts/1/deposit", money("10.00"), AccountDtos.AccountResponse.class, () -> {
+            repository.deleteById(key);
+            return deposit(UUID.randomUUID().toString(), money("10.00"), calls);
+        });
+
+        assertTrue(repository.findById(key).orElseThrow().isCompleted());
+    }
+}
@@ -0,0 +1,146 @@
+package com.training.demobank.service;
+
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.BankTransaction;
+import com.training.demobank.model.Customer;
+import com.training.demobank.model.InterestRun;
+import com.training.demobank.model.InterestRunChunk;
+import com.training.demobank.repository.AccountRepository;
+import com.training.demobank.repository.BankTransactionRepository;
+import com.training.demobank.repository.CustomerRepository;
+import com.training.demobank.repository.InterestRunChunkRepository;
+import com.training.demobank.repository.InterestRunRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not transactional: chunks commit on their own worker threads
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({InterestBatchService.class, StripedBalanceService.class, LookupCache.class})
+@TestPropertySource(properties = {"demobank.interest.chunk-size=1", "demobank.interest.parallelism=3"})
+class InterestBatchServiceTest {
+
+    @Autowired InterestBatchService interest;
+    @Autowired CustomerRepository customerRepository;
+    @Autowired AccountRepository accountRepository;
+    @Autowired BankTransactionRepository txRepository;
+    @Autowired InterestRunRepository runRepository;
+    @Autowired InterestRunChunkRepository chunkRepository;
+
+    Account a;
+    Account b;
+    Account current;
+
+    @BeforeEach
+    void setup() {
+        Customer c = new Customer();
+        c.setFirstName("Saver");
+        c.setEmail("saver@test");
+        customerRepository.save(c);
+        a = open(c, AccountType.SAVINGS, "1000.00", "0.0365");
+        b = open(c, AccountType.SAVINGS, "500.00", "0.0100");
+        current = open(c, AccountType.CURRENT, "1000.00", "0.0500");
+    }
+
+    @AfterEach
+    void cleanup() {
+        txRepository.deleteAll();
+        chunkRepository.deleteAll();
+        runRepository.deleteAll();
+        accountRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    private Account open(Customer c, AccountType type, String balance, String rate) {
+        Account acc = new Account();
+        acc.setCustomer(c);
+        acc.setAccountType(type);
+        acc.setAccountNumber("AC" + UUID.randomUUID().toString().substring(0, 8));
+        acc.setBalance(new BigDecimal(balance));
+        acc.setInterestRate(new BigDecimal(rate));
+        acc.setOpenedAt(Instant.now());
+        acc.setStatus("ACTIVE");
+        return accountRepository.save(acc);
+    }
+
+    private Account reload(Account acc) {
+        return accountRepository.findById(acc.getId()).orElseThrow();
+    }
+
+    @Test
+    void dailyAccrual_thenMonthlyCapitalization_postsInterestForSavingsOnly() {
+        LocalDate day = LocalDate.of(2023, 1, 1);
+        for (int i = 0; i < 30; i++) {
+            InterestBatchService.Result r = interest.run(InterestRun.Type.ACCRUAL, day.plusDays(i));
+            assertEquals(2, r.accounts());
+            assertEquals(0, r.postings());
+        }
+        assertEquals(new BigDecimal("3.000000"), reload(a).getAccruedInterest());
+        assertEquals(new BigDecimal("0.410970"), reload(b).getAccruedInterest()); // 30 x 0.013699
+
+        InterestBatchService.Result cap = interest.run(InterestRun.Type.CAPITALIZATION, LocalDate.of(2023, 1, 31));
+        assertEquals(2, cap.postings());
+        assertTrue(cap.accountsPerSecond() > 0);
+
+        assertEquals(new BigDecimal("1003.00"), reload(a).getBalance());
+        assertEquals(0, reload(a).getAccruedInterest().signum());
+        assertEquals(new BigDecimal("500.41"), reload(b).getBalance());
+        assertEquals(new BigDecimal("0.000970"), reload(b).getAccruedInterest());
+        BankTransaction t = txRepository.findByAccount_IdOrderByTxnDateDesc(b.getId()).get(0);
+        assertEquals("INTEREST", t.getTxnType());
+        assertEquals(new BigDecimal("0.41"), t.getAmount());
+        assertEquals(new BigDecimal("500.41"), t.getBalanceAfter());
+
+        assertEquals(new BigDecimal("1000.00"), reload(current).getBalance());
+        assertEquals(0, reload(current).getAccruedInterest().signum());
+        assertTrue(txRepository.findByAccount_IdOrderByTxnDateDesc(current.getId()).isEmpty());
+    }
+
+    @Test
+    void crashedRun_resumesOnlyUnfinishedChunks() {
+        LocalDate day = LocalDate.of(2023, 3, 1);
+        InterestBatchService.Result first = interest.run(InterestRun.Type.ACCRUAL, day);
+        assertThrows(IllegalStateException.class, () -> interest.run(InterestRun.Type.ACCRUAL, day));
+
+        // what a crash inside b's chunk leaves behind: its transaction rolled back, the run still RUNNING
+        InterestRun run = runRepository.findById(first.runId()).orElseThrow();
+        run.setStatus("RUNNING");
+        runRepository.save(run);
+        InterestRunChunk chunk = chunkRepository.findAll().stream()
+                .filter(c -> c.getFromId() <= b.getId() && b.getId() < c.getToId())
+                .findFirst().orElseThrow();
+        chunk.setCompletedAt(null);
+        chunkRepository.save(chunk);
+        Account rolledBack = reload(b);
+        rolledBack.setAccruedInterest(BigDecimal.ZERO);
+        accountRepository.save(rolledBack);
+
+        InterestBatchService.Result resumed = interest.run(InterestRun.Type.ACCRUAL, day);
+
+        assertEquals(first.runId(), resumed.runId());
+        assertEquals(first.chunks() - 1, resumed.chunksResumed());
+        assertEquals(1, resumed.accounts());
+        assertEquals(new BigDecimal("0.100000"), reload(a).getAccruedInterest());
+        assertEquals(new BigDecimal("0.013699"), reload(b).getAccruedInterest());
+        assertEquals(2, runRepository.findById(first.runId()).orElseThrow().getAccountsProcessed());
+        assertEquals(List.of(), chunkRepository.findPendingIds(first.runId()));
+    }
+}
@@ -0,0 +1,91 @@
+package com.training.demobank.service;
+
+import com.training.demobank.dto.AccountDtos;
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.Customer;
+import com.training.demobank.repository.AccountSummary;
+import com.training.demobank.repository.CustomerRepository;
+import com.training.demobank.repository.TransactionFilter;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * List endpoints read projections, so each one is a single SQL statement however many accounts,
+ * customers and transactions are involved (no EAGER account/customer follow-up selects).
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Import({BankingService.class, PostingExecutor.class, StripedBalanceService.class, LookupCache.class,
+        BankingMetrics.class, SnowflakeAccountNumberGenerator.class})
+class ListQueryStatementCountTest {
+
+    @Autowired BankingService bankingService;
+    @Autowired CustomerRepository customerRepository;
+    @Autowired EntityManager entityManager;
+
+    Statistics stats;
+    Long customerId;
+
+    @BeforeEach
+    void setup() {
+        stats = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        for (int c = 0; c < 3; c++) {
+            Customer customer = new Customer();
+            customer.setFirstName("List" + c);
+            customer.setEmail("list" + c + "@test");
+            customerId = customerRepository.save(customer).getId();
+            for (int a = 0; a < 2; a++) {
+                AccountDtos.CreateAccountRequest r = new AccountDtos.CreateAccountRequest();
+                r.customerId = customerId;
+                r.accountType = AccountType.CURRENT;
+                r.openingBalance = new BigDecimal("10.00");
+                Account account = bankingService.createAccount(r);
+                bankingService.deposit(account.getId(), new BigDecimal("1.00"), "more");
+            }
+        }
+        bankingService.configureStripes(bankingService.getAccountsByCustomerId(customerId).get(0).id(), 2);
+        entityManager.flush();
+        entityManager.clear();
+        stats.clear();
+    }
+
+    @Test
+    void listAccounts_isOneStatement() {
+        List<AccountSummary> all = bankingService.getAllAccounts();
+        assertTrue(all.size() >= 6);
+        assertEquals(1, stats.getPrepareStatementCount());
+
+        stats.clear();
+        List<AccountSummary> mine = bankingService.getAccountsByCustomerId(customerId);
+        assertEquals(2, mine.size());
+        assertEquals(0, new BigDecimal("11.00").compareTo(mine.get(0).balance()));
+        assertEquals(1, stats.getPrepareStatementCount());
+        assertEquals(0, stats.getEntityLoadCount());
+    }
+
+    @Test
+    void listTransactions_isOneStatement() {
+        TransactionPage page = bankingService.listTransactions(new TransactionFilter(null, null, null, null), null, 5);
+        assertEquals(5, page.items().size());
+        assertNotNull(page.nextCursor());
+        assertEquals(1, stats.getPrepareStatementCount());
+
+        stats.clear();
+        bankingService.listTransactions(new TransactionFilter(null, null, null, null), page.nextCursor(), 100);
+        assertEquals(1, stats.getPrepareStatementCount());
+        assertEquals(0, stats.getEntityLoadCount());
+    }
+}
@@ -0,0 +1,196 @@
+package com.training.demobank.service;
+
+import com.training.demobank.dto.AccountDtos;
+import com.training.demobank.dto.CustomerDtos;
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.Customer;
+import com.training.demobank.repository.AccountRepository;
+import com.training.demobank.repository.BankTransactionRepository;
+import com.training.demobank.repository.CustomerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not transactional: invalidation is tied to commits, so the test needs real ones
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BankingService.class, PostingExecutor.class, StripedBalanceService.class, LookupCache.class,
+        BankingMetrics.class, SnowflakeAccountNumberGenerator.class})
+class LookupCacheTest {
+
+    @Autowired BankingService bankingService;
+    @Autowired LookupCache lookupCache;
+    @Autowired CustomerRepository customerRepository;
+    @Autowired AccountRepository accountRepository;
+    @Autowired BankTransactionRepository txRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    Customer customer;
+    Account account;
+    String email;
+
+    @BeforeEach
+    void setup() {
+        Customer c = new Customer();
+        c.setFirstName("Cached");
+        // unique per test: email -> id mappings outlive the rows this class deletes
+        email = "Cached-" + UUID.randomUUID() + "@Test";
+        c.setEmail(email);
+        customer = customerRepository.save(c);
+        AccountDtos.CreateAccountRequest req = new AccountDtos.CreateAccountRequest();
+        req.customerId = customer.getId();
+        req.accountType = AccountType.CURRENT;
+        req.openingBalance = new BigDecimal("10.00");
+        account = bankingService.createAccount(req);
+    }
+
+    @AfterEach
+    void cleanup() {
+        txRepository.deleteAll();
+        accountRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    @SuppressWarnings("unchecked")
+    private long hits(String cache) {
+        return (long) ((Map<String, Object>) lookupCache.stats().get(cache)).get("hits");
+    }
+
+    @Test
+    void repeatedLookups_areServedFromCache_andStayUsableDetached() {
+        long before = hits("accounts");
+        Account first = bankingService.getAccount(account.getId());
+        Account second = bankingService.getAccountByNumber(account.getAccountNumber());
+
+        assertSame(first, second);
+        assertEquals(before + 1, hits("accounts"));
+        assertEquals(customer.getId(), second.getCustomer().getId());
+
+        assertSame(bankingService.getCustomerByEmail(email.toLowerCase()), bankingService.getCustomerByEmail(" " + email.toUpperCase() + " "));
+        assertSame(bankingService.getCustomer(customer.getId()), bankingService.getCustomerByEmail(email));
+    }
+
+    @Test
+    void posting_invalidatesOnlyAfterCommit() {
+        bankingService.getAccount(account.getId());
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        tx.executeWithoutResult(status -> {
+            bankingService.deposit(account.getId(), new BigDecimal("5.00"), null);
+            // not committed yet: the cached (committed) balance is still served
+            assertEquals(new BigDecimal("10.00"), bankingService.getAccount(account.getId()).getBalance());
+        });
+        assertEquals(new BigDecimal("15.00"), bankingService.getAccount(account.getId()).getBalance());
+
+        tx.executeWithoutResult(status -> {
+            bankingService.withdraw(account.getId(), new BigDecimal("1.00"), null);
+            status.setRollbackOnly();
+        });
+        assertEquals(new BigDecimal("15.00"), bankingService.getAccount(account.getId()).getBalance());
+
+        bankingService.transfer(account.getId(), openSecond().getId(), new BigDecimal("2.00"), null);
+        assertEquals(new BigDecimal("13.00"), bankingService.getAccount(account.getId()).getBalance());
+    }
+
+    @Test
+    void passwordChange_invalidatesCustomer() {
+        assertNull(bankingService.getCustomer(customer.getId()).getPasswordHash());
+        bankingService.updatePasswordHash(customer.getId(), "hash");
+        assertEquals("hash", bankingService.getCustomerByEmail(email).getPasswordHash());
+    }
+
+    @Test
+    void loadThatRacedAnEviction_isNotCached_butOtherKeysAre() {
+        LookupCache cache = new LookupCache(true, "maximumSize=100", "maximumSize=100");
+        Customer stale = new Customer();
+        Customer other = new Customer();
+
+        long seen = cache.epoch();
+        // commits between the query and the put, e.g. updatePasswordHash
+        cache.evictCustomer(1L);
+        cache.putCustomer(1L, stale, seen);
+        cache.putCustomer(2L, other, seen);
+
+        assertSame(other, cache.customer(2L, () -> fail("customer 2 should be cached")));
+        Customer fresh = new Customer();
+        assertSame(fresh, cache.customer(1L, () -> fresh));
+        assertSame(fresh, cache.customer(1L, () -> fail("reloaded customer 1 should be cached")));
+    }
+
+    @Test
+    void caches_arePublishedToMicrometer() {
+        LookupCache cache = new LookupCache(true, "maximumSize=100", "maximumSize=100");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        Customer c = new Customer();
+
+        cache.customer(1L, () -> c);
+        cache.customer(1L, () -> fail("customer 1 should be cached"));
+
+        assertEquals(1, registry.get("cache.gets").tags("cache", "lookup.customers", "result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tags("cache", "lookup.customers", "result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("cache.size").tags("cache", "lookup.customers").gauge().value());
+        assertNotNull(registry.find("cache.gets").tags("cache", "lookup.unknown-emails").functionCounter());
+    }
+
+    @Test
+    void passwordChangeDuringEmailLookup_doesNotCacheTheOldHash() {
+        bankingService.getCustomerByEmail(email);
+        long seen = lookupCache.epoch();
+        Customer before = customerRepository.findById(customer.getId()).orElseThrow();
+        bankingService.updatePasswordHash(customer.getId(), "new-hash");
+        lookupCache.putCustomer(customer.getId(), before, seen);
+
+        assertEquals("new-hash", bankingService.getCustomerByEmail(email).getPasswordHash());
+    }
+
+    @Test
+    void unknownEmail_isCachedNegatively_untilRegistered() {
+        String unknown = "Nobody-" + UUID.randomUUID() + "@Test";
+        long before = hits("unknownEmails");
+        assertThrows(IllegalArgumentException.class, () -> bankingService.getCustomerByEmail(unknown));
+        assertThrows(IllegalArgumentException.class, () -> bankingService.getCustomerByEmail(unknown.toUpperCase()));
+        assertEquals(before + 1, hits("unknownEmails"));
+
+        CustomerDtos.CreateCustomerRequest req = new CustomerDtos.CreateCustomerRequest();
+        req.firstName = "Late";
+        req.email = unknown;
+        Customer created = bankingService.createCustomer(req);
+
+        assertEquals(unknown.toLowerCase(), created.getEmailNormalized());
+        assertEquals(created.getId(), bankingService.getCustomerByEmail(unknown).getId());
+    }
+
+    @Test
+    void caseVariantOfExistingEmail_isRejected() {
+        Customer c = new Customer();
+        c.setFirstName("Twin");
+        c.setEmail(" " + email.toUpperCase());
+        assertThrows(DataIntegrityViolationException.class, () -> customerRepository.save(c));
+    }
+
+    private Account openSecond() {
+        AccountDtos.CreateAccountRequest req = new AccountDtos.CreateAccountRequest();
+        req.customerId = customer.getId();
+        req.accountType = AccountType.CURRENT;
+        return bankingService.createAccount(req);
+    }
+}
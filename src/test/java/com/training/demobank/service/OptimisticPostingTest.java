@@ -0,0 +1,65 @@
+package com.training.demobank.service;
+
+import com.training.demobank.dto.AccountDtos;
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.Customer;
+import com.training.demobank.repository.AccountRepository;
+import com.training.demobank.repository.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "demobank.ledger.concurrency=optimistic",
+        "demobank.ledger.optimistic.max-attempts=50",
+        "demobank.seed.test-user=false",
+        "logging.level.org.hibernate.orm.jdbc.batch=OFF"
+})
+class OptimisticPostingTest {
+
+    @Autowired BankingService bankingService;
+    @Autowired PostingExecutor postingExecutor;
+    @Autowired CustomerRepository customerRepository;
+    @Autowired AccountRepository accountRepository;
+
+    @Test
+    void concurrentDeposits_onOneAccount_areAllApplied() throws Exception {
+        Customer c = new Customer();
+        c.setFirstName("Optimistic");
+        c.setEmail("opt-" + UUID.randomUUID() + "@test");
+        AccountDtos.CreateAccountRequest req = new AccountDtos.CreateAccountRequest();
+        req.customerId = customerRepository.save(c).getId();
+        req.accountType = AccountType.CURRENT;
+        Account account = bankingService.createAccount(req);
+
+        int threads = 8;
+        int perThread = 25;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    bankingService.deposit(account.getId(), new BigDecimal("1.00"), "race");
+                }
+            }));
+        }
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+
+        Account reloaded = accountRepository.findById(account.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal(threads * perThread).compareTo(reloaded.getBalance()));
+        assertEquals(threads * perThread, reloaded.getVersion().intValue());
+        assertEquals(0L, postingExecutor.stats().get("exhausted"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.training.demobank.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    private final BCryptPasswordEncoder encoder = Mockito.mock(BCryptPasswordEncoder.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void cleanup() {
+        release.countDown();
+        hasher.shutdown();
+    }
+
+    @Test
+    void runsOnPoolThread_andTimesTheHash() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        hasher = new PasswordHasher(encoder, new BankingMetrics(registry), 1, 1);
+        Mockito.when(encoder.matches("pw", "hash"))
+                .thenAnswer(inv -> Thread.currentThread().getName().startsWith("password-hasher-"));
+
+        assertTrue(hasher.matches("pw", "hash"));
+        assertEquals(1, registry.get("demobank.password.hashing").tag("op", "matches").timer().count());
+        assertEquals(1, registry.get("demobank.password.queue.wait").timer().count());
+    }
+
+    @Test
+    void rejectsFastWhenQueueIsFull() throws Exception {
+        hasher = new PasswordHasher(encoder, new BankingMetrics(new SimpleMeterRegistry()), 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        Mockito.when(encoder.encode("slow")).thenAnswer(inv -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hasher.encode("slow"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hasher.encode("slow"));
+        while ((int) hasher.stats().get("queued") < 1) Thread.onSpinWait();
+
+        assertThrows(RejectedExecutionException.class, () -> hasher.encode("slow"));
+        assertEquals(1L, hasher.stats().get("rejected"));
+
+        release.countDown();
+        assertEquals("hash", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash", queued.get(5, TimeUnit.SECONDS));
+    }
+}
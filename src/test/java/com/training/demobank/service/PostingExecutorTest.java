@@ -0,0 +1,56 @@
+package com.training.demobank.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostingExecutorTest {
+
+    private final PlatformTransactionManager txManager = Mockito.mock(PlatformTransactionManager.class);
+
+    @Test
+    void optimistic_retriesConflictsUntilSuccess() {
+        PostingExecutor executor = new PostingExecutor(txManager, "optimistic", 5, 1, 2);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("Account", 1L);
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, calls.get());
+        assertEquals(2L, executor.stats().get("conflicts"));
+        assertEquals(2L, executor.stats().get("retries"));
+    }
+
+    @Test
+    void optimistic_givesUpAfterRetryBudget() {
+        PostingExecutor executor = new PostingExecutor(txManager, "optimistic", 3, 1, 2);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> executor.execute(() -> {
+            throw new ObjectOptimisticLockingFailureException("Account", 1L);
+        }));
+
+        assertTrue(ex.getMessage().toLowerCase().contains("conflict"));
+        assertEquals(3L, executor.stats().get("attempts"));
+        assertEquals(1L, executor.stats().get("exhausted"));
+    }
+
+    @Test
+    void pessimistic_runsOnce() {
+        PostingExecutor executor = new PostingExecutor(txManager, "pessimistic", 5, 1, 2);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> executor.execute(() -> {
+            throw new ObjectOptimisticLockingFailureException("Account", 1L);
+        }));
+        assertEquals(1L, executor.stats().get("attempts"));
+    }
+}
@@ -0,0 +1,139 @@
+package com.training.demobank.service;
+
+import com.training.demobank.dto.AccountDtos;
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.Customer;
+import com.training.demobank.model.ReconciliationCheckpoint;
+import com.training.demobank.repository.AccountRepository;
+import com.training.demobank.repository.AccountStripeRepository;
+import com.training.demobank.repository.BankTransactionRepository;
+import com.training.demobank.repository.CustomerRepository;
+import com.training.demobank.repository.ReconciliationCheckpointRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not transactional: partitions are scanned and checkpointed on worker threads
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ReconciliationService.class, BankingService.class, PostingExecutor.class, StripedBalanceService.class, LookupCache.class,
+        BankingMetrics.class, SnowflakeAccountNumberGenerator.class})
+@TestPropertySource(properties = {"demobank.reconciliation.partition-size=2", "demobank.reconciliation.parallelism=3"})
+class ReconciliationServiceTest {
+
+    @Autowired ReconciliationService reconciliation;
+    @Autowired BankingService bankingService;
+    @Autowired CustomerRepository customerRepository;
+    @Autowired AccountRepository accountRepository;
+    @Autowired AccountStripeRepository stripeRepository;
+    @Autowired BankTransactionRepository txRepository;
+    @Autowired ReconciliationCheckpointRepository checkpointRepository;
+
+    Account a;
+    Account b;
+    Account striped;
+    Account empty;
+
+    @BeforeEach
+    void setup() {
+        Customer c = new Customer();
+        c.setFirstName("Recon");
+        c.setEmail("recon@test");
+        Long customerId = customerRepository.save(c).getId();
+        a = open(customerId, "100.00");
+        b = open(customerId, "50.00");
+        striped = open(customerId, "10.00");
+        empty = open(customerId, null);
+        bankingService.transfer(a.getId(), b.getId(), new BigDecimal("30.00"), null);
+        bankingService.withdraw(b.getId(), new BigDecimal("5.00"), null);
+        bankingService.configureStripes(striped.getId(), 4);
+        bankingService.deposit(striped.getId(), new BigDecimal("7.00"), null);
+    }
+
+    @AfterEach
+    void cleanup() {
+        checkpointRepository.deleteAll();
+        txRepository.deleteAll();
+        stripeRepository.deleteAll();
+        accountRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    private Account open(Long customerId, String opening) {
+        AccountDtos.CreateAccountRequest req = new AccountDtos.CreateAccountRequest();
+        req.customerId = customerId;
+        req.accountType = AccountType.CURRENT;
+        req.openingBalance = opening == null ? null : new BigDecimal(opening);
+        return bankingService.createAccount(req);
+    }
+
+    @Test
+    void consistentLedger_thenIncrementalRunsReadOnlyNewRows() {
+        ReconciliationService.Result first = reconciliation.run(false);
+        assertEquals(4, first.accounts());
+        assertEquals(7, first.transactionsScanned());
+        assertEquals(0, first.discrepancyCount());
+        assertEquals(4, checkpointRepository.count());
+
+        assertEquals(0, reconciliation.run(false).transactionsScanned());
+
+        bankingService.deposit(empty.getId(), new BigDecimal("1.00"), null);
+        ReconciliationService.Result third = reconciliation.run(false);
+        assertEquals(1, third.transactionsScanned());
+        assertEquals(0, third.discrepancyCount());
+
+        ReconciliationCheckpoint cp = checkpointRepository.findById(b.getId()).orElseThrow();
+        assertEquals(3, cp.getTxnCount());
+        assertEquals(0, new BigDecimal("75.00").compareTo(cp.getRunningSum()));
+        assertEquals(8, reconciliation.run(true).transactionsScanned());
+    }
+
+    @Test
+    void tamperedBalance_isReportedAndNotCheckpointed() {
+        reconciliation.run(false);
+        Account tampered = accountRepository.findById(a.getId()).orElseThrow();
+        tampered.setBalance(tampered.getBalance().add(new BigDecimal("0.01")));
+        accountRepository.save(tampered);
+
+        ReconciliationService.Result r = reconciliation.run(false);
+
+        assertEquals(1, r.discrepancyCount());
+        ReconciliationService.Discrepancy d = r.discrepancies().get(0);
+        assertEquals(a.getId(), d.accountId());
+        assertEquals(0, new BigDecimal("70.01").compareTo(d.balance()));
+        assertEquals(0, new BigDecimal("70.00").compareTo(d.ledgerSum()));
+        assertEquals(0, new BigDecimal("0.01").compareTo(d.difference()));
+        assertEquals(1, reconciliation.run(true).discrepancyCount());
+    }
+
+    @Test
+    void rowMissedByCheckpoint_isHealedByLockedRecheck() {
+        reconciliation.run(false);
+        // as if b's withdrawal had a lower id than the checkpoint but committed after it was taken
+        ReconciliationCheckpoint cp = checkpointRepository.findById(b.getId()).orElseThrow();
+        cp.setRunningSum(cp.getRunningSum().add(new BigDecimal("5.00")));
+        cp.setTxnCount(cp.getTxnCount() - 1);
+        checkpointRepository.save(cp);
+
+        ReconciliationService.Result r = reconciliation.run(false);
+
+        assertEquals(1, r.rechecked());
+        assertEquals(0, r.discrepancyCount());
+        ReconciliationCheckpoint healed = checkpointRepository.findById(b.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("75.00").compareTo(healed.getRunningSum()));
+        assertEquals(3, healed.getTxnCount());
+    }
+}
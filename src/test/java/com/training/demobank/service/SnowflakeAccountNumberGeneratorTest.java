@@ -0,0 +1,98 @@
+package com.training.demobank.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeAccountNumberGeneratorTest {
+
+    @Test
+    void concurrentCallers_neverCollide() throws Exception {
+        SnowflakeAccountNumberGenerator generator = new SnowflakeAccountNumberGenerator(7);
+        int threads = 8;
+        int perThread = 50_000;
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    int duplicates = 0;
+                    for (int i = 0; i < perThread; i++) {
+                        if (!seen.add(generator.next())) duplicates++;
+                    }
+                    return duplicates;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> r : results) assertEquals(0, r.get());
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(threads * perThread, seen.size());
+        assertTrue(seen.stream().allMatch(SnowflakeAccountNumberGenerator::isValid));
+    }
+
+    @Test
+    void frozenOrBackwardClock_keepsCountingPastTheSequence() {
+        AtomicLong now = new AtomicLong(SnowflakeAccountNumberGenerator.EPOCH_MILLIS + 1_000);
+        SnowflakeAccountNumberGenerator generator = new SnowflakeAccountNumberGenerator(1, now::get);
+        long previous = -1;
+        for (int i = 0; i < 10_000; i++) { // more than the 4096 sequence numbers of one millisecond
+            if (i == 5_000) now.addAndGet(-500);
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    void bulkReservation_doesNotOverlapSingleNumbers() {
+        long instant = SnowflakeAccountNumberGenerator.EPOCH_MILLIS + 7;
+        SnowflakeAccountNumberGenerator generator = new SnowflakeAccountNumberGenerator(4, () -> instant);
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        assertTrue(seen.add(generator.next()));
+        for (String n : generator.next(10_000)) assertTrue(seen.add(n));
+        assertTrue(seen.add(generator.next()));
+        assertTrue(generator.next(0).isEmpty());
+    }
+
+    @Test
+    void nodes_produceDisjointNumbers_forTheSameInstant() {
+        long instant = SnowflakeAccountNumberGenerator.EPOCH_MILLIS + 42;
+        SnowflakeAccountNumberGenerator a = new SnowflakeAccountNumberGenerator(1, () -> instant);
+        SnowflakeAccountNumberGenerator b = new SnowflakeAccountNumberGenerator(2, () -> instant);
+        Set<String> fromA = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 5_000; i++) fromA.add(a.next());
+        for (int i = 0; i < 5_000; i++) assertFalse(fromA.contains(b.next()));
+    }
+
+    @Test
+    void checkDigit_catchesTypos() {
+        String number = new SnowflakeAccountNumberGenerator(3).next();
+        assertEquals(22, number.length());
+        assertTrue(SnowflakeAccountNumberGenerator.isValid(number));
+
+        char[] typo = number.toCharArray();
+        typo[10] = typo[10] == '9' ? '0' : (char) (typo[10] + 1);
+        assertFalse(SnowflakeAccountNumberGenerator.isValid(new String(typo)));
+        assertFalse(SnowflakeAccountNumberGenerator.isValid("AC123"));
+    }
+
+    @Test
+    void nodeId_outOfRange_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeAccountNumberGenerator(1024));
+    }
+}
@@ -0,0 +1,25 @@
+package com.training.demobank.service;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records every SQL string Hibernate prepares. Register with
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}.
+ * A batched statement is prepared, and therefore recorded, once per flush and batch key (entity
+ * and operation), not once per JDBC batch or per row.
+ */
+public class SqlRecorder implements StatementInspector {
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    static void reset() { STATEMENTS.clear(); }
+    static List<String> statements() { return List.copyOf(STATEMENTS); }
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql.trim().toLowerCase());
+        return sql;
+    }
+}
@@ -0,0 +1,132 @@
+package com.training.demobank.service;
+
+import com.training.demobank.dto.AccountDtos;
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountStripe;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.Customer;
+import com.training.demobank.repository.AccountRepository;
+import com.training.demobank.repository.AccountSummary;
+import com.training.demobank.repository.AccountStripeRepository;
+import com.training.demobank.repository.CustomerRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Import({BankingService.class, PostingExecutor.class, StripedBalanceService.class, LookupCache.class,
+        BankingMetrics.class, SnowflakeAccountNumberGenerator.class})
+class StripedBalanceServiceTest {
+
+    @Autowired BankingService bankingService;
+    @Autowired CustomerRepository customerRepository;
+    @Autowired AccountRepository accountRepository;
+    @Autowired AccountStripeRepository stripeRepository;
+    @Autowired EntityManager entityManager;
+
+    Long customerId;
+
+    @BeforeEach
+    void setup() {
+        Customer c = new Customer();
+        c.setFirstName("Hot");
+        c.setEmail("hot@test");
+        customerId = customerRepository.save(c).getId();
+    }
+
+    private Account open(AccountType type, String opening) {
+        AccountDtos.CreateAccountRequest r = new AccountDtos.CreateAccountRequest();
+        r.customerId = customerId;
+        r.accountType = type;
+        r.openingBalance = new BigDecimal(opening);
+        return bankingService.createAccount(r);
+    }
+
+    private BigDecimal stripeSum(Long accountId) {
+        entityManager.flush();
+        entityManager.clear();
+        return stripeRepository.findAllWithLockingByAccountId(accountId).stream()
+                .map(AccountStripe::getBalance).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private static void assertAmount(String expected, BigDecimal actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), () -> "expected " + expected + " but was " + actual);
+    }
+
+    @Test
+    void credits_landOnStripes_andReadsAggregate() {
+        Account hot = open(AccountType.CURRENT, "100.00");
+        Account payer = open(AccountType.CURRENT, "100.00");
+        bankingService.configureStripes(hot.getId(), 4);
+
+        for (int i = 0; i < 5; i++) {
+            bankingService.deposit(hot.getId(), new BigDecimal("10.00"), "card");
+        }
+        bankingService.transfer(payer.getId(), hot.getId(), new BigDecimal("25.00"), "sale");
+
+        assertAmount("75.00", stripeSum(hot.getId()));
+        assertAmount("100.00", accountRepository.findById(hot.getId()).orElseThrow().getBalance());
+        assertAmount("175.00", bankingService.getAccount(hot.getId()).getTotalBalance());
+        AccountSummary listed = bankingService.getAccountsByCustomerId(customerId).stream()
+                .filter(a -> a.id().equals(hot.getId())).findFirst().orElseThrow();
+        assertAmount("175.00", listed.balance());
+    }
+
+    @Test
+    void debits_borrowAcrossStripes() {
+        Account hot = open(AccountType.SAVINGS, "10.00");
+        bankingService.configureStripes(hot.getId(), 3);
+        bankingService.deposit(hot.getId(), new BigDecimal("30.00"), "a");
+        bankingService.deposit(hot.getId(), new BigDecimal("30.00"), "b");
+
+        // base alone (10) cannot cover it; base + stripes (70) can
+        Account after = bankingService.withdraw(hot.getId(), new BigDecimal("65.00"), "payout");
+
+        assertAmount("5.00", after.getTotalBalance());
+        assertAmount("0", stripeSum(hot.getId()));
+        assertThrows(IllegalStateException.class,
+                () -> bankingService.withdraw(hot.getId(), new BigDecimal("5.01"), "too much"));
+    }
+
+    @Test
+    void batchTransfer_fromStripedAccount_seesWholeBalance() {
+        Account hot = open(AccountType.SAVINGS, "0.00");
+        Account other = open(AccountType.SAVINGS, "0.00");
+        bankingService.configureStripes(hot.getId(), 2);
+        bankingService.deposit(hot.getId(), new BigDecimal("40.00"), "in");
+
+        AccountDtos.TransferRequest t = new AccountDtos.TransferRequest();
+        t.fromAccountId = hot.getId();
+        t.toAccountId = other.getId();
+        t.amount = new BigDecimal("40.00");
+        AccountDtos.BatchTransferResponse res = bankingService.transferBatch(List.of(t), false);
+
+        assertEquals(1, res.succeeded);
+        assertAmount("0", bankingService.getAccount(hot.getId()).getTotalBalance());
+        assertAmount("40.00", bankingService.getAccount(other.getId()).getTotalBalance());
+    }
+
+    @Test
+    void disablingStripes_foldsThemIntoTheAccount() {
+        Account hot = open(AccountType.CURRENT, "1.00");
+        bankingService.configureStripes(hot.getId(), 8);
+        bankingService.deposit(hot.getId(), new BigDecimal("9.00"), "in");
+
+        Account plain = bankingService.configureStripes(hot.getId(), 0);
+
+        assertEquals(0, plain.getStripeCount());
+        assertAmount("10.00", plain.getBalance());
+        assertTrue(stripeRepository.findAllWithLockingByAccountId(hot.getId()).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> bankingService.configureStripes(hot.getId(), 65));
+    }
+}
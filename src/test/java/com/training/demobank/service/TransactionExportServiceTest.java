@@ -0,0 +1,105 @@
+package com.training.demobank.service;
+
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.BankTransaction;
+import com.training.demobank.model.Customer;
+import com.training.demobank.repository.AccountRepository;
+import com.training.demobank.repository.BankTransactionRepository;
+import com.training.demobank.repository.CustomerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Import(TransactionExportService.class)
+class TransactionExportServiceTest {
+
+    @Autowired TransactionExportService exportService;
+    @Autowired CustomerRepository customerRepository;
+    @Autowired AccountRepository accountRepository;
+    @Autowired BankTransactionRepository txRepository;
+
+    Account account;
+    Account other;
+    List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        Customer c = new Customer();
+        c.setFirstName("Export");
+        c.setEmail("export@test");
+        customerRepository.save(c);
+        account = open(c);
+        other = open(c);
+        ids.add(post(account, "DEPOSIT", "100.00", "100.00", "salary"));
+        ids.add(post(other, "DEPOSIT", "1.00", "1.00", null));
+        ids.add(post(account, "WITHDRAWAL", "2.50", "97.50", "coffee, \"large\""));
+        ids.add(post(account, "DEPOSIT", "3.00", null, "line\nbreak"));
+    }
+
+    private Account open(Customer c) {
+        Account a = new Account();
+        a.setCustomer(c);
+        a.setAccountType(AccountType.CURRENT);
+        a.setAccountNumber("AC" + UUID.randomUUID().toString().substring(0, 8));
+        a.setBalance(BigDecimal.ZERO);
+        a.setOpenedAt(Instant.now());
+        a.setStatus("ACTIVE");
+        return accountRepository.save(a);
+    }
+
+    private Long post(Account a, String type, String amount, String balanceAfter, String note) {
+        BankTransaction t = new BankTransaction();
+        t.setAccount(a);
+        t.setTxnType(type);
+        t.setAmount(new BigDecimal(amount));
+        t.setBalanceAfter(balanceAfter == null ? null : new BigDecimal(balanceAfter));
+        t.setNote(note);
+        t.setTxnDate(Instant.parse("2024-05-01T10:00:00Z"));
+        return txRepository.save(t).getId();
+    }
+
+    private String export(Long accountId, long afterId, TransactionExportService.Format format) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(accountId, afterId, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void ndjson_oneObjectPerLine_inIdOrder_resumableAfterId() {
+        String[] lines = export(account.getId(), 0, TransactionExportService.Format.NDJSON).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":" + ids.get(0) + ",\"accountId\":" + account.getId()));
+        assertTrue(lines[0].contains("\"amount\":100.00,\"balanceAfter\":100.00"));
+        assertTrue(lines[2].contains("\"balanceAfter\":null"));
+        assertTrue(lines[1].contains("\"note\":\"coffee, \\\"large\\\"\""));
+        assertTrue(lines[2].contains("\"note\":\"line\\nbreak\""));
+
+        String resumed = export(null, ids.get(1), TransactionExportService.Format.NDJSON);
+        assertEquals(2, resumed.split("\n").length);
+        assertTrue(resumed.startsWith("{\"id\":" + ids.get(2)));
+    }
+
+    @Test
+    void csv_hasHeaderAndQuotesSpecialCharacters() {
+        String csv = export(account.getId(), ids.get(0), TransactionExportService.Format.CSV);
+        assertEquals(TransactionExportService.CSV_HEADER + "\n"
+                + ids.get(2) + "," + account.getId() + ",WITHDRAWAL,2.50,97.50,2024-05-01T10:00:00Z,\"coffee, \"\"large\"\"\"\n"
+                + ids.get(3) + "," + account.getId() + ",DEPOSIT,3.00,,2024-05-01T10:00:00Z,\"line\nbreak\"\n", csv);
+    }
+}
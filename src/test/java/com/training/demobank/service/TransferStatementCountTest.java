@@ -0,0 +1,114 @@
+package com.training.demobank.service;
+
+import com.training.demobank.dto.AccountDtos;
+import com.training.demobank.model.Account;
+import com.training.demobank.model.AccountType;
+import com.training.demobank.model.Customer;
+import com.training.demobank.repository.CustomerRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts JDBC statements for one transfer and for a bulk account opening. With pooled sequence
+ * ids and JDBC batching, each kind of insert or update is prepared once and sent in batches.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.training.demobank.service.SqlRecorder"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Import({BankingService.class, PostingExecutor.class, StripedBalanceService.class, LookupCache.class,
+        BankingMetrics.class, SnowflakeAccountNumberGenerator.class})
+class TransferStatementCountTest {
+
+    @Autowired BankingService bankingService;
+    @Autowired CustomerRepository customerRepository;
+    @Autowired EntityManager entityManager;
+
+    Statistics stats;
+    Long customerId;
+    Account from;
+    Account to;
+
+    @BeforeEach
+    void setup() {
+        stats = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        Customer c = new Customer();
+        c.setFirstName("Batch");
+        c.setEmail("batch@test");
+        customerId = customerRepository.save(c).getId();
+        from = open(customerId, "100.00");
+        to = open(customerId, "100.00");
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private Account open(Long customerId, String opening) {
+        AccountDtos.CreateAccountRequest r = new AccountDtos.CreateAccountRequest();
+        r.customerId = customerId;
+        r.accountType = AccountType.CURRENT;
+        r.openingBalance = new BigDecimal(opening);
+        return bankingService.createAccount(r);
+    }
+
+    @Test
+    void transfer_flushesWritesAsOneBatchPerStatementType() {
+        stats.clear();
+        SqlRecorder.reset();
+
+        bankingService.transfer(from.getId(), to.getId(), new BigDecimal("10.00"), "batched");
+        entityManager.flush();
+
+        assertEquals(2, stats.getEntityUpdateCount());
+        assertEquals(2, stats.getEntityInsertCount());
+        assertEquals(1, stats.getFlushCount());
+
+        List<String> sql = SqlRecorder.statements();
+        List<String> writes = sql.stream()
+                .filter(s -> s.startsWith("insert") || s.startsWith("update") || s.startsWith("delete"))
+                .toList();
+        // one batched update + one batched insert (was 2 updates + 2 identity inserts)
+        assertEquals(2, writes.size(), () -> "Unexpected writes: " + writes);
+        assertTrue(writes.get(0).startsWith("insert into transactions"));
+        assertTrue(writes.get(1).startsWith("update accounts"));
+        assertEquals(2, sql.stream().filter(s -> s.endsWith("for update")).count());
+    }
+
+    @Test
+    void bulkOpen_readsCustomersOnce_andInsertsInBatches() {
+        List<AccountDtos.CreateAccountRequest> items = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            AccountDtos.CreateAccountRequest r = new AccountDtos.CreateAccountRequest();
+            r.customerId = customerId;
+            r.accountType = AccountType.CURRENT;
+            r.openingBalance = new BigDecimal("10.00");
+            items.add(r);
+        }
+        stats.clear();
+        SqlRecorder.reset();
+
+        AccountDtos.BulkCreateAccountsResponse res = bankingService.createAccounts(items);
+        entityManager.flush();
+
+        assertEquals(120, res.succeeded);
+        assertEquals(240, stats.getEntityInsertCount());
+        List<String> sql = SqlRecorder.statements();
+        assertEquals(1, sql.stream().filter(s -> s.startsWith("select") && s.contains("from customers")).count());
+        // One prepared insert per table, executed in batches of hibernate.jdbc.batch_size rows
+        assertEquals(1, sql.stream().filter(s -> s.startsWith("insert into accounts")).count());
+        assertEquals(1, sql.stream().filter(s -> s.startsWith("insert into transactions")).count());
+    }
+}